@@ -0,0 +1,135 @@
+package javaproj;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup indexes over the library catalog: hash indexes on book and member
+ * ID (case-insensitive, like the old findMember scan) and indexes on title
+ * and author for exact and prefix queries. Callers keep it in step with the
+ * books/members lists through the add/remove methods, from one thread; the
+ * ID lookups alone may also be called from other threads.
+ */
+class CatalogIndex {
+    private final Map<String, LibrarySystem.Book> booksById = new ConcurrentHashMap<>();
+    private final Map<String, LibrarySystem.Member> membersById = new ConcurrentHashMap<>();
+    private final Buckets booksByTitle = new Buckets();
+    private final Buckets booksByAuthor = new Buckets();
+
+    /**
+     * Books grouped by a lower-cased key: a hash map for exact lookups, plus
+     * the keys in order for prefix scans. A new key is only appended to a
+     * list, which the next scan sorts into the ordered set, and keys whose
+     * books are all gone are dropped by the scan that meets them; so adding
+     * a book costs one hash insert, not a walk down a tree of every title.
+     */
+    private static final class Buckets {
+        private final Map<String, List<LibrarySystem.Book>> byKey = new HashMap<>();
+        private final NavigableSet<String> ordered = new TreeSet<>();
+        private final List<String> unordered = new ArrayList<>();
+
+        void add(String key, LibrarySystem.Book b) {
+            List<LibrarySystem.Book> bucket = byKey.get(key);
+            if (bucket == null) {
+                byKey.put(key, bucket = new ArrayList<>(1));
+                unordered.add(key);
+                // Keys removed and added again pile up here when nobody scans.
+                if (unordered.size() > byKey.size() + 1024) order();
+            }
+            bucket.add(b);
+        }
+
+        void remove(String key, LibrarySystem.Book b) {
+            List<LibrarySystem.Book> bucket = byKey.get(key);
+            if (bucket == null) return;
+            bucket.remove(b);
+            if (bucket.isEmpty()) byKey.remove(key);
+        }
+
+        List<LibrarySystem.Book> get(String key) {
+            return byKey.get(key);
+        }
+
+        /** Books whose key starts with {@code prefix}, in key order, skipping {@code offset} and stopping at {@code limit}. */
+        List<LibrarySystem.Book> withPrefix(String prefix, int offset, int limit) {
+            order();
+            List<LibrarySystem.Book> result = new ArrayList<>(Math.min(limit, 256));
+            Iterator<String> keys = ordered.subSet(prefix, true, prefix + Character.MAX_VALUE, false).iterator();
+            int skip = offset;
+            while (keys.hasNext() && result.size() < limit) {
+                List<LibrarySystem.Book> bucket = byKey.get(keys.next());
+                if (bucket == null) {
+                    keys.remove();
+                } else if (skip >= bucket.size()) {
+                    skip -= bucket.size();
+                } else {
+                    for (int i = skip; i < bucket.size() && result.size() < limit; i++) result.add(bucket.get(i));
+                    skip = 0;
+                }
+            }
+            return result;
+        }
+
+        private void order() {
+            Collections.sort(unordered);
+            ordered.addAll(unordered);
+            unordered.clear();
+        }
+    }
+
+    static String key(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    void addBook(LibrarySystem.Book b) {
+        LibrarySystem.Book old = booksById.put(key(b.id), b);
+        if (old != null) {
+            booksByTitle.remove(key(old.title), old);
+            booksByAuthor.remove(key(old.author), old);
+        }
+        booksByTitle.add(key(b.title), b);
+        booksByAuthor.add(key(b.author), b);
+    }
+
+    void removeBook(LibrarySystem.Book b) {
+        if (booksById.remove(key(b.id), b)) {
+            booksByTitle.remove(key(b.title), b);
+            booksByAuthor.remove(key(b.author), b);
+        }
+    }
+
+    void addMember(LibrarySystem.Member m) {
+        membersById.put(key(m.id), m);
+    }
+
+    void removeMember(LibrarySystem.Member m) {
+        membersById.remove(key(m.id), m);
+    }
+
+    LibrarySystem.Book findBook(String id) {
+        return id == null ? null : booksById.get(key(id.trim()));
+    }
+
+    LibrarySystem.Member findMember(String id) {
+        return id == null ? null : membersById.get(key(id.trim()));
+    }
+
+    /** Whether a book with this title and author, ignoring case, is catalogued. */
+    boolean hasBook(String title, String author) {
+        List<LibrarySystem.Book> bucket = booksByTitle.get(key(title));
+        if (bucket == null) return false;
+        for (LibrarySystem.Book b : bucket)
+            if (b.author.equalsIgnoreCase(author)) return true;
+        return false;
+    }
+
+    /** Up to {@code limit} books whose title starts with {@code prefix}, ignoring case, in title order. */
+    List<LibrarySystem.Book> booksByTitlePrefix(String prefix, int offset, int limit) {
+        return booksByTitle.withPrefix(key(prefix), offset, limit);
+    }
+
+    /** Up to {@code limit} books whose author starts with {@code prefix}, ignoring case, in author order. */
+    List<LibrarySystem.Book> booksByAuthorPrefix(String prefix, int offset, int limit) {
+        return booksByAuthor.withPrefix(key(prefix), offset, limit);
+    }
+}
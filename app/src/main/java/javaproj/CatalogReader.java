@@ -0,0 +1,256 @@
+package javaproj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads title and author from each record of a catalog file, one record at a
+ * time, so a file of any size is read in constant memory. Two formats are
+ * understood, chosen by the file name (either optionally followed by
+ * {@code .gz}):
+ *
+ * {@code .csv}: RFC 4180 CSV with a header row naming a {@code title} and an
+ * {@code author} column; other columns are ignored, so a catalog export reads
+ * straight back in. Without such a header the first two columns are taken,
+ * and the first row is read as data.
+ *
+ * {@code .mrk}: MARC records in the mnemonic text form MarcEdit and most
+ * library systems export, one {@code =TAG  data} line per field and a blank
+ * line between records. The title is 245 $a and $b, the author 100 $a (or
+ * 110 $a, or 700 $a), with the ISBD punctuation that ends each subfield
+ * removed.
+ *
+ * Title and author come back untrimmed and null when missing; checking them
+ * is up to the caller.
+ */
+final class CatalogReader implements Closeable {
+    private enum Format { CSV, MARC }
+
+    private final Reader in;
+    private final Format format;
+    private final char[] buf = new char[1 << 16];
+    private int pos, limit;
+    private int line = 1, recordLine;
+    private int titleColumn = 0, authorColumn = 1;
+    private String title, author;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder sb = new StringBuilder();
+    private boolean headerChecked;
+
+    private CatalogReader(InputStream stream, Format format) {
+        this.in = new InputStreamReader(stream, StandardCharsets.UTF_8);
+        this.format = format;
+    }
+
+    /** Opens a reader for {@code file}; the format comes from its extension. */
+    static CatalogReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) name = name.substring(0, name.length() - 3);
+        Format format;
+        if (name.endsWith(".csv")) format = Format.CSV;
+        else if (name.endsWith(".mrk")) format = Format.MARC;
+        else throw new IllegalArgumentException("Import file must end in .csv or .mrk, optionally followed by .gz");
+        InputStream stream = Files.newInputStream(file);
+        try {
+            return new CatalogReader(gzip ? new GZIPInputStream(stream, 1 << 16) : stream, format);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /** Reads the next record; false at the end of the file. */
+    boolean next() throws IOException {
+        return format == Format.CSV ? nextCsv() : nextMarc();
+    }
+
+    /** The line of the file the current record starts on, counting from 1. */
+    int line() { return recordLine; }
+
+    String title() { return title; }
+
+    String author() { return author; }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ---- CSV ----
+
+    private boolean nextCsv() throws IOException {
+        if (!headerChecked) {
+            headerChecked = true;
+            // Excel and Notepad start UTF-8 CSV with a byte order mark, which would hide the header.
+            if (peek() == '\uFEFF') read();
+            if (!readCsvRecord()) return false;
+            int t = column("title"), a = column("author");
+            if (t >= 0 && a >= 0) {
+                titleColumn = t;
+                authorColumn = a;
+                if (!readCsvRecord()) return false;
+            }
+        } else if (!readCsvRecord()) {
+            return false;
+        }
+        title = titleColumn < fields.size() ? fields.get(titleColumn) : null;
+        author = authorColumn < fields.size() ? fields.get(authorColumn) : null;
+        return true;
+    }
+
+    private int column(String name) {
+        for (int i = 0; i < fields.size(); i++)
+            if (fields.get(i).trim().equalsIgnoreCase(name)) return i;
+        return -1;
+    }
+
+    /** Reads one record into {@link #fields}, skipping blank lines; false at the end of the file. */
+    private boolean readCsvRecord() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == '\n') line++;
+        } while (c == '\n' || c == '\r');
+        if (c < 0) return false;
+
+        recordLine = line;
+        fields.clear();
+        sb.setLength(0);
+        boolean quoted = false, wasQuoted = false;
+        for (; ; c = read()) {
+            if (quoted) {
+                if (c < 0) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        sb.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    sb.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(sb.toString());
+                sb.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r' && peek() == '\n') read();
+                if (c >= 0) line++;
+                fields.add(sb.toString());
+                return true;
+            } else if (c == '"' && sb.length() == 0 && !wasQuoted) {
+                quoted = wasQuoted = true;
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    // ---- MARC mnemonic ----
+
+    private boolean nextMarc() throws IOException {
+        title = author = null;
+        String otherAuthor = null;
+        boolean inRecord = false;
+        while (true) {
+            int start = line;
+            String l = readLine();
+            if (l == null || l.isBlank()) {
+                if (inRecord) break;
+                if (l == null) return false;
+                continue;
+            }
+            if (!inRecord) {
+                inRecord = true;
+                recordLine = start;
+            }
+            if (l.length() < 4 || l.charAt(0) != '=') continue;
+            String tag = l.substring(1, 4);
+            if (tag.equals("245")) {
+                String a = subfield(l, 'a'), b = subfield(l, 'b');
+                title = a == null ? strip(b) : b == null ? strip(a) : strip(a) + " " + strip(b);
+            } else if (tag.equals("100") || tag.equals("110")) {
+                if (author == null) author = strip(subfield(l, 'a'));
+            } else if (tag.equals("700")) {
+                if (otherAuthor == null) otherAuthor = strip(subfield(l, 'a'));
+            }
+        }
+        if (author == null) author = otherAuthor;
+        return true;
+    }
+
+    /** The first {@code $code} subfield of a data field line, or null. */
+    private static String subfield(String l, char code) {
+        int at = l.indexOf('$', 4);
+        while (at >= 0 && at + 1 < l.length()) {
+            int end = l.indexOf('$', at + 2);
+            if (l.charAt(at + 1) == code) {
+                return l.substring(at + 2, end < 0 ? l.length() : end).replace("{dollar}", "$");
+            }
+            at = end;
+        }
+        return null;
+    }
+
+    /**
+     * Drops the punctuation cataloguers put before the next subfield: a
+     * trailing slash, colon, semicolon, equals sign or comma, and a final
+     * full stop unless it ends an initial such as "Robert T.".
+     */
+    private static String strip(String s) {
+        if (s == null) return null;
+        int end = s.length();
+        while (end > 0 && " /:;=,".indexOf(s.charAt(end - 1)) >= 0) end--;
+        if (end > 1 && s.charAt(end - 1) == '.'
+                && !(Character.isUpperCase(s.charAt(end - 2)) && (end == 2 || s.charAt(end - 3) == ' '))) {
+            end--;
+        }
+        while (end > 0 && s.charAt(end - 1) == ' ') end--;
+        return s.substring(0, end);
+    }
+
+    private String readLine() throws IOException {
+        int c = read();
+        if (c < 0) return null;
+        sb.setLength(0);
+        while (c >= 0 && c != '\n') {
+            if (c != '\r') sb.append((char) c);
+            c = read();
+        }
+        line++;
+        return sb.toString();
+    }
+
+    // ---- buffer ----
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,596 @@
+package javaproj;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Append-only record of every issue and return, kept so past loans can be
+ * looked up after the copy has come back.
+ *
+ * Events are partitioned by local day. The current day lives in memory as
+ * primitive columns and is journalled row by row to {@code <day>.journal};
+ * once the clock passes midnight the day is sealed into an immutable
+ * {@code <day>.seg} file and the journal is deleted. A sealed segment is
+ * columnar (big-endian):
+ * <pre>
+ *   header   64 bytes  magic, version, epoch day, event count, time of the
+ *                      first event in millis, offsets of the eight sections
+ *   time     varint millis since the previous event (the first is 0)
+ *   kind     one byte per event: 0 issue, 1 return
+ *   book     varint code into the book dictionary
+ *   copy     varint
+ *   member   varint code into the member dictionary
+ *   fine     varint, owed on a return
+ *   dicts    book IDs, then member IDs: count, count + 1 offsets, UTF-8
+ *            bytes; sorted by their bytes, so a lookup is a binary search
+ * </pre>
+ * Scans map the segments in the day range and walk the columns in step,
+ * materialising only the events that match. A segment whose dictionary
+ * lacks the book or member asked for is skipped without reading its
+ * columns, so "all loans of one book last year" touches little more than
+ * 365 small dictionaries however many events there are.
+ *
+ * {@link #record} only queues the event; one thread appends queued events
+ * and writes the journal once per batch, so issues and returns do not wait
+ * on history I/O unless it falls {@link #MAX_QUEUED} events behind. The
+ * journal is not forced: after a crash the history may lack the last
+ * moments before it, while the library's own log does not. Nor is a write
+ * retried: events that meet an I/O error are reported on the console and
+ * left out of the history.
+ */
+final class CirculationHistory implements Closeable {
+
+    enum Kind { ISSUE, RETURN }
+
+    static final class Event {
+        final long millis;
+        final Kind kind;
+        final String bookId, memberId;
+        final int copy;
+        /** Fine owed on a return; 0 for an issue. */
+        final long fine;
+
+        Event(long millis, Kind kind, String bookId, int copy, String memberId, long fine) {
+            this.millis = millis;
+            this.kind = kind;
+            this.bookId = bookId;
+            this.copy = copy;
+            this.memberId = memberId;
+            this.fine = fine;
+        }
+    }
+
+    private static final int MAGIC = 0x4C484953; // "LHIS"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int SECTIONS = 8;
+    private static final int MAX_JOURNAL_RECORD = 1 << 16;
+    /** Events queued before {@link #record} waits for the writer to catch up. */
+    static final int MAX_QUEUED = 100_000;
+
+    private final Path dir;
+    private final ConcurrentLinkedQueue<Event> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-history");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /* Guarded by this: the sealed segments by epoch day, and the open day. */
+    private final NavigableMap<Integer, Path> sealed = new TreeMap<>();
+    private OpenDay open;
+
+    /* Writer thread only. */
+    private DataOutputStream journal;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+    private long lastMillis = Long.MIN_VALUE;
+
+    /** Opens the history in {@code dir}, sealing journals left from earlier days. */
+    CirculationHistory(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        int today = Dates.today();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                int day = day(name);
+                if (day == Dates.NO_DAY) continue;
+                if (name.endsWith(".seg")) sealed.put(day, p);
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.journal")) {
+            for (Path p : files) {
+                int day = day(p.getFileName().toString());
+                if (day == Dates.NO_DAY) continue;
+                OpenDay loaded = readJournal(p, day);
+                if (day < today || open != null) {
+                    seal(loaded);
+                } else {
+                    open = loaded;
+                    if (loaded.size > 0) lastMillis = loaded.millis[loaded.size - 1];
+                }
+            }
+        }
+    }
+
+    /** Queues an event; it is written by the history thread. */
+    void record(Kind kind, long millis, String bookId, int copy, String memberId, long fine) {
+        while (queuedCount.get() >= MAX_QUEUED && !writer.isShutdown()) LockSupport.parkNanos(100_000);
+        queued.add(new Event(millis, kind, bookId, copy, memberId, fine));
+        queuedCount.incrementAndGet();
+        if (drainQueued.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drainQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Calls {@code sink} with each event from {@code fromDay} to
+     * {@code toDay} (inclusive epoch days) that matches the filters, oldest
+     * first, until it returns false. A null kind, book or member matches any.
+     * Events still queued are not seen.
+     */
+    void scan(int fromDay, int toDay, Kind kind, String bookId, String memberId,
+              Predicate<Event> sink) throws IOException {
+        if (fromDay > toDay) return;
+        List<Path> segments;
+        OpenDay current;
+        synchronized (this) {
+            segments = new ArrayList<>(sealed.subMap(fromDay, true, toDay, true).values());
+            current = open != null && open.day >= fromDay && open.day <= toDay ? open : null;
+        }
+        byte[] book = bookId == null ? null : bookId.getBytes(StandardCharsets.UTF_8);
+        byte[] member = memberId == null ? null : memberId.getBytes(StandardCharsets.UTF_8);
+        for (Path segment : segments) {
+            if (!scanSegment(segment, kind, book, member, sink)) return;
+        }
+        if (current != null) scanOpen(current, kind, bookId, memberId, sink);
+    }
+
+    /** Writes out everything queued so far, then stops the history thread; later calls do nothing. */
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        writer.execute(this::drain);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) journal.close();
+    }
+
+    // ---- writing ----
+
+    private void drain() {
+        drainQueued.set(false);
+        try {
+            for (Event e; (e = queued.poll()) != null; ) {
+                queuedCount.decrementAndGet();
+                append(e);
+            }
+            if (journal != null) journal.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing circulation history: " + e.getMessage());
+        }
+    }
+
+    private void append(Event e) throws IOException {
+        // One writer, and the clock only moves forward, so time deltas are never negative.
+        long millis = Math.max(e.millis, lastMillis);
+        lastMillis = millis;
+        int day = Dates.epochDay(millis);
+        if (open == null || open.day != day) startDay(day);
+        writeJournal(e.kind, millis, e.bookId, e.copy, e.memberId, e.fine);
+        open.add(millis, e.kind, e.bookId, e.copy, e.memberId, e.fine);
+    }
+
+    /** Seals the open day, if any, and starts a journal for {@code day}. */
+    private void startDay(int day) throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (open != null) seal(open);
+        synchronized (this) {
+            open = new OpenDay(day);
+        }
+        journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalPath(day),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private void writeJournal(Kind kind, long millis, String bookId, int copy, String memberId, long fine)
+            throws IOException {
+        if (journal == null) {
+            journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalPath(open.day),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+        }
+        record.reset();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(kind.ordinal());
+        out.writeLong(millis);
+        out.writeUTF(bookId);
+        out.writeInt(copy);
+        out.writeUTF(memberId);
+        out.writeLong(fine);
+        journal.writeInt(record.size());
+        record.writeTo(journal);
+    }
+
+    /** Loads a journal, cutting off a record torn by a crash. */
+    private static OpenDay readJournal(Path file, int day) throws IOException {
+        OpenDay loaded = new OpenDay(day);
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] payload = new byte[256];
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                    if (len <= 0 || len > MAX_JOURNAL_RECORD) break;
+                    if (payload.length < len) payload = new byte[len];
+                    in.readFully(payload, 0, len);
+                } catch (EOFException e) {
+                    break;
+                }
+                DataInputStream r = new DataInputStream(new ByteArrayInputStream(payload, 0, len));
+                int kind = r.readByte();
+                if (kind < 0 || kind >= Kind.values().length) break;
+                loaded.add(r.readLong(), Kind.values()[kind], r.readUTF(), r.readInt(), r.readUTF(), r.readLong());
+                good += 4 + len;
+            }
+        }
+        if (good < Files.size(file)) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(good);
+            }
+        }
+        return loaded;
+    }
+
+    /** Writes {@code day} as a columnar segment, then drops its journal. */
+    private void seal(OpenDay day) throws IOException {
+        Path target = segmentPath(day.day), tmp = dir.resolve(target.getFileName() + ".tmp");
+        if (day.size > 0) {
+            Integer[] bookSorted = day.books.sortedOrder(), memberSorted = day.members.sortedOrder();
+            int[] bookOrder = ranks(bookSorted), memberOrder = ranks(memberSorted);
+            Bytes time = new Bytes(day.size * 2), kinds = new Bytes(day.size), books = new Bytes(day.size * 2),
+                    copies = new Bytes(day.size), members = new Bytes(day.size * 2), fines = new Bytes(day.size);
+            for (int i = 0; i < day.size; i++) {
+                time.varint(i == 0 ? 0 : day.millis[i] - day.millis[i - 1]);
+                kinds.put(day.kinds[i]);
+                books.varint(bookOrder[day.bookCodes[i]]);
+                copies.varint(day.copies[i]);
+                members.varint(memberOrder[day.memberCodes[i]]);
+                fines.varint(day.fines[i]);
+            }
+            Bytes[] sections = {time, kinds, books, copies, members, fines,
+                    day.books.encode(bookSorted), day.members.encode(memberSorted)};
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(day.day).putInt(day.size).putLong(day.millis[0]);
+            int at = HEADER;
+            for (Bytes section : sections) {
+                header.putInt(at);
+                at += section.size;
+            }
+            header.putInt(at);
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                header.clear();
+                while (header.hasRemaining()) ch.write(header);
+                for (Bytes section : sections) {
+                    ByteBuffer b = ByteBuffer.wrap(section.bytes, 0, section.size);
+                    while (b.hasRemaining()) ch.write(b);
+                }
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        synchronized (this) {
+            if (day.size > 0) sealed.put(day.day, target);
+            if (open == day) open = null;
+        }
+        Files.deleteIfExists(journalPath(day.day));
+    }
+
+    /** For each code, its place in {@code order}. */
+    private static int[] ranks(Integer[] order) {
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) rank[order[i]] = i;
+        return rank;
+    }
+
+    // ---- reading ----
+
+    private static boolean scanSegment(Path file, Kind kind, byte[] book, byte[] member,
+                                       Predicate<Event> sink) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("History segment larger than 2 GB: " + file);
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (map.capacity() < HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+            throw new IOException("Not a history segment: " + file.getFileName());
+        int count = map.getInt(12);
+        int[] at = new int[SECTIONS + 1];
+        for (int s = 0; s <= SECTIONS; s++) {
+            at[s] = map.getInt(24 + 4 * s);
+            if (at[s] < HEADER || at[s] > map.capacity() || (s > 0 && at[s] < at[s - 1]))
+                throw new IOException("History segment is corrupt: " + file.getFileName());
+        }
+        int bookCode = book == null ? -1 : find(map, at[6], book);
+        int memberCode = member == null ? -1 : find(map, at[7], member);
+        if ((book != null && bookCode < 0) || (member != null && memberCode < 0)) return true;
+
+        int[] pos = at.clone();
+        long millis = map.getLong(16);
+        for (int i = 0; i < count; i++) {
+            millis += varint(map, pos, 0);
+            int k = map.get(pos[1]++);
+            int b = (int) varint(map, pos, 2);
+            int copy = (int) varint(map, pos, 3);
+            int m = (int) varint(map, pos, 4);
+            long fine = varint(map, pos, 5);
+            if ((kind != null && k != kind.ordinal()) || (book != null && b != bookCode)
+                    || (member != null && m != memberCode)) continue;
+            Event e = new Event(millis, Kind.values()[k], entry(map, at[6], b), copy, entry(map, at[7], m), fine);
+            if (!sink.test(e)) return false;
+        }
+        return true;
+    }
+
+    private static void scanOpen(OpenDay day, Kind kind, String bookId, String memberId,
+                                 Predicate<Event> sink) {
+        long[] millis;
+        byte[] kinds;
+        int[] books, copies, members;
+        long[] fines;
+        String[] bookNames, memberNames;
+        int size, bookCode, memberCode;
+        synchronized (day) {
+            size = day.size;
+            millis = day.millis;
+            kinds = day.kinds;
+            books = day.bookCodes;
+            copies = day.copies;
+            members = day.memberCodes;
+            fines = day.fines;
+            bookNames = day.books.names;
+            memberNames = day.members.names;
+            bookCode = bookId == null ? -1 : day.books.code(bookId);
+            memberCode = memberId == null ? -1 : day.members.code(memberId);
+        }
+        if ((bookId != null && bookCode < 0) || (memberId != null && memberCode < 0)) return;
+        for (int i = 0; i < size; i++) {
+            if ((kind != null && kinds[i] != kind.ordinal()) || (bookId != null && books[i] != bookCode)
+                    || (memberId != null && members[i] != memberCode)) continue;
+            Event e = new Event(millis[i], Kind.values()[kinds[i]], bookNames[books[i]], copies[i],
+                    memberNames[members[i]], fines[i]);
+            if (!sink.test(e)) return;
+        }
+    }
+
+    /** Reads the varint at column {@code c}'s cursor and advances it. */
+    private static long varint(ByteBuffer map, int[] pos, int c) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = map.get(pos[c]++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /** Binary search of a dictionary for {@code key}; its code, or -1. */
+    private static int find(ByteBuffer map, int dict, byte[] key) {
+        int lo = 0, hi = map.getInt(dict) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int start = map.getInt(dict + 4 + 4 * mid), end = map.getInt(dict + 8 + 4 * mid);
+            int cmp = compare(map, entriesAt(map, dict) + start, end - start, key);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private static String entry(ByteBuffer map, int dict, int code) {
+        int start = map.getInt(dict + 4 + 4 * code), end = map.getInt(dict + 8 + 4 * code);
+        byte[] utf8 = new byte[end - start];
+        map.get(entriesAt(map, dict) + start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int entriesAt(ByteBuffer map, int dict) {
+        return dict + 8 + 4 * map.getInt(dict);
+    }
+
+    private static int compare(ByteBuffer map, int at, int len, byte[] key) {
+        for (int i = 0, n = Math.min(len, key.length); i < n; i++) {
+            int c = Integer.compare(map.get(at + i) & 0xFF, key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return Integer.compare(len, key.length);
+    }
+
+    // ---- files ----
+
+    private Path segmentPath(int day) {
+        return dir.resolve(LocalDate.ofEpochDay(day) + ".seg");
+    }
+
+    private Path journalPath(int day) {
+        return dir.resolve(LocalDate.ofEpochDay(day) + ".journal");
+    }
+
+    /** The epoch day a history file is for, or {@link Dates#NO_DAY} if it is not one. */
+    private static int day(String name) {
+        int dot = name.indexOf('.');
+        if (dot < 0 || !(name.endsWith(".seg") || name.endsWith(".journal"))) return Dates.NO_DAY;
+        try {
+            return (int) LocalDate.parse(name.substring(0, dot)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return Dates.NO_DAY;
+        }
+    }
+
+    // ---- in-memory day ----
+
+    /**
+     * The day being written, as growable primitive columns. Arrays are only
+     * ever appended to or replaced by larger copies, so a scan can read the
+     * first {@code size} entries of the arrays it saw under the monitor
+     * while appends carry on.
+     */
+    private static final class OpenDay {
+        final int day;
+        final Dictionary books = new Dictionary(), members = new Dictionary();
+        long[] millis = new long[1024];
+        byte[] kinds = new byte[1024];
+        int[] bookCodes = new int[1024], copies = new int[1024], memberCodes = new int[1024];
+        long[] fines = new long[1024];
+        int size;
+
+        OpenDay(int day) {
+            this.day = day;
+        }
+
+        synchronized void add(long at, Kind kind, String bookId, int copy, String memberId, long fine) {
+            if (size == millis.length) {
+                int n = size * 2;
+                millis = Arrays.copyOf(millis, n);
+                kinds = Arrays.copyOf(kinds, n);
+                bookCodes = Arrays.copyOf(bookCodes, n);
+                copies = Arrays.copyOf(copies, n);
+                memberCodes = Arrays.copyOf(memberCodes, n);
+                fines = Arrays.copyOf(fines, n);
+            }
+            millis[size] = at;
+            kinds[size] = (byte) kind.ordinal();
+            bookCodes[size] = books.intern(bookId);
+            copies[size] = copy;
+            memberCodes[size] = members.intern(memberId);
+            fines[size] = fine;
+            size++;
+        }
+    }
+
+    /** Strings coded by first appearance while a day is open, re-coded in byte order when it is sealed. */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        String[] names = new String[64];
+
+        int intern(String s) {
+            Integer code = codes.get(s);
+            if (code != null) return code;
+            int next = codes.size();
+            if (next == names.length) names = Arrays.copyOf(names, next * 2);
+            names[next] = s;
+            codes.put(s, next);
+            return next;
+        }
+
+        int code(String s) {
+            return codes.getOrDefault(s, -1);
+        }
+
+        /** The strings in {@code order}, one of {@link #sortedOrder}, as a segment dictionary. */
+        Bytes encode(Integer[] order) {
+            byte[][] utf8 = new byte[order.length][];
+            int total = 0;
+            for (int i = 0; i < order.length; i++) total += (utf8[i] = bytes(names[order[i]])).length;
+            Bytes out = new Bytes(8 + 4 * order.length + total);
+            out.putInt(order.length);
+            int offset = 0;
+            for (byte[] b : utf8) {
+                out.putInt(offset);
+                offset += b.length;
+            }
+            out.putInt(offset);
+            for (byte[] b : utf8) out.put(b);
+            return out;
+        }
+
+        /** Codes in the byte order of their strings. */
+        Integer[] sortedOrder() {
+            int n = codes.size();
+            byte[][] utf8 = new byte[n][];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                utf8[i] = bytes(names[i]);
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(utf8[a], utf8[b]));
+            return order;
+        }
+
+        private static byte[] bytes(String s) {
+            return s.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Growable big-endian byte buffer for building a section. */
+    private static final class Bytes {
+        byte[] bytes;
+        int size;
+
+        Bytes(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            bytes[size++] = (byte) (v >>> 24);
+            bytes[size++] = (byte) (v >>> 16);
+            bytes[size++] = (byte) (v >>> 8);
+            bytes[size++] = (byte) v;
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package javaproj;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.function.LongSupplier;
+
+/**
+ * Calendar helpers for loans. Dates are local epoch days (days since
+ * 1970-01-01 in the system time zone) kept as ints, so loan arithmetic is
+ * plain subtraction and nothing is allocated per book.
+ *
+ * Everything here is safe to call from any thread: the formatter is
+ * immutable, and the caches only ever hold immutable entries, so a racing
+ * reader sees either an old entry or a new one, never a half-built one.
+ */
+final class Dates {
+    static final int NO_DAY = Integer.MIN_VALUE;
+    static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /** Loans cluster around the last few weeks, so a small direct-mapped cache catches nearly every lookup. */
+    private static final int CACHE_SIZE = 1024;
+    private static final Formatted[] formatted = new Formatted[CACHE_SIZE];
+
+    private static final class Formatted {
+        final int day;
+        final String text;
+
+        Formatted(int day, String text) {
+            this.day = day;
+            this.text = text;
+        }
+    }
+
+    /** The local date as an epoch day, plus the span of clock time it covers. */
+    private static final class Day {
+        final int epochDay;
+        final long start, end;
+
+        Day(int epochDay, long start, long end) {
+            this.epochDay = epochDay;
+            this.start = start;
+            this.end = end;
+        }
+
+        static Day at(long millis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            return new Day((int) date.toEpochDay(), date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+
+    /** The clock {@link #today()} reads; tests set it to step across midnight. */
+    static volatile LongSupplier clock = System::currentTimeMillis;
+    private static volatile Day today = Day.at(clock.getAsLong());
+
+    private Dates() {
+    }
+
+    /** Today's epoch day; the date is only worked out again once the clock passes midnight. */
+    static int today() {
+        Day d = today;
+        long now = clock.getAsLong();
+        if (now >= d.end || now < d.start) today = d = Day.at(now);
+        return d.epochDay;
+    }
+
+    /** The local epoch day containing {@code millis}, for reading old millisecond timestamps. */
+    static int epochDay(long millis) {
+        Day d = today;
+        if (millis >= d.start && millis < d.end) return d.epochDay;
+        return (int) Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /** Formats as dd-MM-yyyy, reusing the string for recently formatted days. */
+    static String format(int day) {
+        int slot = day & (CACHE_SIZE - 1);
+        Formatted f = formatted[slot];
+        if (f == null || f.day != day) formatted[slot] = f = new Formatted(day, FORMAT.format(LocalDate.ofEpochDay(day)));
+        return f.text;
+    }
+
+    /** Parses dd-MM-yyyy; throws DateTimeParseException for anything else, including 31-02-2025. */
+    static int parse(String text) {
+        return (int) LocalDate.parse(text, FORMAT).toEpochDay();
+    }
+}
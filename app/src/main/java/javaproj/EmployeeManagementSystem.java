@@ -0,0 +1,1637 @@
+package javaproj;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+abstract class Employee {
+    protected String employeeId, name, department;
+    
+    public Employee(String employeeId, String name, String department) {
+        this.employeeId = employeeId;
+        setName(name);
+        setDepartment(department);
+    }
+    
+    public String getEmployeeId() { return employeeId; }
+    public String getName() { return name; }
+    public String getDepartment() { return department; }
+    
+    static boolean containsDigit(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+        }
+        return false;
+    }
+    
+    public void setName(String name) {
+        if (containsDigit(name)) {
+            throw new IllegalArgumentException("Name cannot contain numbers");
+        }
+        this.name = name;
+    }
+    
+    public void setDepartment(String department) {
+        if (containsDigit(department)) {
+            throw new IllegalArgumentException("Department cannot contain numbers");
+        }
+        this.department = department;
+    }
+    
+    public abstract double calculateSalary();
+    
+    @Override
+    public String toString() {
+        return String.format("ID: %s, Name: %s, Dept: %s", employeeId, name, department);
+    }
+    
+    public abstract Map<String, Object> toMap();
+    
+    public static Employee fromMap(Map<String, Object> data) {
+        String type = (String) data.get("type");
+        String empId = (String) data.get("employee_id");
+        String name = (String) data.get("name");
+        String dept = (String) data.get("department");
+        
+        switch (type) {
+            case "fulltimeemployee":
+                return new FullTimeEmployee(empId, name, dept, Double.parseDouble(data.get("monthly_salary").toString()));
+            case "parttimeemployee":
+                return new PartTimeEmployee(empId, name, dept, 
+                    Double.parseDouble(data.get("hourly_rate").toString()),
+                    Double.parseDouble(data.get("hours_worked").toString()));
+            case "manager":
+                return new Manager(empId, name, dept, 
+                    Double.parseDouble(data.get("monthly_salary").toString()),
+                    Double.parseDouble(data.get("bonus").toString()));
+            default: throw new IllegalArgumentException("Unknown employee type: " + type);
+        }
+    }
+}
+
+class FullTimeEmployee extends Employee {
+    private double monthlySalary;
+    
+    public FullTimeEmployee(String employeeId, String name, String department, double monthlySalary) {
+        super(employeeId, name, department);
+        setMonthlySalary(monthlySalary);
+    }
+    
+    public double getMonthlySalary() { return monthlySalary; }
+    public void setMonthlySalary(double monthlySalary) {
+        if (monthlySalary < 0) throw new IllegalArgumentException("Salary cannot be negative");
+        this.monthlySalary = monthlySalary;
+    }
+    
+    @Override
+    public double calculateSalary() { return monthlySalary; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s, Monthly Salary: ₹%,.2f", super.toString(), monthlySalary);
+    }
+    
+    @Override
+    public Map<String, Object> toMap() {
+        return Map.of(
+            "type", "fulltimeemployee",
+            "employee_id", employeeId,
+            "name", name,
+            "department", department,
+            "monthly_salary", monthlySalary
+        );
+    }
+}
+
+class PartTimeEmployee extends Employee {
+    private double hourlyRate, hoursWorked;
+    
+    public PartTimeEmployee(String employeeId, String name, String department, 
+                           double hourlyRate, double hoursWorked) {
+        super(employeeId, name, department);
+        setHourlyRate(hourlyRate);
+        setHoursWorked(hoursWorked);
+    }
+    
+    public double getHourlyRate() { return hourlyRate; }
+    public double getHoursWorked() { return hoursWorked; }
+    
+    public void setHourlyRate(double hourlyRate) {
+        if (hourlyRate < 0) throw new IllegalArgumentException("Hourly rate cannot be negative");
+        this.hourlyRate = hourlyRate;
+    }
+    
+    public void setHoursWorked(double hoursWorked) {
+        if (hoursWorked < 0) throw new IllegalArgumentException("Hours worked cannot be negative");
+        this.hoursWorked = hoursWorked;
+    }
+    
+    @Override
+    public double calculateSalary() { return hourlyRate * hoursWorked; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s, Hourly Rate: ₹%.2f, Hours Worked: %.2f, Monthly Pay: ₹%,.2f",
+                super.toString(), hourlyRate, hoursWorked, calculateSalary());
+    }
+    
+    @Override
+    public Map<String, Object> toMap() {
+        return Map.of(
+            "type", "parttimeemployee",
+            "employee_id", employeeId,
+            "name", name,
+            "department", department,
+            "hourly_rate", hourlyRate,
+            "hours_worked", hoursWorked
+        );
+    }
+}
+
+class Manager extends FullTimeEmployee {
+    private double bonus;
+    
+    public Manager(String employeeId, String name, String department, 
+                  double monthlySalary, double bonus) {
+        super(employeeId, name, department, monthlySalary);
+        setBonus(bonus);
+    }
+    
+    public double getBonus() { return bonus; }
+    public void setBonus(double bonus) {
+        if (bonus < 0) throw new IllegalArgumentException("Bonus cannot be negative");
+        this.bonus = bonus;
+    }
+    
+    @Override
+    public double calculateSalary() { return super.calculateSalary() + bonus; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s, Bonus: ₹%,.2f, Total Salary: ₹%,.2f",
+                super.toString(), bonus, calculateSalary());
+    }
+    
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>(super.toMap());
+        data.put("type", "manager");
+        data.put("bonus", bonus);
+        return data;
+    }
+}
+
+/**
+ * Append-only change log kept next to the employee data file. Each mutation
+ * adds one line ("+ {record}" or "- id") instead of rewriting the whole file;
+ * Company periodically folds the log back into the data file.
+ *
+ * While a compaction runs, the log being folded is renamed to *.compacting
+ * and new changes go to a fresh log, so loading replays base, then
+ * *.compacting, then the live log. Replaying a record twice is harmless.
+ */
+class EmployeeLog implements Closeable {
+    private final File logFile, compactingFile;
+    private BufferedWriter writer;
+    private int records;
+    
+    public EmployeeLog(String dataFile) {
+        this.logFile = new File(dataFile + ".log");
+        this.compactingFile = new File(dataFile + ".compacting");
+    }
+    
+    public boolean interruptedCompaction() { return compactingFile.exists(); }
+    
+    public void replay(ObjIntConsumer<String> put, Consumer<String> remove) throws IOException {
+        for (File file : new File[]{compactingFile, logFile}) {
+            if (!file.exists()) continue;
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                int lineNo = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNo++;
+                    if (line.startsWith("+ ")) put.accept(line.substring(2), lineNo);
+                    else if (line.startsWith("- ")) remove.accept(line.substring(2));
+                    if (file == logFile) records++;
+                }
+            }
+        }
+    }
+    
+    public void open() throws IOException {
+        writer = new BufferedWriter(new FileWriter(logFile, true));
+    }
+    
+    public void put(Employee employee) throws IOException { append("+ " + EmployeeRecords.format(employee)); }
+    public void remove(String employeeId) throws IOException { append("- " + employeeId); }
+    
+    private void append(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        records++;
+    }
+    
+    public void flush() throws IOException { writer.flush(); }
+    
+    public int records() { return records; }
+    
+    /** Starts a new log; the old one stays as *.compacting until {@link #compacted()}. */
+    public void rotate() throws IOException {
+        writer.close();
+        try {
+            Files.move(logFile.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            records = 0;
+        } finally {
+            open();
+        }
+    }
+    
+    public void compacted() throws IOException {
+        Files.deleteIfExists(compactingFile.toPath());
+    }
+    
+    /** Drops every logged change once the data file is known to contain them. */
+    public void reset() throws IOException {
+        writer.close();
+        new FileWriter(logFile).close();
+        Files.deleteIfExists(compactingFile.toPath());
+        records = 0;
+        open();
+    }
+    
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
+
+/**
+ * Reads and writes the one-line employee records stored in employees.dat,
+ * e.g. {type=manager, employee_id=E1, name=Asha, department=Sales,
+ * monthly_salary=50000.0, bonus=5000.0}.
+ *
+ * Parsing is a single pass over the line straight into the Employee
+ * subclass, with no intermediate map or regex. A field ends at the next
+ * ", key=" (an identifier followed by '='), so legacy lines whose names
+ * contain ", " or "=" still read correctly. Writing escapes backslashes,
+ * commas and line breaks inside text values.
+ */
+final class EmployeeRecords {
+    private static final int TYPE = 0, EMPLOYEE_ID = 1, NAME = 2, DEPARTMENT = 3,
+            MONTHLY_SALARY = 4, HOURLY_RATE = 5, HOURS_WORKED = 6, BONUS = 7;
+    private static final String[] KEYS = {
+        "type", "employee_id", "name", "department", "monthly_salary", "hourly_rate", "hours_worked", "bonus"
+    };
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+    
+    private EmployeeRecords() {}
+    
+    /** The name {@code employees.dat} uses for the employee's class. */
+    public static String type(Employee emp) {
+        return emp instanceof Manager ? "manager"
+                : emp instanceof FullTimeEmployee ? "fulltimeemployee" : "parttimeemployee";
+    }
+    
+    public static String format(Employee emp) {
+        StringBuilder sb = new StringBuilder(128).append('{');
+        sb.append("type=").append(type(emp));
+        sb.append(", employee_id="); escape(sb, emp.getEmployeeId());
+        sb.append(", name="); escape(sb, emp.getName());
+        sb.append(", department="); escape(sb, emp.getDepartment());
+        if (emp instanceof FullTimeEmployee) {
+            sb.append(", monthly_salary=").append(((FullTimeEmployee) emp).getMonthlySalary());
+            if (emp instanceof Manager) sb.append(", bonus=").append(((Manager) emp).getBonus());
+        } else {
+            PartTimeEmployee pt = (PartTimeEmployee) emp;
+            sb.append(", hourly_rate=").append(pt.getHourlyRate());
+            sb.append(", hours_worked=").append(pt.getHoursWorked());
+        }
+        return sb.append('}').toString();
+    }
+    
+    private static void escape(StringBuilder sb, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case ',': sb.append("\\,"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+    
+    /** Parses one record; errors are reported as IllegalArgumentException naming the line. */
+    public static Employee parse(String line, int lineNo) {
+        try {
+            return parse(line);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("line " + lineNo + ": " + e.getMessage(), e);
+        }
+    }
+    
+    static Employee parse(String line) {
+        int start = 0, end = line.length();
+        while (start < end && line.charAt(start) <= ' ') start++;
+        while (end > start && line.charAt(end - 1) <= ' ') end--;
+        if (end - start < 2 || line.charAt(start) != '{' || line.charAt(end - 1) != '}')
+            throw new IllegalArgumentException("record must be enclosed in { }");
+        end--;
+        
+        String type = null, id = null, name = null, dept = null;
+        double monthly = Double.NaN, rate = Double.NaN, hours = Double.NaN, bonus = Double.NaN;
+        int pos = start + 1;
+        while (pos < end) {
+            while (pos < end && line.charAt(pos) == ' ') pos++;
+            int eq = line.indexOf('=', pos);
+            if (eq < 0 || eq >= end) throw new IllegalArgumentException("expected key=value at column " + (pos + 1));
+            int valueEnd = valueEnd(line, eq + 1, end);
+            switch (key(line, pos, eq)) {
+                case TYPE: type = text(line, eq + 1, valueEnd); break;
+                case EMPLOYEE_ID: id = text(line, eq + 1, valueEnd); break;
+                case NAME: name = text(line, eq + 1, valueEnd); break;
+                case DEPARTMENT: dept = text(line, eq + 1, valueEnd); break;
+                case MONTHLY_SALARY: monthly = number(line, eq + 1, valueEnd); break;
+                case HOURLY_RATE: rate = number(line, eq + 1, valueEnd); break;
+                case HOURS_WORKED: hours = number(line, eq + 1, valueEnd); break;
+                case BONUS: bonus = number(line, eq + 1, valueEnd); break;
+                default: break;
+            }
+            pos = valueEnd + 2;
+        }
+        
+        if (type == null) throw new IllegalArgumentException("missing type");
+        if (id == null) throw new IllegalArgumentException("missing employee_id");
+        if (name == null) throw new IllegalArgumentException("missing name");
+        if (dept == null) throw new IllegalArgumentException("missing department");
+        switch (type) {
+            case "fulltimeemployee":
+                return new FullTimeEmployee(id, name, dept, required(monthly, "monthly_salary"));
+            case "parttimeemployee":
+                return new PartTimeEmployee(id, name, dept, required(rate, "hourly_rate"),
+                    required(hours, "hours_worked"));
+            case "manager":
+                return new Manager(id, name, dept, required(monthly, "monthly_salary"),
+                    required(bonus, "bonus"));
+            default: throw new IllegalArgumentException("Unknown employee type: " + type);
+        }
+    }
+    
+    private static double required(double value, String key) {
+        if (Double.isNaN(value)) throw new IllegalArgumentException("missing " + key);
+        return value;
+    }
+    
+    private static int key(String line, int from, int to) {
+        int len = to - from;
+        while (len > 0 && line.charAt(from + len - 1) == ' ') len--;
+        for (int k = 0; k < KEYS.length; k++)
+            if (KEYS[k].length() == len && line.regionMatches(from, KEYS[k], 0, len)) return k;
+        return -1;
+    }
+    
+    /** A value runs to the next unescaped ", " that is followed by an identifier and '='. */
+    private static int valueEnd(String line, int from, int end) {
+        for (int i = from; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '\\') i++;
+            else if (c == ',' && i + 1 < end && line.charAt(i + 1) == ' ' && startsKey(line, i + 2, end)) return i;
+        }
+        return end;
+    }
+    
+    private static boolean startsKey(String line, int i, int end) {
+        int j = i;
+        while (j < end) {
+            char c = line.charAt(j);
+            if (c == '=') return j > i;
+            if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) return false;
+            j++;
+        }
+        return false;
+    }
+    
+    private static String text(String line, int from, int to) {
+        while (from < to && line.charAt(from) == ' ') from++;
+        while (to > from && line.charAt(to - 1) == ' ') to--;
+        int slash = line.indexOf('\\', from);
+        if (slash < 0 || slash >= to) return line.substring(from, to);
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < to) {
+                c = line.charAt(++i);
+                if (c == 'n') c = '\n';
+                else if (c == 'r') c = '\r';
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Plain decimals with up to 15 significant digits are exact as a long
+     * mantissa divided by a power of ten; anything else (exponents, very long
+     * fractions) goes through Double.parseDouble.
+     */
+    static double number(String line, int from, int to) {
+        while (from < to && line.charAt(from) == ' ') from++;
+        while (to > from && line.charAt(to - 1) == ' ') to--;
+        int i = from;
+        boolean negative = i < to && line.charAt(i) == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean dot = false, seenDigit = false, simple = true;
+        for (; i < to; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+                if (dot) scale++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                simple = false;
+                break;
+            }
+        }
+        if (simple && seenDigit && digits <= 15 && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(line.substring(from, to));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad number '" + line.substring(from, to) + "'");
+        }
+    }
+}
+
+/**
+ * Loads an employee data file on several cores. The file is cut into
+ * line-aligned chunks by byte position, each chunk is read and parsed as a
+ * fork-join task, and the results are merged in file order so a duplicate
+ * employee ID resolves exactly as a sequential load would: the later line wins.
+ */
+class ParallelEmployeeLoader {
+    private static final int MIN_CHUNK = 1 << 20;
+    private static final int MAX_CHUNK = 16 << 20;
+    
+    static final class LoadReport {
+        final long records, errors, bytes, nanos;
+        final int chunks, threads;
+        
+        LoadReport(long records, long errors, long bytes, long nanos, int chunks, int threads) {
+            this.records = records;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.chunks = chunks;
+            this.threads = threads;
+        }
+        
+        public double recordsPerSecond() { return nanos == 0 ? 0 : records * 1e9 / nanos; }
+        
+        @Override
+        public String toString() {
+            return String.format("Loaded %,d employees (%,d bytes) in %.2f s: %,.0f records/s, %d chunks on %d threads, %,d errors",
+                    records, bytes, nanos / 1e9, recordsPerSecond(), chunks, threads, errors);
+        }
+    }
+    
+    private static final class Chunk extends RecursiveAction {
+        final FileChannel channel;
+        final long from, to;
+        final Charset charset;
+        final List<Employee> employees = new ArrayList<>();
+        final List<Integer> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+        int lines;
+        
+        Chunk(FileChannel channel, long from, long to, Charset charset) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+            this.charset = charset;
+        }
+        
+        @Override
+        protected void compute() {
+            byte[] buf = new byte[(int) (to - from)];
+            try {
+                ByteBuffer bb = ByteBuffer.wrap(buf);
+                while (bb.hasRemaining()) {
+                    if (channel.read(bb, from + bb.position()) < 0) throw new EOFException("File shrank while loading");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int start = 0;
+            while (start < buf.length) {
+                int nl = start;
+                while (nl < buf.length && buf[nl] != '\n') nl++;
+                int end = nl > start && buf[nl - 1] == '\r' ? nl - 1 : nl;
+                lines++;
+                if (!isBlank(buf, start, end)) {
+                    try {
+                        employees.add(EmployeeRecords.parse(new String(buf, start, end - start, charset)));
+                    } catch (IllegalArgumentException e) {
+                        errorLines.add(lines);
+                        errorMessages.add(e.getMessage());
+                    }
+                }
+                start = nl + 1;
+            }
+        }
+        
+        private static boolean isBlank(byte[] buf, int from, int to) {
+            for (int i = from; i < to; i++) if (buf[i] > ' ') return false;
+            return true;
+        }
+    }
+    
+    private final ForkJoinPool pool;
+    
+    public ParallelEmployeeLoader() { this(ForkJoinPool.commonPool()); }
+    public ParallelEmployeeLoader(ForkJoinPool pool) { this.pool = pool; }
+    
+    /**
+     * Loads {@code file} into {@code into}, reporting each bad line to
+     * {@code errors} as "line N: reason".
+     */
+    public LoadReport load(Path file, Map<String, Employee> into, Consumer<String> errors) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Chunk> chunks = new ArrayList<>();
+            long[] bounds = chunkBounds(channel, size, pool.getParallelism());
+            for (int i = 0; i + 1 < bounds.length; i++)
+                chunks.add(new Chunk(channel, bounds[i], bounds[i + 1], Charset.defaultCharset()));
+            
+            chunks.forEach(pool::execute);
+            try {
+                chunks.forEach(Chunk::join);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            
+            long records = 0, failed = 0;
+            int lineOffset = 0;
+            for (Chunk chunk : chunks) {
+                for (Employee employee : chunk.employees) into.put(employee.getEmployeeId(), employee);
+                for (int i = 0; i < chunk.errorLines.size(); i++)
+                    errors.accept("line " + (lineOffset + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                records += chunk.employees.size();
+                failed += chunk.errorLines.size();
+                lineOffset += chunk.lines;
+            }
+            return new LoadReport(records, failed, size, System.nanoTime() - started,
+                    chunks.size(), Math.min(chunks.size(), pool.getParallelism()));
+        }
+    }
+    
+    /** Chunk start offsets plus the file size; every start except 0 follows a newline. */
+    private static long[] chunkBounds(FileChannel channel, long size, int threads) throws IOException {
+        long target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / Math.max(1, threads * 4L)));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long pos = target;
+        while (pos < size) {
+            long newline = -1;
+            for (long at = pos - 1; newline < 0 && at < size; at += probe.capacity()) {
+                probe.clear();
+                int read = channel.read(probe, at);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = at + i;
+                        break;
+                    }
+                }
+            }
+            if (newline < 0 || newline + 1 >= size) break;
+            bounds.add(newline + 1);
+            pos = newline + 1 + target;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+}
+
+/**
+ * Payroll fields of every employee in parallel primitive columns, one slot
+ * per employee, instead of objects spread over the heap. Each column holds
+ * 0 where a field does not apply: part-time rows have no monthly salary,
+ * full-time rows no rate or hours, and only managers have a bonus. So every
+ * salary is monthly + bonus + rate * hours, with no type check and no
+ * virtual call, and the totals are straight loops over the arrays.
+ *
+ * Departments are stored as indexes into a dictionary of names. Removing
+ * an employee moves the last slot into the hole, so the columns stay dense.
+ *
+ * The columns copy the values when an employee is added; changing the
+ * Employee object later does not update them. Not thread-safe: Company
+ * synchronizes on the instance.
+ *
+ * {@link #summary()} groups salaries by department and by type in one
+ * fork-join pass over the columns and keeps the result until the next put
+ * or remove.
+ */
+final class PayrollColumns {
+    static final byte FULL_TIME = 0, PART_TIME = 1, MANAGER = 2;
+    private static final String[] TYPE_NAMES = {"FullTimeEmployee", "PartTimeEmployee", "Manager"};
+    /** Slots one summary task tallies itself before splitting the range. */
+    private static final int SUMMARY_SPLIT = 1 << 16;
+    
+    /** Count, total, lowest, highest and average salary of one group of employees. */
+    static final class Group {
+        final String name;
+        final long count;
+        final double total, min, max;
+        
+        Group(String name, long count, double total, double min, double max) {
+            this.name = name;
+            this.count = count;
+            this.total = total;
+            this.min = min;
+            this.max = max;
+        }
+        
+        public double average() { return count == 0 ? 0 : total / count; }
+    }
+    
+    /** Payroll of the whole company, by department (sorted by name) and by employee type. */
+    static final class Summary {
+        final Group all;
+        final List<Group> byDepartment, byType;
+        
+        Summary(Group all, List<Group> byDepartment, List<Group> byType) {
+            this.all = all;
+            this.byDepartment = byDepartment;
+            this.byType = byType;
+        }
+    }
+    
+    private final Map<String, Integer> slots;
+    private final Map<String, Integer> departmentIds = new HashMap<>();
+    private final List<String> departmentNames = new ArrayList<>();
+    private String[] ids;
+    private byte[] types;
+    private int[] departments;
+    private double[] monthlySalary, hourlyRate, hoursWorked, bonus;
+    private int size;
+    private Summary summary;
+    
+    PayrollColumns(int capacity) {
+        capacity = Math.max(16, capacity);
+        slots = new HashMap<>(capacity * 4 / 3 + 1);
+        ids = new String[capacity];
+        types = new byte[capacity];
+        departments = new int[capacity];
+        monthlySalary = new double[capacity];
+        hourlyRate = new double[capacity];
+        hoursWorked = new double[capacity];
+        bonus = new double[capacity];
+    }
+    
+    int size() { return size; }
+    
+    /** Adds the employee, or overwrites the row already held for its ID. */
+    void put(Employee emp) {
+        summary = null;
+        Integer existing = slots.get(emp.getEmployeeId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            if (size == ids.length) grow();
+            slot = size++;
+            slots.put(emp.getEmployeeId(), slot);
+            ids[slot] = emp.getEmployeeId();
+        }
+        departments[slot] = departmentId(emp.getDepartment());
+        if (emp instanceof FullTimeEmployee) {
+            types[slot] = emp instanceof Manager ? MANAGER : FULL_TIME;
+            monthlySalary[slot] = ((FullTimeEmployee) emp).getMonthlySalary();
+            bonus[slot] = emp instanceof Manager ? ((Manager) emp).getBonus() : 0;
+            hourlyRate[slot] = 0;
+            hoursWorked[slot] = 0;
+        } else {
+            PartTimeEmployee pt = (PartTimeEmployee) emp;
+            types[slot] = PART_TIME;
+            monthlySalary[slot] = 0;
+            bonus[slot] = 0;
+            hourlyRate[slot] = pt.getHourlyRate();
+            hoursWorked[slot] = pt.getHoursWorked();
+        }
+    }
+    
+    boolean remove(String employeeId) {
+        Integer removed = slots.remove(employeeId);
+        if (removed == null) return false;
+        summary = null;
+        int slot = removed, last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            types[slot] = types[last];
+            departments[slot] = departments[last];
+            monthlySalary[slot] = monthlySalary[last];
+            hourlyRate[slot] = hourlyRate[last];
+            hoursWorked[slot] = hoursWorked[last];
+            bonus[slot] = bonus[last];
+            slots.put(ids[slot], slot);
+        }
+        ids[last] = null;
+        return true;
+    }
+    
+    double salary(int slot) {
+        return monthlySalary[slot] + bonus[slot] + hourlyRate[slot] * hoursWorked[slot];
+    }
+    
+    /** Sum of all salaries. Four independent sums keep the adds from waiting on each other. */
+    double totalPayroll() {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < size; i += 4) {
+            s0 += monthlySalary[i] + bonus[i] + hourlyRate[i] * hoursWorked[i];
+            s1 += monthlySalary[i + 1] + bonus[i + 1] + hourlyRate[i + 1] * hoursWorked[i + 1];
+            s2 += monthlySalary[i + 2] + bonus[i + 2] + hourlyRate[i + 2] * hoursWorked[i + 2];
+            s3 += monthlySalary[i + 3] + bonus[i + 3] + hourlyRate[i + 3] * hoursWorked[i + 3];
+        }
+        for (; i < size; i++) s0 += salary(i);
+        return (s0 + s1) + (s2 + s3);
+    }
+    
+    /** Total salary per department, sorted by department name. */
+    Map<String, Double> payrollByDepartment() {
+        double[] sums = new double[departmentNames.size()];
+        boolean[] present = new boolean[sums.length];
+        for (int i = 0; i < size; i++) {
+            sums[departments[i]] += monthlySalary[i] + bonus[i] + hourlyRate[i] * hoursWorked[i];
+            present[departments[i]] = true;
+        }
+        Map<String, Double> result = new TreeMap<>();
+        for (int d = 0; d < sums.length; d++) {
+            if (present[d]) result.put(departmentNames.get(d), sums[d]);
+        }
+        return result;
+    }
+    
+    Summary summary() {
+        if (summary == null) summary = summarize();
+        return summary;
+    }
+    
+    private Summary summarize() {
+        Tally tally = ForkJoinPool.commonPool().invoke(new Tally(0, size));
+        int typeBase = tally.count.length - TYPE_NAMES.length;
+        List<Group> byDepartment = new ArrayList<>();
+        for (int d = 0; d < typeBase; d++) {
+            if (tally.count[d] > 0) byDepartment.add(tally.group(departmentNames.get(d), d));
+        }
+        byDepartment.sort(Comparator.comparing(g -> g.name));
+        List<Group> byType = new ArrayList<>();
+        long count = 0;
+        double total = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < TYPE_NAMES.length; t++) {
+            Group g = tally.group(TYPE_NAMES[t], typeBase + t);
+            if (g.count == 0) continue;
+            byType.add(g);
+            count += g.count;
+            total += g.total;
+            min = Math.min(min, g.min);
+            max = Math.max(max, g.max);
+        }
+        Group all = count == 0 ? new Group("All", 0, 0, 0, 0) : new Group("All", count, total, min, max);
+        return new Summary(all, byDepartment, byType);
+    }
+    
+    /**
+     * Counts, sums and extremes of one range of slots: one entry per
+     * department, then one per type. Large ranges are split in half and
+     * the halves tallied in parallel, then merged.
+     */
+    private final class Tally extends RecursiveTask<Tally> {
+        final int from, to;
+        final long[] count;
+        final double[] sum, min, max;
+        
+        Tally(int from, int to) {
+            this.from = from;
+            this.to = to;
+            int groups = departmentNames.size() + TYPE_NAMES.length;
+            count = new long[groups];
+            sum = new double[groups];
+            min = new double[groups];
+            max = new double[groups];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+        
+        @Override
+        protected Tally compute() {
+            if (to - from > SUMMARY_SPLIT) {
+                int mid = (from + to) >>> 1;
+                Tally left = new Tally(from, mid);
+                left.fork();
+                Tally right = new Tally(mid, to).compute();
+                return left.join().merge(right);
+            }
+            int typeBase = count.length - TYPE_NAMES.length;
+            for (int i = from; i < to; i++) {
+                double salary = monthlySalary[i] + bonus[i] + hourlyRate[i] * hoursWorked[i];
+                add(departments[i], salary);
+                add(typeBase + types[i], salary);
+            }
+            return this;
+        }
+        
+        private void add(int group, double salary) {
+            count[group]++;
+            sum[group] += salary;
+            if (salary < min[group]) min[group] = salary;
+            if (salary > max[group]) max[group] = salary;
+        }
+        
+        Tally merge(Tally other) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += other.count[g];
+                sum[g] += other.sum[g];
+                min[g] = Math.min(min[g], other.min[g]);
+                max[g] = Math.max(max[g], other.max[g]);
+            }
+            return this;
+        }
+        
+        Group group(String name, int g) {
+            return count[g] == 0 ? new Group(name, 0, 0, 0, 0) : new Group(name, count[g], sum[g], min[g], max[g]);
+        }
+    }
+    
+    private int departmentId(String department) {
+        Integer id = departmentIds.get(department);
+        if (id == null) {
+            id = departmentNames.size();
+            departmentIds.put(department, id);
+            departmentNames.add(department);
+        }
+        return id;
+    }
+    
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        departments = Arrays.copyOf(departments, capacity);
+        monthlySalary = Arrays.copyOf(monthlySalary, capacity);
+        hourlyRate = Arrays.copyOf(hourlyRate, capacity);
+        hoursWorked = Arrays.copyOf(hoursWorked, capacity);
+        bonus = Arrays.copyOf(bonus, capacity);
+    }
+}
+
+/**
+ * Trigram index over lowercased employee names for substring search.
+ *
+ * Every indexed employee gets a document number, and every run of three
+ * characters in its lowercased name maps to a posting list of those numbers
+ * (the same sorted int lists {@link TextIndex} uses). A query of three or
+ * more characters walks the shortest posting list of its trigrams, skips
+ * ahead in the others to keep only documents that have them all, and then
+ * checks {@code contains} on just those candidates. Shorter queries scan
+ * the stored lowercased names, which at least no longer lowercases every
+ * name on every call.
+ *
+ * Trigrams are packed into a long and kept in an open-addressing table, so
+ * indexing a name allocates nothing per trigram; a list that empties stays
+ * in the table. Document numbers only grow; once more than half of them
+ * belong to removed employees the index is rebuilt. Not thread-safe:
+ * Company synchronizes on the instance.
+ */
+final class NameIndex {
+    private static final int MIN_REBUILD = 1024;
+    
+    private long[] keys = new long[1024];
+    private TextIndex.Postings[] lists = new TextIndex.Postings[1024];
+    private int trigramCount;
+    private final Map<String, Integer> docOf = new HashMap<>();
+    private Employee[] docs = new Employee[16];
+    private String[] names = new String[16];
+    private int docCount, live;
+    
+    int size() { return live; }
+    
+    /** Indexes the employee under its current name, replacing whatever was indexed for its ID. */
+    void put(Employee emp) {
+        remove(emp.getEmployeeId());
+        if (docCount == docs.length) {
+            docs = Arrays.copyOf(docs, docCount * 2);
+            names = Arrays.copyOf(names, docCount * 2);
+        }
+        int doc = docCount++;
+        String name = emp.getName().toLowerCase(Locale.ROOT);
+        docs[doc] = emp;
+        names[doc] = name;
+        docOf.put(emp.getEmployeeId(), doc);
+        live++;
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            long key = trigram(name, i);
+            int slot = slot(key);
+            if (lists[slot] == null) {
+                keys[slot] = key;
+                lists[slot] = new TextIndex.Postings();
+                if (++trigramCount * 2 > keys.length) {
+                    growTable();
+                    slot = slot(key);
+                }
+            }
+            lists[slot].add(doc);
+        }
+    }
+    
+    boolean remove(String employeeId) {
+        Integer removed = docOf.remove(employeeId);
+        if (removed == null) return false;
+        int doc = removed;
+        String name = names[doc];
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            TextIndex.Postings p = lists[slot(trigram(name, i))];
+            if (p != null) p.remove(doc);
+        }
+        docs[doc] = null;
+        names[doc] = null;
+        live--;
+        if (docCount > MIN_REBUILD && live < docCount / 2) rebuild();
+        return true;
+    }
+    
+    /**
+     * Employees whose name contains {@code query} (case-insensitive), in
+     * indexing order, skipping the first {@code offset} matches and
+     * stopping after {@code limit}.
+     */
+    List<Employee> find(String query, int offset, int limit) {
+        List<Employee> page = new ArrayList<>(Math.min(limit, 64));
+        String q = query.toLowerCase(Locale.ROOT);
+        int[] skip = {offset};
+        if (q.length() < 3) {
+            for (int doc = 0; doc < docCount && page.size() < limit; doc++) {
+                if (names[doc] != null && names[doc].contains(q)) collect(doc, skip, page);
+            }
+            return page;
+        }
+        
+        TextIndex.Postings[] matched = new TextIndex.Postings[q.length() - 2];
+        for (int i = 0; i < matched.length; i++) {
+            matched[i] = lists[slot(trigram(q, i))];
+            if (matched[i] == null || matched[i].size == 0) return page;
+        }
+        Arrays.sort(matched, Comparator.comparingInt(p -> p.size));
+        int[] from = new int[matched.length];
+        TextIndex.Postings shortest = matched[0];
+        for (int k = 0; k < shortest.size && page.size() < limit; k++) {
+            int doc = shortest.docs[k];
+            if (inAll(matched, from, doc) && names[doc].contains(q)) collect(doc, skip, page);
+        }
+        return page;
+    }
+    
+    private void collect(int doc, int[] skip, List<Employee> page) {
+        if (skip[0] > 0) skip[0]--;
+        else page.add(docs[doc]);
+    }
+    
+    /** Whether every list after the first holds {@code doc}; {@code from} remembers where each search left off. */
+    private static boolean inAll(TextIndex.Postings[] lists, int[] from, int doc) {
+        for (int i = 1; i < lists.length; i++) {
+            TextIndex.Postings p = lists[i];
+            int lo = from[i], step = 1, hi = lo;
+            while (hi < p.size && p.docs[hi] < doc) { lo = hi + 1; hi += step; step <<= 1; }
+            int at = Arrays.binarySearch(p.docs, lo, Math.min(hi + 1, p.size), doc);
+            from[i] = at >= 0 ? at + 1 : -at - 1;
+            if (at < 0) return false;
+        }
+        return true;
+    }
+    
+    private static long trigram(String s, int i) {
+        return (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+    }
+    
+    /** Table slot holding {@code key}, or the empty slot where it would go. */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (lists[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+    
+    private void growTable() {
+        long[] oldKeys = keys;
+        TextIndex.Postings[] oldLists = lists;
+        keys = new long[oldKeys.length * 2];
+        lists = new TextIndex.Postings[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldLists[i] == null) continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            lists[slot] = oldLists[i];
+        }
+    }
+    
+    private void rebuild() {
+        Employee[] old = Arrays.copyOf(docs, docCount);
+        keys = new long[1024];
+        lists = new TextIndex.Postings[1024];
+        trigramCount = 0;
+        docOf.clear();
+        docs = new Employee[Math.max(16, live * 2)];
+        names = new String[docs.length];
+        docCount = live = 0;
+        for (Employee emp : old) {
+            if (emp != null) put(emp);
+        }
+    }
+}
+
+/**
+ * The employee store. It is safe to share between threads:
+ * <ul>
+ * <li>employees live in a ConcurrentHashMap, and each add/remove holds a
+ * per-ID lock stripe so the map change and its log record are ordered
+ * together;</li>
+ * <li>whole-company reads (report, listing) take a consistent snapshot by
+ * briefly excluding mutators;</li>
+ * <li>payroll totals are summed from {@link PayrollColumns}, kept up to
+ * date by every add and remove and guarded by its own monitor;</li>
+ * <li>name searches go through a {@link NameIndex}, built on the first
+ * search and then maintained the same way, so names must be changed with
+ * {@link #renameEmployee} rather than {@link Employee#setName}. Employees
+ * handed out by the store are never changed in place;</li>
+ * <li>changes are handed to a single background writer thread, which
+ * appends them to the change log in batches and schedules compaction.</li>
+ * </ul>
+ */
+class Company {
+    private static final int MIN_COMPACTION_RECORDS = 1000;
+    private static final int LOCK_STRIPES = 64;
+    
+    private interface LogAction {
+        void run(EmployeeLog log) throws IOException;
+    }
+    
+    private static final LogAction STOP = log -> {};
+    
+    private final ConcurrentMap<String, Employee> employees = new ConcurrentHashMap<>();
+    private final Object[] idLocks = new Object[LOCK_STRIPES];
+    private final ReadWriteLock snapshotGate = new ReentrantReadWriteLock();
+    private final BlockingQueue<LogAction> pendingChanges = new LinkedBlockingQueue<>();
+    private final Thread logWriter;
+    private String dataFile;
+    private EmployeeLog log;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "employee-log-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> compaction;
+    private int compactedSize;
+    private ParallelEmployeeLoader.LoadReport loadReport;
+    private PayrollColumns payroll;
+    private final NameIndex nameIndex = new NameIndex();
+    /** Guarded by nameIndex. */
+    private boolean namesIndexed;
+    
+    public Company() { this("employees.dat"); }
+    public Company(String dataFile) { 
+        this.dataFile = dataFile;
+        this.log = new EmployeeLog(dataFile);
+        for (int i = 0; i < idLocks.length; i++) idLocks[i] = new Object();
+        loadData();
+        logWriter = new Thread(this::writeChanges, "employee-log-writer");
+        logWriter.setDaemon(true);
+        logWriter.start();
+    }
+    
+    private void loadData() {
+        File file = new File(dataFile);
+        if (file.exists()) {
+            try {
+                loadReport = new ParallelEmployeeLoader().load(file.toPath(), employees,
+                        error -> System.out.println("Error loading employee data: " + error));
+            } catch (IOException e) {
+                System.out.println("Error reading data file: " + e.getMessage());
+            }
+        }
+        
+        compactedSize = employees.size();
+        try {
+            boolean interrupted = log.interruptedCompaction();
+            log.replay(this::loadRecord, employees::remove);
+            log.open();
+            if (interrupted) {
+                saveData();
+                log.reset();
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading change log: " + e.getMessage());
+        }
+        payroll = new PayrollColumns(employees.size());
+        employees.values().forEach(payroll::put);
+    }
+    
+    private void loadRecord(String line, int lineNo) {
+        try {
+            Employee employee = EmployeeRecords.parse(line, lineNo);
+            employees.put(employee.getEmployeeId(), employee);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error loading employee data: " + e.getMessage());
+        }
+    }
+    
+    private void saveData() throws IOException {
+        writeDataFile(snapshot());
+    }
+    
+    /** A consistent copy of all employees: no add or remove is half done while it is taken. */
+    private List<Employee> snapshot() {
+        snapshotGate.writeLock().lock();
+        try {
+            return new ArrayList<>(employees.values());
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+    }
+    
+    /** Runs a change to one employee ID under that ID's lock stripe. */
+    private boolean change(String employeeId, BooleanSupplier op) {
+        snapshotGate.readLock().lock();
+        try {
+            synchronized (idLocks[(employeeId.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+                return op.getAsBoolean();
+            }
+        } finally {
+            snapshotGate.readLock().unlock();
+        }
+    }
+    
+    /** Rewrites the data file via a temp file and an atomic rename, so a crash never leaves it half written. */
+    private void writeDataFile(Collection<Employee> snapshot) throws IOException {
+        Path target = Paths.get(dataFile).toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)))) {
+            snapshot.forEach(emp -> writer.println(EmployeeRecords.format(emp)));
+            writer.flush();
+            if (writer.checkError()) throw new IOException("Could not write " + tmp);
+            out.getFD().sync();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /** Body of the log writer thread: drains queued changes into the log, one flush per batch. */
+    private void writeChanges() {
+        List<LogAction> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(pendingChanges.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingChanges.drainTo(batch);
+            try {
+                for (LogAction action : batch) {
+                    if (action == STOP) stop = true;
+                    else action.run(log);
+                }
+                log.flush();
+            } catch (IOException e) {
+                System.out.println("Error saving data: " + e.getMessage());
+            }
+            batch.clear();
+            maybeCompact();
+        }
+    }
+    
+    /**
+     * Folds the change log into the data file in the background once the log
+     * holds at least as many records as the last compacted file, which keeps
+     * the total I/O of a long run of changes linear.
+     */
+    private void maybeCompact() {
+        if (compaction != null && !compaction.isDone()) return;
+        if (log.records() < Math.max(MIN_COMPACTION_RECORDS, compactedSize)) return;
+        List<Employee> snapshot = snapshot();
+        try {
+            log.rotate();
+            compactedSize = snapshot.size();
+        } catch (IOException e) {
+            System.out.println("Error rotating change log: " + e.getMessage());
+            return;
+        }
+        compaction = compactor.submit(() -> {
+            try {
+                writeDataFile(snapshot);
+                log.compacted();
+            } catch (IOException e) {
+                System.out.println("Error compacting data: " + e.getMessage());
+            }
+        });
+    }
+    
+    /** Waits for queued changes and any running compaction, then writes everything into the data file. */
+    public void close() {
+        try {
+            pendingChanges.add(STOP);
+            logWriter.join();
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+            saveData();
+            log.reset();
+            log.close();
+        } catch (IOException e) {
+            System.out.println("Error saving data: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public boolean addEmployee(Employee employee) {
+        String id = employee.getEmployeeId();
+        return change(id, () -> {
+            if (employees.putIfAbsent(id, employee) != null) return false;
+            synchronized (payroll) { payroll.put(employee); }
+            synchronized (nameIndex) { if (namesIndexed) nameIndex.put(employee); }
+            pendingChanges.add(log -> log.put(employee));
+            return true;
+        });
+    }
+    
+    public boolean removeEmployee(String employeeId) {
+        return change(employeeId, () -> {
+            if (employees.remove(employeeId) == null) return false;
+            synchronized (payroll) { payroll.remove(employeeId); }
+            synchronized (nameIndex) { if (namesIndexed) nameIndex.remove(employeeId); }
+            pendingChanges.add(log -> log.remove(employeeId));
+            return true;
+        });
+    }
+    
+    /**
+     * Renames an employee and re-indexes the new name; false if there is no
+     * such employee. Employee fields are not volatile, so the employee is
+     * replaced by a renamed copy published through the map rather than
+     * changed in place under threads that may be reading it.
+     */
+    public boolean renameEmployee(String employeeId, String name) {
+        return change(employeeId, () -> {
+            Employee employee = employees.get(employeeId);
+            if (employee == null) return false;
+            Map<String, Object> data = new HashMap<>(employee.toMap());
+            data.put("name", name);
+            Employee renamed = Employee.fromMap(data);
+            employees.put(employeeId, renamed);
+            synchronized (nameIndex) { if (namesIndexed) nameIndex.put(renamed); }
+            pendingChanges.add(log -> log.put(renamed));
+            return true;
+        });
+    }
+    
+    public ParallelEmployeeLoader.LoadReport getLoadReport() { return loadReport; }
+    
+    /**
+     * Writes every employee to {@code file} as CSV or JSON Lines (by its
+     * extension, optionally gzipped) and returns how many were written.
+     * Employees are streamed straight from the map without a snapshot, so
+     * memory use stays flat however many there are; changes made while the
+     * export runs may or may not be included.
+     */
+    public long exportEmployees(Path file) throws IOException {
+        try (RecordWriter out = RecordWriter.open(file, "type", "employee_id", "name", "department",
+                "monthly_salary", "hourly_rate", "hours_worked", "bonus", "salary")) {
+            for (Employee emp : employees.values()) {
+                out.text(EmployeeRecords.type(emp)).text(emp.getEmployeeId()).text(emp.getName()).text(emp.getDepartment());
+                if (emp instanceof FullTimeEmployee) {
+                    out.number(((FullTimeEmployee) emp).getMonthlySalary()).empty().empty();
+                    if (emp instanceof Manager) out.number(((Manager) emp).getBonus());
+                    else out.empty();
+                } else {
+                    PartTimeEmployee pt = (PartTimeEmployee) emp;
+                    out.empty().number(pt.getHourlyRate()).number(pt.getHoursWorked()).empty();
+                }
+                out.number(emp.calculateSalary()).endRecord();
+            }
+            out.finish();
+            return out.records();
+        }
+    }
+    
+    public Employee findEmployee(String employeeId) { return employees.get(employeeId); }
+    
+    public List<Employee> findEmployeesByName(String name) {
+        return findEmployeesByName(name, 0, Integer.MAX_VALUE);
+    }
+    
+    /** One page of the employees whose name contains {@code name}, ignoring case. */
+    public List<Employee> findEmployeesByName(String name, int offset, int limit) {
+        synchronized (nameIndex) {
+            if (!namesIndexed) {
+                employees.values().forEach(nameIndex::put);
+                namesIndexed = true;
+            }
+            return nameIndex.find(name, offset, limit);
+        }
+    }
+    
+    public double calculateTotalPayroll() {
+        synchronized (payroll) {
+            return payroll.totalPayroll();
+        }
+    }
+    
+    /** Total salary per department, sorted by department name. */
+    public Map<String, Double> calculatePayrollByDepartment() {
+        synchronized (payroll) {
+            return payroll.payrollByDepartment();
+        }
+    }
+    
+    /** Salary count, total, min, max and average by department and by type; cached until the next change. */
+    public PayrollColumns.Summary getPayrollSummary() {
+        synchronized (payroll) {
+            return payroll.summary();
+        }
+    }
+    
+    public void displayAllEmployees() {
+        List<Employee> employees = snapshot();
+        if (employees.isEmpty()) System.out.println("No employees in the system.");
+        else employees.forEach(System.out::println);
+    }
+    
+    /**
+     * Prints every employee followed by the per-department and per-type
+     * summary. Rows and summary come from the same consistent cut, and the
+     * output goes through one buffered writer instead of a write per line.
+     */
+    public void generatePayrollReport() {
+        List<Employee> employees;
+        PayrollColumns.Summary summary;
+        snapshotGate.writeLock().lock();
+        try {
+            employees = new ArrayList<>(this.employees.values());
+            synchronized (payroll) {
+                summary = payroll.summary();
+            }
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+        if (employees.isEmpty()) {
+            System.out.println("No employees in the system.");
+            return;
+        }
+        
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        writePayrollReport(out, employees, summary);
+        out.flush();
+    }
+    
+    static void writePayrollReport(PrintWriter out, List<Employee> employees, PayrollColumns.Summary summary) {
+        out.println("\nPayroll Report:");
+        out.println("=".repeat(60));
+        out.printf("%-8s %-20s %-15s %15s%n", "ID", "Name", "Type", "Salary");
+        out.println("-".repeat(60));
+        
+        StringBuilder row = new StringBuilder(80);
+        for (Employee emp : employees) {
+            row.setLength(0);
+            padRight(row, emp.getEmployeeId(), 8).append(' ');
+            padRight(row, emp.getName(), 20).append(' ');
+            padRight(row, emp.getClass().getSimpleName(), 15).append(" ₹");
+            appendAmount(row, emp.calculateSalary(), 12);
+            out.println(row);
+        }
+        
+        out.println("=".repeat(60));
+        writeGroups(out, "Department", summary.byDepartment);
+        writeGroups(out, "Type", summary.byType);
+        out.printf("%nTotal Payroll: ₹%,.2f%n%n", summary.all.total);
+    }
+    
+    private static StringBuilder padRight(StringBuilder sb, String s, int width) {
+        sb.append(s);
+        for (int i = s.length(); i < width; i++) sb.append(' ');
+        return sb;
+    }
+    
+    /** Appends {@code value} rounded to two decimals and right-aligned to {@code width}, like %12.2f. */
+    static StringBuilder appendAmount(StringBuilder sb, double value, int width) {
+        double scaled = Math.abs(value) * 100;
+        // Near a half cent the scaled double may round the other way than the exact value does.
+        if (!(scaled < 1e13) || Math.abs(scaled - Math.floor(scaled) - 0.5) <= 2 * Math.ulp(scaled)) {
+            return sb.append(String.format("%" + width + ".2f", value));
+        }
+        long cents = Math.round(scaled);
+        int start = sb.length();
+        if (Math.copySign(1.0, value) < 0) sb.append('-');
+        sb.append(cents / 100).append('.');
+        if (cents % 100 < 10) sb.append('0');
+        sb.append(cents % 100);
+        for (int pad = width - (sb.length() - start); pad > 0; pad--) sb.insert(start, ' ');
+        return sb;
+    }
+    
+    private static void writeGroups(PrintWriter out, String title, List<PayrollColumns.Group> groups) {
+        out.printf("%nBy %s:%n", title);
+        out.printf("%-20s %8s %16s %13s %13s %13s%n", title, "Count", "Total", "Min", "Max", "Average");
+        out.println("-".repeat(88));
+        for (PayrollColumns.Group g : groups) {
+            out.printf("%-20s %8d %,16.2f %,13.2f %,13.2f %,13.2f%n",
+                g.name, g.count, g.total, g.min, g.max, g.average());
+        }
+    }
+}
+
+public class EmployeeManagementSystem {
+    private static final int SEARCH_PAGE = 50;
+    private static Scanner scanner = new Scanner(System.in);
+    
+    private static String getInput(String prompt, boolean required) {
+        while (true) {
+            System.out.print(prompt);
+            String value = scanner.nextLine().trim();
+            if (required && value.isEmpty()) System.out.println("This field is required.");
+            else return value;
+        }
+    }
+    
+    private static String getStringInput(String prompt, boolean required, String fieldName) {
+        while (true) {
+            System.out.print(prompt);
+            String value = scanner.nextLine().trim();
+            if (required && value.isEmpty()) {
+                System.out.println("This field is required.");
+                continue;
+            }
+            if (value.matches(".*\\d.*")) {
+                System.out.println(fieldName + " cannot contain numbers.");
+                continue;
+            }
+            return value;
+        }
+    }
+    
+    private static double getDoubleInput(String prompt, double minVal) {
+        while (true) {
+            try {
+                System.out.print(prompt);
+                double value = Double.parseDouble(scanner.nextLine());
+                if (value < minVal) System.out.printf("Value must be at least %.2f.%n", minVal);
+                else return value;
+            } catch (NumberFormatException e) {
+                System.out.println("Please enter a valid number.");
+            }
+        }
+    }
+    
+    public static void main(String[] args) {
+        Company company = new Company();
+        ParallelEmployeeLoader.LoadReport report = company.getLoadReport();
+        if (report != null && report.nanos > TimeUnit.SECONDS.toNanos(1)) System.out.println(report);
+        
+        while (true) {
+            System.out.println("\nEmployee Management System");
+            System.out.println("1. Add Employee");
+            System.out.println("2. Remove Employee");
+            System.out.println("3. Find Employee by ID");
+            System.out.println("4. Find Employees by Name");
+            System.out.println("5. View All Employees");
+            System.out.println("6. Generate Payroll Report");
+            System.out.println("7. Export Employees");
+            System.out.println("8. Exit");
+            
+            String choice = getInput("Enter your choice (1-8): ", true);
+            
+            switch (choice) {
+                case "1": addEmployee(company); break;
+                case "2": removeEmployee(company); break;
+                case "3": findEmployeeById(company); break;
+                case "4": findEmployeesByName(company); break;
+                case "5": company.displayAllEmployees(); break;
+                case "6": company.generatePayrollReport(); break;
+                case "7": exportEmployees(company); break;
+                case "8": 
+                    System.out.println("Exiting the system. Goodbye!");
+                    company.close();
+                    scanner.close();
+                    return;
+                default: System.out.println("Invalid choice. Please enter a number between 1 and 8.");
+            }
+        }
+    }
+    
+    private static void addEmployee(Company company) {
+        System.out.println("\nEmployee Types:");
+        System.out.println("1. Full-time");
+        System.out.println("2. Part-time");
+        System.out.println("3. Manager");
+        String empType = getInput("Select employee type (1-3): ", true);
+        
+        if (!Arrays.asList("1", "2", "3").contains(empType)) {
+            System.out.println("Invalid choice. Please try again.");
+            return;
+        }
+        
+        String empId = getInput("Enter employee ID: ", true);
+        if (company.findEmployee(empId) != null) {
+            System.out.println("Employee ID already exists.");
+            return;
+        }
+        
+        String name = getStringInput("Enter employee name: ", true, "Name");
+        String dept = getStringInput("Enter department: ", true, "Department");
+        
+        try {
+            Employee emp;
+            if (empType.equals("1")) {
+                double salary = getDoubleInput("Enter monthly salary: ", 0);
+                emp = new FullTimeEmployee(empId, name, dept, salary);
+            } else if (empType.equals("2")) {
+                double rate = getDoubleInput("Enter hourly rate: ", 0);
+                double hours = getDoubleInput("Enter hours worked per month: ", 0);
+                emp = new PartTimeEmployee(empId, name, dept, rate, hours);
+            } else {
+                double salary = getDoubleInput("Enter base salary: ", 0);
+                double bonus = getDoubleInput("Enter bonus amount: ", 0);
+                emp = new Manager(empId, name, dept, salary, bonus);
+            }
+            
+            if (company.addEmployee(emp)) System.out.println("Employee " + name + " added successfully!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
+    private static void removeEmployee(Company company) {
+        String empId = getInput("Enter employee ID to remove: ", true);
+        System.out.println(company.removeEmployee(empId) ? "Employee removed successfully." : "Employee not found.");
+    }
+    
+    private static void findEmployeeById(Company company) {
+        String empId = getInput("Enter employee ID to search: ", true);
+        Employee emp = company.findEmployee(empId);
+        if (emp != null) {
+            System.out.println("\nEmployee Found:");
+            System.out.println(emp);
+        } else {
+            System.out.println("Employee not found.");
+        }
+    }
+    
+    private static void exportEmployees(Company company) {
+        String file = getInput("Export to file (.csv or .jsonl, add .gz to compress): ", true);
+        try {
+            long count = company.exportEmployees(Paths.get(file));
+            System.out.println("Exported " + count + " employee(s) to " + file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error exporting employees: " + e.getMessage());
+        }
+    }
+    
+    private static void findEmployeesByName(Company company) {
+        String name = getStringInput("Enter name to search: ", false, "Name");
+        int offset = 0;
+        while (true) {
+            List<Employee> page = company.findEmployeesByName(name, offset, SEARCH_PAGE + 1);
+            if (offset == 0) {
+                if (page.isEmpty()) {
+                    System.out.println("No employees found with that name.");
+                    return;
+                }
+                System.out.println("\nMatching Employees:");
+            }
+            page.stream().limit(SEARCH_PAGE).forEach(System.out::println);
+            if (page.size() <= SEARCH_PAGE) return;
+            offset += SEARCH_PAGE;
+            if (!getInput("Show more? (y/n): ", false).equalsIgnoreCase("y")) return;
+        }
+    }
+}
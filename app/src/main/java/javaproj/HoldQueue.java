@@ -0,0 +1,115 @@
+package javaproj;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The members waiting for a copy of one title, in the order they asked.
+ *
+ * Each hold takes the next slot of a line, so placing a hold and serving
+ * the front of the line are O(1), and a member's place is their slot minus
+ * the slot at the front, less the cancelled holds between. A cancelled hold
+ * stays in the line as a dead slot until the front reaches it; dead slots
+ * are kept sorted, so counting those ahead of a member is a binary search,
+ * and the line is compacted once they outnumber the live holds.
+ *
+ * Every queue has its own monitor, so holds on different titles never wait
+ * for each other. Callers that must log a change in the same order as it is
+ * made hold the monitor around both.
+ */
+final class HoldQueue {
+    private static final int MIN_COMPACT = 64;
+
+    private final ArrayDeque<String> line = new ArrayDeque<>();
+    /** Live holds: member ID to its slot. */
+    private final Map<String, Long> slots = new HashMap<>();
+    /** Slot of the first entry in the line, which is always a live hold. */
+    private long head;
+    /** Slots of cancelled holds still in the line, ascending, in {@code dead[deadFrom..deadTo)}. */
+    private long[] dead = new long[8];
+    private int deadFrom, deadTo;
+    private volatile int waiting;
+
+    /** Live holds; safe to read without the monitor. */
+    int waiting() { return waiting; }
+
+    /** Puts the member at the back of the line; false if they are already in it. */
+    synchronized boolean add(String memberId) {
+        if (slots.containsKey(memberId)) return false;
+        slots.put(memberId, head + line.size());
+        line.addLast(memberId);
+        waiting++;
+        return true;
+    }
+
+    /** The member at the front of the line, or null if nobody is waiting. */
+    synchronized String first() {
+        return line.peekFirst();
+    }
+
+    /** Takes the member's hold out of the line, served or cancelled; false if they had none. */
+    synchronized boolean remove(String memberId) {
+        Long slot = slots.remove(memberId);
+        if (slot == null) return false;
+        waiting--;
+        if (slot == head) {
+            line.pollFirst();
+            head++;
+            // Dead slots are sorted, so any at the new front are the first ones.
+            while (deadFrom < deadTo && dead[deadFrom] == head) {
+                line.pollFirst();
+                head++;
+                deadFrom++;
+            }
+            if (deadFrom == deadTo) deadFrom = deadTo = 0;
+        } else {
+            if (deadTo == dead.length) {
+                if (deadFrom <= dead.length / 2) dead = Arrays.copyOf(dead, dead.length * 2);
+                System.arraycopy(dead, deadFrom, dead, 0, deadTo - deadFrom);
+                deadTo -= deadFrom;
+                deadFrom = 0;
+            }
+            int at = -Arrays.binarySearch(dead, deadFrom, deadTo, slot) - 1;
+            System.arraycopy(dead, at, dead, at + 1, deadTo - at);
+            dead[at] = slot;
+            deadTo++;
+            if (deadTo - deadFrom > Math.max(MIN_COMPACT, waiting)) compact();
+        }
+        return true;
+    }
+
+    /** The member's place in the line, 1 being next; 0 if they have no hold. */
+    synchronized int position(String memberId) {
+        Long slot = slots.get(memberId);
+        if (slot == null) return 0;
+        int deadAhead = -Arrays.binarySearch(dead, deadFrom, deadTo, slot) - 1 - deadFrom;
+        return (int) (slot - head) + 1 - deadAhead;
+    }
+
+    /** The members waiting, front of the line first. */
+    synchronized List<String> members() {
+        List<String> result = new ArrayList<>(waiting);
+        long slot = head;
+        for (String memberId : line) {
+            Long live = slots.get(memberId);
+            if (live != null && live == slot) result.add(memberId);
+            slot++;
+        }
+        return result;
+    }
+
+    /** Drops the dead slots, numbering the live holds afresh from the front. */
+    private void compact() {
+        List<String> live = members();
+        line.clear();
+        for (String memberId : live) {
+            slots.put(memberId, head + line.size());
+            line.addLast(memberId);
+        }
+        deadFrom = deadTo = 0;
+    }
+}
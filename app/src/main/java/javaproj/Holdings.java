@@ -0,0 +1,87 @@
+package javaproj;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The physical copies of one title: each copy's
+ * {@link LibrarySystem.Circulation}, plus a bitmap with one bit per copy
+ * that is set while the copy cannot be issued (on loan, claimed by an issue
+ * in progress, or removed). Finding a free copy is a scan for a clear bit,
+ * 64 copies per word, and taking it is one compare-and-set on that word, so
+ * two terminals issuing the same title always get different copies without
+ * looking at any copy's state. The available count is a popcount.
+ *
+ * Copies are numbered from 1. The bit of a copy follows its state: it is
+ * set by {@link #claim}, cleared by {@link #release} if the claim goes
+ * unused, and every non-busy state published through {@link #transition}
+ * or {@link #restore} sets or clears it to match.
+ */
+final class Holdings {
+    private final AtomicReferenceArray<LibrarySystem.Circulation> states;
+    private final AtomicLongArray taken;
+
+    Holdings(int copies) {
+        if (copies < 1) throw new IllegalArgumentException("A book needs at least one copy");
+        states = new AtomicReferenceArray<>(copies);
+        for (int i = 0; i < copies; i++) states.set(i, LibrarySystem.Circulation.AVAILABLE);
+        taken = new AtomicLongArray((copies + 63) >>> 6);
+    }
+
+    int copies() { return states.length(); }
+
+    LibrarySystem.Circulation state(int copy) { return states.get(copy - 1); }
+
+    int available() {
+        int out = 0;
+        for (int w = 0; w < taken.length(); w++) out += Long.bitCount(taken.get(w));
+        return copies() - out;
+    }
+
+    /**
+     * Takes the lowest-numbered free copy for an issue and returns its
+     * number, or 0 if none is free. The copy stays claimed until a state is
+     * published for it.
+     */
+    int claim() {
+        for (int w = 0; w < taken.length(); w++) {
+            long valid = w == taken.length() - 1 && (copies() & 63) != 0 ? (1L << (copies() & 63)) - 1 : -1L;
+            for (long word = taken.get(w), free; (free = ~word & valid) != 0; word = taken.get(w)) {
+                long bit = Long.lowestOneBit(free);
+                if (taken.compareAndSet(w, word, word | bit)) return (w << 6) + Long.numberOfTrailingZeros(bit) + 1;
+            }
+        }
+        return 0;
+    }
+
+    /** Moves a copy from {@code expected} to {@code next}; false if someone got there first. */
+    boolean transition(int copy, LibrarySystem.Circulation expected, LibrarySystem.Circulation next) {
+        if (!states.compareAndSet(copy - 1, expected, next)) return false;
+        if (!next.busy) mark(copy, next.issued || next.removed);
+        return true;
+    }
+
+    /** Sets a copy's state outright, when nothing else can be changing it. */
+    void restore(int copy, LibrarySystem.Circulation state) {
+        states.set(copy - 1, state);
+        mark(copy, state.issued || state.removed);
+    }
+
+    /** Clears the claim on a copy that was never given a new state. */
+    void release(int copy) {
+        LibrarySystem.Circulation state = state(copy);
+        mark(copy, state.issued || state.removed);
+    }
+
+    /** A copy of these holdings with {@code more} available copies after the existing ones. */
+    Holdings grow(int more) {
+        Holdings bigger = new Holdings(copies() + more);
+        for (int copy = 1; copy <= copies(); copy++) bigger.restore(copy, state(copy));
+        return bigger;
+    }
+
+    private void mark(int copy, boolean out) {
+        long bit = 1L << ((copy - 1) & 63);
+        taken.accumulateAndGet((copy - 1) >>> 6, bit, out ? (w, b) -> w | b : (w, b) -> w & ~b);
+    }
+}
@@ -0,0 +1,48 @@
+package javaproj;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out IDs like B1, B2, ... that are never reused, even after the book
+ * or member holding one is removed. The high-water mark is raised past every
+ * ID the catalog has seen (see {@link #observe}) and saved with each
+ * snapshot, so a restart carries on after the largest number ever issued.
+ */
+final class IdAllocator {
+    private final char prefix;
+    private final AtomicLong next = new AtomicLong(1);
+
+    IdAllocator(char prefix) {
+        this.prefix = prefix;
+    }
+
+    String next() {
+        return prefix + Long.toString(next.getAndIncrement());
+    }
+
+    /** The number the next ID will get. */
+    long peek() {
+        return next.get();
+    }
+
+    /** Makes sure {@code id}, and anything numbered below it, is never handed out. */
+    void observe(String id) {
+        advanceTo(number(id, prefix) + 1);
+    }
+
+    void advanceTo(long number) {
+        next.accumulateAndGet(number, Math::max);
+    }
+
+    /** The number in an ID such as "B42", or 0 if the ID is not in that form. */
+    static long number(String id, char prefix) {
+        if (id.length() < 2 || id.length() > 19 || id.charAt(0) != prefix) return 0;
+        long n = 0;
+        for (int i = 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+}
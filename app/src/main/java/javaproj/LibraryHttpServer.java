@@ -0,0 +1,583 @@
+package javaproj;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * HTTP/JSON front end for {@link LibraryService}, for kiosks and
+ * self-checkout terminals that cannot use the Swing frame.
+ *
+ * <pre>
+ *   GET  /books?q=wings fire&offset=0&limit=100
+ *                                    a page of the matches (of all books without q)
+ *   GET  /books?title=wing           books whose title starts with it, in title order;
+ *   GET  /books?author=paulo         author= likewise; both page like q
+ *   POST /books/{id}/issue?member=M1 issues any free copy
+ *   POST /books/{id}/return?copy=2   copy may be left out if only one is on loan;
+ *                                    goes to the first hold if anyone is waiting
+ *   POST /books/{id}/hold?member=M1  joins the hold list when no copy is free
+ *   GET  /books/{id}/hold?member=M1  place on the hold list, 0 if none
+ *   DELETE /books/{id}/hold?member=M1
+ *   GET  /members/{id}/loans         the member's loans, earliest due first
+ *   GET  /stats?offset=0&limit=100   counters and a page of loans
+ *   GET  /overdue?offset=0&limit=100 overdue loans, most overdue first
+ *   GET  /history?book=B1&member=M1&type=issue&from=2024-01-01&to=2024-12-31&limit=100
+ *                                    past issues and returns, oldest first; every
+ *                                    parameter is optional, from defaults to a year
+ *                                    before to, to to today
+ * </pre>
+ *
+ * Handlers never block: each request is queued to the service and the
+ * response is written from the server's worker pool when the service
+ * answers, so a handful of threads keep many keep-alive connections busy.
+ * Bodies are encoded straight to bytes as they are written; large ones are
+ * streamed with chunked transfer encoding instead of being built up first.
+ */
+class LibraryHttpServer {
+    private final LibraryService service;
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    LibraryHttpServer(LibraryService service, InetSocketAddress address, int threads) throws IOException {
+        this.service = service;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "library-http");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(address, 1024);
+        server.setExecutor(workers);
+        server.createContext("/books", this::books);
+        server.createContext("/members", this::members);
+        server.createContext("/stats", this::stats);
+        server.createContext("/overdue", this::overdue);
+        server.createContext("/history", this::history);
+        server.createContext("/", ex -> error(ex, 404, "Not found"));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests, giving in-flight ones up to {@code delaySeconds} to finish. */
+    void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    /**
+     * Runs the library without a window: opens the service, serves it on
+     * library.http.port (default 8080) and closes the store on shutdown.
+     * Turns on TCP_NODELAY for every HttpServer in the JVM unless
+     * sun.net.httpserver.nodelay was given.
+     */
+    static void serveHeadless() throws Exception {
+        // Without TCP_NODELAY small keep-alive responses stall on delayed ACKs (~40 ms each).
+        // The JDK server reads this once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        LibraryService service = new LibraryService();
+        String warning = service.open().get();
+        if (warning != null) System.out.println(warning);
+
+        int port = Integer.getInteger("library.http.port", 8080);
+        int threads = Integer.getInteger("library.http.threads", Math.max(4, Runtime.getRuntime().availableProcessors()));
+        LibraryHttpServer http = new LibraryHttpServer(service, new InetSocketAddress(port), threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            http.stop(1);
+            try {
+                service.close();
+            } catch (IOException e) {
+                System.out.println("Error closing library data: " + e.getMessage());
+            }
+        }, "library-http-stop"));
+        http.start();
+        System.out.println("Library API listening on port " + http.port());
+    }
+
+    // ---- handlers ----
+
+    private void books(HttpExchange ex) throws IOException {
+        String[] path = ex.getRequestURI().getPath().split("/");
+        Map<String, String> query = query(ex);
+        if (query == null) return;
+
+        if (path.length == 2) {
+            if (!method(ex, "GET")) return;
+            int[] page = page(ex, query);
+            if (page == null) return;
+            String q = query.get("q"), title = query.get("title"), author = query.get("author");
+            if ((q != null ? 1 : 0) + (title != null ? 1 : 0) + (author != null ? 1 : 0) > 1) {
+                error(ex, 400, "Give only one of q, title or author");
+                return;
+            }
+            CompletableFuture<List<LibrarySystem.Book>> result = title != null
+                    ? service.booksByPrefix(title, false, page[0], page[1])
+                    : author != null ? service.booksByPrefix(author, true, page[0], page[1])
+                    : q == null || q.trim().isEmpty() ? service.books(page[0], page[1])
+                    : service.search(q, page[0], page[1]);
+            respond(ex, result, (json, books) -> {
+                json.beginArray();
+                for (LibrarySystem.Book b : books) book(json, b);
+                json.endArray();
+            });
+        } else if (path.length == 4 && path[3].equals("issue")) {
+            if (!method(ex, "POST")) return;
+            String member = query.get("member");
+            if (member == null || member.trim().isEmpty()) {
+                error(ex, 400, "member is required");
+                return;
+            }
+            respond(ex, service.issueBook(path[2], member), (json, r) -> {
+                json.beginObject();
+                json.name("book");
+                book(json, r.book);
+                json.name("copy").value(r.copy);
+                json.endObject();
+            });
+        } else if (path.length == 4 && path[3].equals("return")) {
+            if (!method(ex, "POST")) return;
+            int copy;
+            try {
+                copy = Integer.parseInt(query.getOrDefault("copy", "0"));
+            } catch (NumberFormatException e) {
+                error(ex, 400, "copy must be a number");
+                return;
+            }
+            respond(ex, service.returnBook(path[2], copy), (json, r) -> {
+                json.beginObject();
+                json.name("book");
+                book(json, r.book);
+                json.name("copy").value(r.copy);
+                json.name("issuedTo").value(r.issuedTo);
+                json.name("fine").value(r.fine);
+                json.name("heldFor").value(r.heldFor);
+                json.endObject();
+            });
+        } else if (path.length == 4 && path[3].equals("hold")) {
+            String verb = ex.getRequestMethod();
+            if (!verb.equals("GET") && !verb.equals("POST") && !verb.equals("DELETE")) {
+                ex.getResponseHeaders().set("Allow", "GET, POST, DELETE");
+                error(ex, 405, "Use GET, POST or DELETE");
+                return;
+            }
+            String member = query.get("member");
+            if (member == null || member.trim().isEmpty()) {
+                error(ex, 400, "member is required");
+                return;
+            }
+            CompletableFuture<Integer> position = verb.equals("GET") ? service.holdPosition(path[2], member)
+                    : verb.equals("POST") ? service.placeHold(path[2], member)
+                    : service.cancelHold(path[2], member).thenApply(v -> 0);
+            respond(ex, position.thenCompose(p -> service.holdsWaiting(path[2]).thenApply(w -> new int[]{p, w})),
+                    (json, r) -> {
+                        json.beginObject();
+                        json.name("book").value(path[2]);
+                        json.name("member").value(member);
+                        json.name("position").value(r[0]);
+                        json.name("waiting").value(r[1]);
+                        json.endObject();
+                    });
+        } else {
+            error(ex, 404, "Not found");
+        }
+    }
+
+    private void members(HttpExchange ex) throws IOException {
+        String[] path = ex.getRequestURI().getPath().split("/");
+        if (path.length != 4 || !path[3].equals("loans")) {
+            error(ex, 404, "Not found");
+            return;
+        }
+        if (!method(ex, "GET")) return;
+        respond(ex, service.memberLoans(path[2]), (json, loans) -> {
+            long fines = 0;
+            json.beginObject();
+            json.name("member").value(path[2]);
+            json.name("loans").beginArray();
+            for (LibraryService.Loan l : loans) {
+                loan(json, l);
+                fines += LibraryService.fine(l.state);
+            }
+            json.endArray();
+            json.name("fines").value(fines);
+            json.endObject();
+        });
+    }
+
+    private void stats(HttpExchange ex) throws IOException {
+        if (!method(ex, "GET")) return;
+        int[] page = page(ex);
+        if (page == null) return;
+        respond(ex, service.stats(page[0], page[1]), (json, s) -> {
+            json.beginObject();
+            json.name("titles").value(s.titles);
+            json.name("totalBooks").value(s.totalBooks);
+            json.name("issuedBooks").value(s.issuedBooks);
+            json.name("availableBooks").value(s.availableBooks);
+            json.name("members").value(s.members);
+            json.name("holds").value(s.holds);
+            json.name("overdueBooks").value(s.overdueBooks);
+            json.name("outstandingFines").value(s.outstandingFines);
+            json.name("offset").value(s.offset);
+            json.name("issued").beginArray();
+            for (LibraryService.Loan l : s.issued) loan(json, l);
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    private void overdue(HttpExchange ex) throws IOException {
+        if (!method(ex, "GET")) return;
+        int[] page = page(ex);
+        if (page == null) return;
+        respond(ex, service.overdueBooks(page[0], page[1]), (json, loans) -> {
+            json.beginArray();
+            for (LibraryService.Loan l : loans) loan(json, l);
+            json.endArray();
+        });
+    }
+
+    private void history(HttpExchange ex) throws IOException {
+        if (!method(ex, "GET")) return;
+        Map<String, String> query = query(ex);
+        if (query == null) return;
+        int from, to, limit;
+        CirculationHistory.Kind kind = null;
+        try {
+            to = query.containsKey("to") ? (int) LocalDate.parse(query.get("to")).toEpochDay() : Dates.today();
+            from = query.containsKey("from") ? (int) LocalDate.parse(query.get("from")).toEpochDay()
+                    : (int) LocalDate.ofEpochDay(to).minusYears(1).toEpochDay();
+            limit = Integer.parseInt(query.getOrDefault("limit", "100"));
+        } catch (RuntimeException e) {
+            error(ex, 400, "from and to must be dates (yyyy-MM-dd) and limit a number");
+            return;
+        }
+        if (limit < 0 || limit > 10_000) {
+            error(ex, 400, "limit must be 0-10000");
+            return;
+        }
+        String type = query.get("type");
+        if (type != null) {
+            if (type.equals("issue")) kind = CirculationHistory.Kind.ISSUE;
+            else if (type.equals("return")) kind = CirculationHistory.Kind.RETURN;
+            else {
+                error(ex, 400, "type must be issue or return");
+                return;
+            }
+        }
+        respond(ex, service.circulationHistory(from, to, kind, query.get("book"), query.get("member"), limit),
+                (json, events) -> {
+                    json.beginArray();
+                    for (CirculationHistory.Event e : events) {
+                        json.beginObject();
+                        json.name("time").value(Instant.ofEpochMilli(e.millis).toString());
+                        json.name("type").value(e.kind == CirculationHistory.Kind.ISSUE ? "issue" : "return");
+                        json.name("bookId").value(e.bookId);
+                        json.name("copy").value(e.copy);
+                        json.name("memberId").value(e.memberId);
+                        if (e.kind == CirculationHistory.Kind.RETURN) json.name("fine").value(e.fine);
+                        json.endObject();
+                    }
+                    json.endArray();
+                });
+    }
+
+    private static int[] page(HttpExchange ex) throws IOException {
+        Map<String, String> query = query(ex);
+        return query == null ? null : page(ex, query);
+    }
+
+    /** Reads offset and limit; answers 400 and returns null if they are bad. */
+    private static int[] page(HttpExchange ex, Map<String, String> query) throws IOException {
+        int offset, limit;
+        try {
+            offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+            limit = Integer.parseInt(query.getOrDefault("limit", "100"));
+        } catch (NumberFormatException e) {
+            error(ex, 400, "offset and limit must be numbers");
+            return null;
+        }
+        if (offset < 0 || limit < 0 || limit > 1000) {
+            error(ex, 400, "offset must be >= 0 and limit 0-1000");
+            return null;
+        }
+        return new int[]{offset, limit};
+    }
+
+    /** A book with its copy counts and the copies on loan. */
+    private static void book(JsonWriter json, LibrarySystem.Book b) throws IOException {
+        int copies = b.copies();
+        json.beginObject();
+        json.name("id").value(b.id);
+        json.name("title").value(b.title);
+        json.name("author").value(b.author);
+        json.name("copies").value(copies);
+        json.name("available").value(b.available());
+        json.name("loans").beginArray();
+        for (int copy = 1; copy <= copies; copy++) {
+            LibrarySystem.Circulation c = b.circulation(copy);
+            if (!c.issued) continue;
+            json.beginObject();
+            json.name("copy").value(copy);
+            circulation(json, c);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void loan(JsonWriter json, LibraryService.Loan l) throws IOException {
+        json.beginObject();
+        json.name("bookId").value(l.bookId);
+        json.name("title").value(l.title);
+        json.name("copy").value(l.copy);
+        circulation(json, l.state);
+        json.endObject();
+    }
+
+    private static void circulation(JsonWriter json, LibrarySystem.Circulation c) throws IOException {
+        json.name("memberId").value(c.memberId);
+        json.name("issuedTo").value(c.issuedTo);
+        json.name("issueDate").value(LocalDate.ofEpochDay(c.issueDay).toString());
+        json.name("fine").value(LibraryService.fine(c));
+        json.name("version").value(c.version);
+    }
+
+    // ---- plumbing ----
+
+    private interface Encoder<T> {
+        void write(JsonWriter json, T value) throws IOException;
+    }
+
+    private <T> void respond(HttpExchange ex, CompletableFuture<T> op, Encoder<T> encoder) {
+        op.whenCompleteAsync((value, error) -> {
+            try {
+                if (error == null) {
+                    send(ex, 200, json -> encoder.write(json, value));
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof IllegalArgumentException) error(ex, 404, cause.getMessage());
+                else if (cause instanceof IllegalStateException) error(ex, 409, cause.getMessage());
+                else if (cause instanceof UncheckedIOException) error(ex, 503, cause.getMessage());
+                else error(ex, 500, String.valueOf(cause));
+            } catch (IOException e) {
+                ex.close();
+            }
+        }, workers);
+    }
+
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private static void send(HttpExchange ex, int status, Body body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try (JsonWriter json = new JsonWriter(new ResponseBody(ex, status))) {
+            body.write(json);
+        }
+    }
+
+    /**
+     * Holds the first 16 KB of a response so small bodies go out in one write
+     * with a Content-Length; anything larger switches to chunked encoding and
+     * streams from there.
+     */
+    private static final class ResponseBody extends OutputStream {
+        private static final int LIMIT = 16 * 1024;
+
+        private final HttpExchange ex;
+        private final int status;
+        private byte[] buf = new byte[512];
+        private int size;
+        private OutputStream streaming;
+
+        ResponseBody(HttpExchange ex, int status) {
+            this.ex = ex;
+            this.status = status;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (streaming != null) {
+                streaming.write(b, off, len);
+                return;
+            }
+            if (size + len > LIMIT) {
+                ex.sendResponseHeaders(status, 0);
+                streaming = ex.getResponseBody();
+                streaming.write(buf, 0, size);
+                streaming.write(b, off, len);
+                return;
+            }
+            if (size + len > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + len));
+            System.arraycopy(b, off, buf, size, len);
+            size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (streaming == null) {
+                ex.sendResponseHeaders(status, size);
+                streaming = ex.getResponseBody();
+                streaming.write(buf, 0, size);
+            }
+            streaming.close();
+        }
+    }
+
+    private static void error(HttpExchange ex, int status, String message) throws IOException {
+        send(ex, status, json -> {
+            json.beginObject();
+            json.name("error").value(message);
+            json.endObject();
+        });
+    }
+
+    private static boolean method(HttpExchange ex, String expected) throws IOException {
+        if (ex.getRequestMethod().equals(expected)) return true;
+        ex.getResponseHeaders().set("Allow", expected);
+        error(ex, 405, "Use " + expected);
+        return false;
+    }
+
+    /** The decoded query parameters; answers 400 and returns null if an escape is malformed. */
+    private static Map<String, String> query(HttpExchange ex) throws IOException {
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return Collections.emptyMap();
+        Map<String, String> params = new HashMap<>();
+        try {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException e) {
+            error(ex, 400, "Malformed query string");
+            return null;
+        }
+        return params;
+    }
+
+    /**
+     * Minimal streaming JSON encoder: values go out through a small buffer as
+     * they are written. Commas are tracked per nesting level.
+     */
+    static final class JsonWriter implements Closeable {
+        private final Writer out;
+        private boolean[] first = new boolean[16];
+        private int depth;
+        private boolean afterName;
+
+        JsonWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        }
+
+        JsonWriter beginObject() throws IOException { return open('{'); }
+        JsonWriter endObject() throws IOException { return close('}'); }
+        JsonWriter beginArray() throws IOException { return open('['); }
+        JsonWriter endArray() throws IOException { return close(']'); }
+
+        JsonWriter name(String name) throws IOException {
+            separate();
+            string(name);
+            out.write(':');
+            afterName = true;
+            return this;
+        }
+
+        JsonWriter value(String s) throws IOException {
+            separate();
+            if (s == null) out.write("null");
+            else string(s);
+            return this;
+        }
+
+        JsonWriter value(Long n) throws IOException {
+            separate();
+            out.write(n == null ? "null" : n.toString());
+            return this;
+        }
+
+        JsonWriter value(long n) throws IOException {
+            separate();
+            out.write(Long.toString(n));
+            return this;
+        }
+
+        JsonWriter value(boolean b) throws IOException {
+            separate();
+            out.write(b ? "true" : "false");
+            return this;
+        }
+
+        private JsonWriter open(char c) throws IOException {
+            separate();
+            out.write(c);
+            if (++depth == first.length) first = Arrays.copyOf(first, depth * 2);
+            first[depth] = true;
+            return this;
+        }
+
+        private JsonWriter close(char c) throws IOException {
+            depth--;
+            out.write(c);
+            return this;
+        }
+
+        private void separate() throws IOException {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            if (depth > 0 && !first[depth]) out.write(',');
+            first[depth] = false;
+        }
+
+        private void string(String s) throws IOException {
+            out.write('"');
+            int start = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x20 && c != '"' && c != '\\') continue;
+                out.write(s, start, i - start);
+                switch (c) {
+                    case '"': out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default: out.write(String.format("\\u%04x", (int) c));
+                }
+                start = i + 1;
+            }
+            out.write(s, start, s.length() - start);
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,1280 @@
+package javaproj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The library's circulation logic, independent of any user interface.
+ *
+ * The catalog (book and member lists, indexes, the on-disk store) is owned
+ * by one dedicated thread; catalog operations are queued to it and answer
+ * with a CompletableFuture, so callers never block on it. Issue and return
+ * only touch one copy's {@link LibrarySystem.Circulation}, which is swapped
+ * with a compare-and-set, so they run in parallel on a separate pool and
+ * need no lock beyond the shared side of the checkpoint gate. A title with
+ * no copy free takes holds, and a returned copy goes straight to the member
+ * at the front of its {@link HoldQueue}; each queue has its own lock, taken
+ * only by changes to that title's holds. Results are
+ * copies, safe to keep on another thread. Failed operations complete
+ * exceptionally with IllegalArgumentException (unknown book or member),
+ * IllegalStateException (book in the wrong state) or UncheckedIOException
+ * (the change could not be saved).
+ */
+class LibraryService implements Closeable {
+
+    static final class IssueReceipt {
+        final LibrarySystem.Book book;
+        final int copy;
+
+        IssueReceipt(LibrarySystem.Book book, int copy) {
+            this.book = book;
+            this.copy = copy;
+        }
+    }
+
+    static final class ReturnReceipt {
+        final LibrarySystem.Book book;
+        final int copy;
+        final String issuedTo;
+        final long fine;
+        /** Who the copy was issued to next from the hold list, or null if it went back on the shelf. */
+        final String heldFor;
+
+        ReturnReceipt(LibrarySystem.Book book, int copy, String issuedTo, long fine, String heldFor) {
+            this.book = book;
+            this.copy = copy;
+            this.issuedTo = issuedTo;
+            this.fine = fine;
+            this.heldFor = heldFor;
+        }
+    }
+
+    /** One copy on loan, as it was when issued. */
+    static final class Loan {
+        final String bookId, title;
+        final int copy, copies;
+        final LibrarySystem.Circulation state;
+
+        Loan(LibrarySystem.Book b, int copy, LibrarySystem.Circulation state) {
+            this.bookId = b.id;
+            this.title = b.title;
+            this.copy = copy;
+            this.copies = b.copies();
+            this.state = state;
+        }
+    }
+
+    /**
+     * Counters plus one page of the loans, earliest due first. Book counts
+     * are of copies; {@code titles} counts the books in the catalog.
+     */
+    static final class Stats {
+        final long titles, totalBooks, issuedBooks, availableBooks, members, holds;
+        final long overdueBooks, outstandingFines;
+        final int offset;
+        final List<Loan> issued;
+
+        Stats(long titles, long totalBooks, long issuedBooks, long members, long holds, Overdue overdue,
+              int offset, List<Loan> issued) {
+            this.titles = titles;
+            this.totalBooks = totalBooks;
+            this.issuedBooks = issuedBooks;
+            this.availableBooks = totalBooks - issuedBooks;
+            this.members = members;
+            this.holds = holds;
+            this.overdueBooks = overdue.loans;
+            this.outstandingFines = overdue.fines;
+            this.offset = offset;
+            this.issued = issued;
+        }
+    }
+
+    /**
+     * How a catalog import went: records read from the file, books added,
+     * records skipped as already catalogued, and records rejected as invalid
+     * with the first {@link #MAX_IMPORT_ERRORS} reasons. Progress updates
+     * carry the counts so far and no error list.
+     */
+    static final class ImportReport {
+        final long read, imported, duplicates, rejected;
+        final List<String> errors;
+        final long elapsedNanos;
+        final boolean finished;
+
+        ImportReport(long read, long imported, long duplicates, long rejected, List<String> errors,
+                     long elapsedNanos, boolean finished) {
+            this.read = read;
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.finished = finished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %,d books from %,d records (%,d duplicates, %,d rejected) in %.1f s",
+                    finished ? "Imported" : "Importing...", imported, read, duplicates, rejected, elapsedNanos / 1e9);
+        }
+    }
+
+    /** One import in progress; the counters are each written by one thread only. */
+    private static final class Import {
+        final Consumer<ImportReport> progress;
+        final long started = System.nanoTime();
+        final List<String> errors = new ArrayList<>();
+        /** Written by the reader. */
+        volatile long read, rejected;
+        /** Written by the service thread. */
+        long imported, duplicates;
+        /**
+         * Title and author of every book in the catalog or imported so far;
+         * built by the first batch, and added to by addBook while the import runs.
+         */
+        Fingerprints catalogued;
+        volatile RuntimeException failure;
+
+        Import(Consumer<ImportReport> progress) {
+            this.progress = progress;
+        }
+
+        void reject(int line, String reason) {
+            rejected++;
+            if (errors.size() < MAX_IMPORT_ERRORS) errors.add("line " + line + ": " + reason);
+        }
+
+        ImportReport report(boolean finished) {
+            return new ImportReport(read, imported, duplicates, rejected,
+                    finished ? errors : List.of(), System.nanoTime() - started, finished);
+        }
+    }
+
+    /**
+     * A set of 64-bit hashes of title and author, in one open-addressing
+     * array, so checking a record against millions of books costs one
+     * probe instead of a walk down the title tree. Different books can
+     * share a hash, so a hit only means "maybe"; it is confirmed exactly.
+     */
+    private static final class Fingerprints {
+        private long[] table;
+        private int size;
+
+        Fingerprints(int expected) {
+            table = new long[Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) * 2];
+        }
+
+        /** Adds {@code print}; false if it was already there. */
+        boolean add(long print) {
+            if (print == 0) print = 1;
+            int mask = table.length - 1;
+            for (int i = (int) print & mask; ; i = (i + 1) & mask) {
+                if (table[i] == print) return false;
+                if (table[i] == 0) {
+                    table[i] = print;
+                    if (++size * 2 > table.length) grow();
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            int mask = table.length - 1;
+            for (long print : old) {
+                if (print == 0) continue;
+                int i = (int) print & mask;
+                while (table[i] != 0) i = (i + 1) & mask;
+                table[i] = print;
+            }
+        }
+
+        /** FNV-1a over both strings with case folded as equalsIgnoreCase does, then mixed. */
+        static long of(String title, String author) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < title.length(); i++) h = (h ^ fold(title.charAt(i))) * 0x100000001b3L;
+            h = (h ^ '\n') * 0x100000001b3L;
+            for (int i = 0; i < author.length(); i++) h = (h ^ fold(author.charAt(i))) * 0x100000001b3L;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            return h ^ h >>> 33;
+        }
+
+        private static char fold(char c) {
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+
+    /** Overdue loan count and their fines as of {@code day}, valid while the loans it saw are unchanged. */
+    private static final class Overdue {
+        final int day;
+        final long changes;
+        final long loans, fines;
+
+        Overdue(int day, long changes, long loans, long fines) {
+            this.day = day;
+            this.changes = changes;
+            this.loans = loans;
+            this.fines = fines;
+        }
+    }
+
+    /** Orders the loans map by due day, then book ID and copy. */
+    private static final class LoanKey implements Comparable<LoanKey> {
+        final int dueDay;
+        final String bookId;
+        final int copy;
+
+        LoanKey(int dueDay, String bookId, int copy) {
+            this.dueDay = dueDay;
+            this.bookId = bookId;
+            this.copy = copy;
+        }
+
+        @Override
+        public int compareTo(LoanKey o) {
+            int c = Integer.compare(dueDay, o.dueDay);
+            if (c == 0) c = bookId.compareTo(o.bookId);
+            return c != 0 ? c : Integer.compare(copy, o.copy);
+        }
+    }
+
+    static final int LOAN_DAYS = 7;
+    static final long FINE_PER_DAY = 10;
+    static final int MAX_COPIES = 10_000;
+    /** Books a member may have out at once unless library.loan.limit says otherwise. */
+    static final int DEFAULT_LOAN_LIMIT = 5;
+    /** Records committed to the log and indexed together during an import. */
+    static final int IMPORT_BATCH = 10_000;
+    /** Batches the reader may get ahead of the service thread before it waits. */
+    static final int IMPORT_AHEAD = 4;
+    static final int MAX_IMPORT_ERRORS = 100;
+    /** Longest title or author an import accepts, well inside what the log can encode. */
+    static final int MAX_IMPORT_FIELD = 1000;
+
+    private interface StoreAction {
+        void run(LibraryStore store) throws IOException;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-service");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService circulation = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "library-circulation");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Issue and return hold the read side while their change is logged and
+     * applied; checkpoints take the write side while they roll the log and
+     * copy the loans and holds, so a snapshot never misses a change whose
+     * log record is about to be deleted with its segment.
+     * Adding copies and removing a book take it too, so no copy is claimed
+     * or half changed while a book's holdings are replaced or retired, and
+     * so does removing a member, so no loan is issued to one on the way out.
+     */
+    private final ReadWriteLock checkpointGate = new ReentrantReadWriteLock();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+    /** Parses import files so the service thread only commits batches; one file at a time. */
+    private final ExecutorService importer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-import");
+        t.setDaemon(true);
+        return t;
+    });
+    /** Imports running; checkpoints wait for them so a large import writes one snapshot, not one per batch. */
+    private final AtomicInteger imports = new AtomicInteger();
+    /** Imports whose fingerprints are built and not yet finished; service thread only. */
+    private final List<Import> importing = new ArrayList<>();
+    /** Scans the circulation history, which may read many segments, away from every other thread. */
+    private final ExecutorService historyQueries = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-history-query");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ArrayList<LibrarySystem.Book> books = new ArrayList<>();
+    private final ArrayList<LibrarySystem.Member> members = new ArrayList<>();
+    private final CatalogIndex index = new CatalogIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final IdAllocator bookIds = new IdAllocator('B'), memberIds = new IdAllocator('M');
+    private volatile LibraryStore store;
+
+    /*
+     * Statistics are kept up to date on every change instead of being counted
+     * when asked for. The loans map holds each issued copy as it was when
+     * issued; it is updated while the copy is still claimed, so issue and
+     * return of one copy always reach it in order.
+     */
+    private final LongAdder titleCount = new LongAdder();
+    private final LongAdder bookCount = new LongAdder();
+    private final LongAdder issuedCount = new LongAdder();
+    private final LongAdder memberCount = new LongAdder();
+    private final LongAdder holdCount = new LongAdder();
+    private final ConcurrentSkipListMap<LoanKey, Loan> loans = new ConcurrentSkipListMap<>();
+    /** Each member's loans; issues reserve their entry here first, so the loan limit holds under races. */
+    private final MemberLoans memberLoans = new MemberLoans();
+    private volatile int loanLimit = DEFAULT_LOAN_LIMIT;
+    /** Every issue and return ever made; null if it could not be opened. */
+    private volatile CirculationHistory history;
+    /** Bumped whenever a loan that is already overdue is added or removed. */
+    private final AtomicLong overdueChanges = new AtomicLong();
+    private final AtomicReference<Overdue> overdue = new AtomicReference<>(new Overdue(Integer.MIN_VALUE, 0, 0, 0));
+
+    /**
+     * Opens the on-disk store and restores the catalog from it, falling back
+     * to the sample data on first run. Settings come from system properties:
+     * library.data (directory), library.fsync (every_commit, interval, never),
+     * library.fsync.interval.ms, library.checkpoint.bytes (log written
+     * between snapshots), library.checkpoint.interval.ms (longest a change
+     * waits for one) and library.loan.limit (books a member may have out). Completes with
+     * a warning if the store could not be opened and changes will not be
+     * saved, otherwise with null.
+     */
+    CompletableFuture<String> open() {
+        return call(() -> {
+            loanLimit = Integer.getInteger("library.loan.limit", DEFAULT_LOAN_LIMIT);
+            LibraryStore.Recovered saved = null;
+            String warning = null;
+            try {
+                LibraryStore.FsyncPolicy policy = LibraryStore.FsyncPolicy.valueOf(
+                        System.getProperty("library.fsync", "interval").toUpperCase(Locale.ROOT));
+                store = new LibraryStore(Paths.get(System.getProperty("library.data", "library-data")), policy,
+                        Long.getLong("library.fsync.interval.ms", 100), Long.getLong("library.checkpoint.bytes", 64L << 20),
+                        Long.getLong("library.checkpoint.interval.ms", TimeUnit.MINUTES.toMillis(10)));
+                saved = store.recover();
+            } catch (IOException | IllegalArgumentException e) {
+                store = null;
+                warning = "Could not open library data: " + e.getMessage() + "\nChanges will not be saved.";
+            }
+            try {
+                history = new CirculationHistory(Paths.get(System.getProperty("library.data", "library-data"), "history"));
+            } catch (IOException e) {
+                history = null;
+                warning = (warning == null ? "" : warning + "\n")
+                        + "Could not open circulation history: " + e.getMessage() + "\nIssues and returns will not be recorded in it.";
+            }
+
+            if (saved == null) {
+                preloadBooks();
+                preloadMembers();
+            } else {
+                bookIds.advanceTo(saved.nextBookNumber);
+                memberIds.advanceTo(saved.nextMemberNumber);
+                saved.books.forEach(this::indexBook);
+                saved.members.forEach(this::indexMember);
+            }
+            return warning;
+        });
+    }
+
+    // ---- queries ----
+
+    CompletableFuture<List<LibrarySystem.Book>> books() {
+        return call(() -> copies(books));
+    }
+
+    CompletableFuture<List<LibrarySystem.Member>> members() {
+        return call(() -> {
+            List<LibrarySystem.Member> result = new ArrayList<>(members.size());
+            for (LibrarySystem.Member m : members) result.add(copy(m));
+            return result;
+        });
+    }
+
+    CompletableFuture<List<LibrarySystem.Book>> search(String query) {
+        return call(() -> copies(textIndex.search(query)));
+    }
+
+    /** Up to {@code limit} books in catalog order starting at {@code offset}; only those are copied. */
+    CompletableFuture<List<LibrarySystem.Book>> books(int offset, int limit) {
+        return call(() -> copies(page(books, offset, limit)));
+    }
+
+    /**
+     * A page of the books whose title, or with {@code byAuthor} whose author,
+     * starts with {@code prefix} ignoring case, ordered by it. Walks the
+     * ordered index from the prefix, so costs O(offset + limit) past the
+     * lookup.
+     */
+    CompletableFuture<List<LibrarySystem.Book>> booksByPrefix(String prefix, boolean byAuthor, int offset, int limit) {
+        return call(() -> copies(byAuthor ? index.booksByAuthorPrefix(prefix.trim(), offset, limit)
+                : index.booksByTitlePrefix(prefix.trim(), offset, limit)));
+    }
+
+    /** Up to {@code limit} of the books matching {@code query}, starting at match {@code offset}. */
+    CompletableFuture<List<LibrarySystem.Book>> search(String query, int offset, int limit) {
+        return call(() -> copies(page(textIndex.search(query), offset, limit)));
+    }
+
+    /**
+     * Writes the whole catalog to {@code file} as CSV or JSON Lines (by its
+     * extension, optionally gzipped), one row per copy, and completes with
+     * the number of rows written. Books stream from the catalog through one
+     * reusable buffer; each row reads its copy's circulation state once, so
+     * a row is consistent even while issues and returns carry on.
+     */
+    CompletableFuture<Long> exportBooks(Path file) {
+        return call(() -> {
+            try (RecordWriter out = RecordWriter.open(file, "book_id", "copy", "title", "author", "status",
+                    "member_id", "issued_to", "issue_date", "fine")) {
+                for (LibrarySystem.Book b : books) {
+                    for (int copy = 1, copies = b.copies(); copy <= copies; copy++) {
+                        LibrarySystem.Circulation c = b.circulation(copy);
+                        out.text(b.id).number(copy).text(b.title).text(b.author).text(c.issued ? "issued" : "available")
+                                .text(c.issued && !c.memberId.isEmpty() ? c.memberId : null)
+                                .text(c.issued ? c.issuedTo : null).date(c.issueDay).number(fine(c)).endRecord();
+                    }
+                }
+                out.finish();
+                return out.records();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not export catalog: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reads the live counters and up to {@code limit} issued books starting at
+     * {@code offset}. Costs O(offset + limit) however large the catalog is,
+     * except that the overdue totals walk every overdue loan again once the
+     * day changes; so it runs on the service thread, never on the caller's,
+     * which for the window's refresh timer is the event thread.
+     */
+    CompletableFuture<Stats> stats(int offset, int limit) {
+        return call(() -> {
+            List<Loan> page = new ArrayList<>(Math.min(limit, 256));
+            Iterator<Loan> it = loans.values().iterator();
+            for (int i = 0; i < offset && it.hasNext(); i++) it.next();
+            while (page.size() < limit && it.hasNext()) page.add(it.next());
+            return new Stats(titleCount.sum(), bookCount.sum(), issuedCount.sum(),
+                    memberCount.sum(), holdCount.sum(), overdue(), offset, page);
+        });
+    }
+
+    /**
+     * The copies a member has out, earliest due first, each with the fine it
+     * would owe today. Reads the member's entry in the loan index and only
+     * the books it names, so it runs on the calling thread.
+     */
+    CompletableFuture<List<Loan>> memberLoans(String memberId) {
+        LibrarySystem.Member m = index.findMember(memberId);
+        if (m == null) return CompletableFuture.failedFuture(new IllegalArgumentException("No such member!"));
+        List<Loan> result = new ArrayList<>();
+        for (long loan : memberLoans.loans(m.id)) {
+            LibrarySystem.Book b = index.findBook(memberLoans.bookId(loan));
+            int copy = MemberLoans.copy(loan);
+            // An entry can run a moment ahead of the copy it names: reserved before an issue, or
+            // not yet dropped after a return. The copy's own state decides.
+            if (b == null || copy > b.copies()) continue;
+            LibrarySystem.Circulation c = b.circulation(copy);
+            if (c.issued && !c.removed && c.memberId.equals(m.id)) result.add(new Loan(b, copy, c));
+        }
+        result.sort(Comparator.comparingInt(l -> l.state.issueDay));
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Up to {@code limit} issues and returns from {@code fromDay} to
+     * {@code toDay} (epoch days, inclusive), oldest first. A null kind, book
+     * or member ID matches any. IDs are matched however they are cased or
+     * padded, as long as the book or member is still catalogued; those of
+     * removed ones must be given exactly. Events from the last moment may
+     * still be on their way to the history and are left out.
+     */
+    CompletableFuture<List<CirculationHistory.Event>> circulationHistory(int fromDay, int toDay,
+            CirculationHistory.Kind kind, String bookId, String memberId, int limit) {
+        CirculationHistory h = history;
+        if (h == null)
+            return CompletableFuture.failedFuture(new IllegalStateException("Circulation history is not available!"));
+        // The history stores the IDs as the catalog spells them.
+        LibrarySystem.Book b = index.findBook(bookId);
+        LibrarySystem.Member m = index.findMember(memberId);
+        String book = b != null ? b.id : bookId, member = m != null ? m.id : memberId;
+        return CompletableFuture.supplyAsync(() -> {
+            List<CirculationHistory.Event> result = new ArrayList<>(Math.min(limit, 256));
+            try {
+                if (limit > 0) h.scan(fromDay, toDay, kind, book, member, e -> result.add(e) && result.size() < limit);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }, historyQueries);
+    }
+
+    /** Up to {@code limit} overdue loans starting at {@code offset}, most overdue first. */
+    CompletableFuture<List<Loan>> overdueBooks(int offset, int limit) {
+        List<Loan> page = new ArrayList<>(Math.min(limit, 256));
+        Iterator<Loan> it = overduePrefix().values().iterator();
+        for (int i = 0; i < offset && it.hasNext(); i++) it.next();
+        while (page.size() < limit && it.hasNext()) page.add(it.next());
+        return CompletableFuture.completedFuture(page);
+    }
+
+    // ---- circulation ----
+
+    CompletableFuture<LibrarySystem.Book> addBook(String title, String author, int copies) {
+        return call(() -> {
+            if (copies < 1 || copies > MAX_COPIES)
+                throw new IllegalArgumentException("A book can have 1 to " + MAX_COPIES + " copies!");
+            LibrarySystem.Book b = new LibrarySystem.Book(bookIds.next(), title.trim(), author.trim(), copies);
+            persist(s -> s.bookAdded(b), () -> indexBook(b));
+            for (Import job : importing) job.catalogued.add(Fingerprints.of(b.title, b.author));
+            return copy(b);
+        });
+    }
+
+    /** Adds {@code more} copies of a book, issuing them to its hold list first. */
+    CompletableFuture<LibrarySystem.Book> addCopies(String bookId, int more) {
+        return call(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            if (more < 1 || b.copies() + more > MAX_COPIES)
+                throw new IllegalArgumentException("A book can have 1 to " + MAX_COPIES + " copies!");
+            exclusive(() -> persist(s -> s.copiesAdded(b.id, b.copies() + more), () -> {
+                b.addCopies(more);
+                bookCount.add(more);
+            }));
+            circulate(() -> serveHolds(b));
+            return copy(b);
+        });
+    }
+
+    /**
+     * Adds every book in a catalog file (see {@link CatalogReader} for the
+     * formats) that is valid and not already catalogued under the same title
+     * and author, and completes with the report. The file is parsed on its
+     * own thread and handed to the service thread in batches of
+     * {@link #IMPORT_BATCH}, each logged as one append and then indexed, so
+     * other operations interleave between batches; the reader waits when it
+     * is {@link #IMPORT_AHEAD} batches ahead, which bounds memory whatever
+     * the file size. {@code progress}, if not null, is called on the service
+     * thread after each batch.
+     *
+     * Batches already committed stay if a later one cannot be saved or the
+     * file turns out to be unreadable part way; the import then completes
+     * exceptionally with a message saying how far it got.
+     */
+    CompletableFuture<ImportReport> importBooks(Path file, Consumer<ImportReport> progress) {
+        Import job = new Import(progress);
+        return CompletableFuture.supplyAsync(() -> {
+            imports.incrementAndGet();
+            try {
+                readImport(file, job);
+            } catch (RuntimeException e) {
+                if (job.failure == null) job.failure = e;
+            }
+            return job;
+        }, importer).thenCompose(j -> call(() -> finishImport(j)));
+    }
+
+    CompletableFuture<LibrarySystem.Book> removeBook(String bookId) {
+        return call(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            exclusive(() -> persist(s -> s.bookRemoved(b.id), () -> {
+                for (int copy = 1; copy <= b.copies(); copy++) {
+                    LibrarySystem.Circulation was = b.circulation(copy), next = was.remove();
+                    b.restore(copy, next);
+                    track(b, copy, was, next);
+                }
+                books.remove(b);
+                titleCount.decrement();
+                bookCount.add(-b.copies());
+                holdCount.add(-b.holdsWaiting());
+                index.removeBook(b);
+                textIndex.removeBook(b);
+            }));
+            return copy(b);
+        });
+    }
+
+    /**
+     * Issues whichever copy of the book is free, lowest number first.
+     * Refused while members are waiting on the book's hold list: free
+     * copies go to them.
+     */
+    CompletableFuture<IssueReceipt> issueBook(String bookId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            LibrarySystem.Member m = index.findMember(memberId);
+            if (m == null) throw new IllegalArgumentException("No such member!");
+
+            int today = Dates.today();
+            int copy = circulate(() -> {
+                if (index.findMember(m.id) != m) throw new IllegalArgumentException("No such member!");
+                if (b.holdsWaiting() > 0 && !b.isRemoved())
+                    throw new IllegalStateException("Book is on hold for other members!");
+                int free = b.claimCopy();
+                if (free == 0) {
+                    if (b.isRemoved()) throw new IllegalArgumentException("No such book!");
+                    throw new IllegalStateException(b.copies() == 1 ? "Book already issued!" : "No copy available!");
+                }
+                if (!memberLoans.add(m.id, b.id, free, loanLimit)) {
+                    b.releaseCopy(free);
+                    throw new IllegalStateException(m.name + " already has " + loanLimit + " books on loan!");
+                }
+                // Only this thread can change a claimed copy, so the transition cannot be refused; if
+                // the log write fails it puts the available state back, which frees the copy again.
+                try {
+                    transition(b, free, was -> was.issue(m, today), s -> s.bookIssued(b.id, free, m.id, m.name, today));
+                } catch (RuntimeException e) {
+                    unreserve(b, free, m.id);
+                    throw e;
+                }
+                recordIssue(b, free, m.id);
+                return free;
+            });
+            return new IssueReceipt(copy(b), copy);
+        }, circulation);
+    }
+
+    /** Returns the book's only copy on loan; refused when several are out. */
+    CompletableFuture<ReturnReceipt> returnBook(String bookId) {
+        return returnBook(bookId, 0);
+    }
+
+    /**
+     * Returns copy {@code copy} of the book, or with 0 its only copy on loan.
+     * If members are waiting for the book, the copy is issued to the one at
+     * the front of the hold list in the same step, so it is never on the
+     * shelf for anyone else to take.
+     */
+    CompletableFuture<ReturnReceipt> returnBook(String bookId, int copy) {
+        return CompletableFuture.supplyAsync(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            int which = copy == 0 ? loanedCopy(b) : copy;
+            if (which < 1 || which > b.copies()) throw new IllegalArgumentException("No such copy!");
+            LibrarySystem.Circulation[] loan = new LibrarySystem.Circulation[1];
+            UnaryOperator<LibrarySystem.Circulation> giveBack = c -> {
+                if (!c.issued) throw new IllegalStateException("Book not issued!");
+                loan[0] = c;
+                return c.returned();
+            };
+            LibrarySystem.Circulation next = circulate(() -> {
+                HoldQueue q = b.holds();
+                if (q != null && q.waiting() > 0) {
+                    synchronized (q) {
+                        LibrarySystem.Member m = nextHold(b, q, which);
+                        if (m != null) {
+                            int today = Dates.today();
+                            LibrarySystem.Circulation handed;
+                            try {
+                                handed = transition(b, which, c -> giveBack.apply(c).issue(m, today),
+                                        s -> s.holdFilled(b.id, which, m.id, m.name, today));
+                            } catch (RuntimeException e) {
+                                unreserve(b, which, m.id);
+                                throw e;
+                            }
+                            q.remove(m.id);
+                            holdCount.decrement();
+                            recordReturn(b, which, loan[0]);
+                            recordIssue(b, which, m.id);
+                            return handed;
+                        }
+                    }
+                }
+                LibrarySystem.Circulation back = transition(b, which, giveBack, s -> s.bookReturned(b.id, which));
+                recordReturn(b, which, loan[0]);
+                // A hold placed while the copy was on its way back saw no copy free.
+                serveHolds(b);
+                return back;
+            });
+            return new ReturnReceipt(copy(b), which, loan[0].issuedTo, fine(loan[0]),
+                    next.issued ? next.issuedTo : null);
+        }, circulation);
+    }
+
+    /**
+     * Puts the member on the book's hold list and completes with their place
+     * in it, 1 being next. Only taken when no copy is free and the member is
+     * not already waiting; if a copy comes back meanwhile it is issued to the
+     * front of the list at once, and 0 means that was this member.
+     */
+    CompletableFuture<Integer> placeHold(String bookId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            LibrarySystem.Member m = index.findMember(memberId);
+            if (m == null) throw new IllegalArgumentException("No such member!");
+
+            HoldQueue q = b.holdQueue();
+            circulate(() -> {
+                synchronized (q) {
+                    if (b.isRemoved()) throw new IllegalArgumentException("No such book!");
+                    if (q.position(m.id) > 0) throw new IllegalStateException("Already on the hold list!");
+                    if (memberLoans.count(m.id) >= loanLimit)
+                        throw new IllegalStateException(m.name + " already has " + loanLimit + " books on loan!");
+                    if (q.waiting() == 0 && b.available() > 0)
+                        throw new IllegalStateException("A copy is available, issue it instead!");
+                    save(s -> s.holdPlaced(b.id, m.id));
+                    q.add(m.id);
+                    holdCount.increment();
+                }
+                serveHolds(b);
+                return null;
+            });
+            return q.position(m.id);
+        }, circulation);
+    }
+
+    /** Takes the member off the book's hold list. */
+    CompletableFuture<Void> cancelHold(String bookId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> {
+            LibrarySystem.Book b = requireBook(bookId);
+            LibrarySystem.Member m = requireMember(memberId);
+            HoldQueue q = b.holds();
+            return circulate(() -> {
+                if (q == null) throw new IllegalStateException("No hold to cancel!");
+                synchronized (q) {
+                    if (q.position(m.id) == 0) throw new IllegalStateException("No hold to cancel!");
+                    dropHold(b, q, m.id);
+                }
+                return null;
+            });
+        }, circulation);
+    }
+
+    /**
+     * The member's place on the book's hold list, 1 being next, or 0 if they
+     * have no hold. Runs on the calling thread; it costs a hash lookup and a
+     * binary search whatever the length of the list.
+     */
+    CompletableFuture<Integer> holdPosition(String bookId, String memberId) {
+        try {
+            HoldQueue q = requireBook(bookId).holds();
+            LibrarySystem.Member m = requireMember(memberId);
+            return CompletableFuture.completedFuture(q == null ? 0 : q.position(m.id));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Members waiting on the book's hold list. */
+    CompletableFuture<Integer> holdsWaiting(String bookId) {
+        try {
+            return CompletableFuture.completedFuture(requireBook(bookId).holdsWaiting());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    CompletableFuture<LibrarySystem.Member> addMember(String name, String email) {
+        return call(() -> {
+            LibrarySystem.Member m = new LibrarySystem.Member(memberIds.next(), name.trim(), email.trim());
+            persist(s -> s.memberAdded(m), () -> indexMember(m));
+            return copy(m);
+        });
+    }
+
+    CompletableFuture<LibrarySystem.Member> removeMember(String memberId) {
+        return call(() -> {
+            LibrarySystem.Member m = requireMember(memberId);
+            // Issues check the member is still listed under the read side of the gate, so with
+            // the write side held none can slip a loan in between this count and the removal.
+            exclusive(() -> {
+                int out = memberLoans.count(m.id);
+                if (out > 0) throw new IllegalStateException(m.name + " still has " + out + " book(s) on loan!");
+                persist(s -> s.memberRemoved(m.id), () -> {
+                    members.remove(m);
+                    memberCount.decrement();
+                    index.removeMember(m);
+                });
+            });
+            return copy(m);
+        });
+    }
+
+    /** Fine owed on a loan if it came back today. */
+    static long fine(LibrarySystem.Circulation c) {
+        return c.issued ? fine(c.issueDay, Dates.today()) : 0;
+    }
+
+    /** {@link #FINE_PER_DAY} for every day past the loan period; shared with the manual calculator. */
+    static long fine(int issueDay, int returnDay) {
+        long late = (long) returnDay - issueDay - LOAN_DAYS;
+        return late > 0 ? late * FINE_PER_DAY : 0;
+    }
+
+
+    // ---- internals ----
+
+    private <T> CompletableFuture<T> call(Supplier<T> op) {
+        return CompletableFuture.supplyAsync(op, executor);
+    }
+
+    /**
+     * Runs one issue or return under the shared side of the checkpoint gate,
+     * then queues a checkpoint if one is due.
+     */
+    private <T> T circulate(Supplier<T> op) {
+        T result;
+        checkpointGate.readLock().lock();
+        try {
+            result = op.get();
+        } finally {
+            checkpointGate.readLock().unlock();
+        }
+        queueCheckpointIfDue();
+        return result;
+    }
+
+    /** Queues a checkpoint to the service thread, once, if one is due. */
+    private void queueCheckpointIfDue() {
+        if (checkpointDue() && checkpointQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    checkpointQueued.set(false);
+                    if (checkpointDue()) checkpoint();
+                });
+            } catch (RejectedExecutionException e) {
+                checkpointQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Claims a copy by swapping in a busy copy of its state, logs the
+     * change, then publishes the new state. If logging fails the old state
+     * goes back and nothing happened. A copy another thread is already
+     * changing is refused rather than waited for, since that thread may be
+     * blocked on an fsync. Returns the state that was published.
+     */
+    private LibrarySystem.Circulation transition(LibrarySystem.Book b, int copy,
+                                                 UnaryOperator<LibrarySystem.Circulation> change, StoreAction log) {
+        LibrarySystem.Circulation was, next, busy;
+        do {
+            was = b.circulation(copy);
+            if (was.removed) throw new IllegalArgumentException("No such book!");
+            if (was.busy) throw new IllegalStateException("Book is being updated, try again!");
+            next = change.apply(was);
+            busy = was.busy();
+        } while (!b.transition(copy, was, busy));
+
+        try {
+            save(log);
+        } catch (RuntimeException e) {
+            b.transition(copy, busy, was);
+            throw e;
+        }
+        track(b, copy, was, next);
+        b.transition(copy, busy, next);
+        return next;
+    }
+
+    /**
+     * Issues free copies of {@code b} to the front of its hold list until
+     * either runs out. Called after anything that may leave a copy free
+     * while members wait: a return, a new hold, added copies.
+     */
+    private Void serveHolds(LibrarySystem.Book b) {
+        HoldQueue q = b.holds();
+        if (q == null) return null;
+        while (q.waiting() > 0) {
+            int free = b.claimCopy();
+            if (free == 0) return null;
+            synchronized (q) {
+                LibrarySystem.Member m = nextHold(b, q, free);
+                if (m == null) {
+                    b.releaseCopy(free);
+                    return null;
+                }
+                int today = Dates.today();
+                try {
+                    transition(b, free, was -> was.issue(m, today), s -> s.holdFilled(b.id, free, m.id, m.name, today));
+                } catch (RuntimeException e) {
+                    unreserve(b, free, m.id);
+                    throw e;
+                }
+                q.remove(m.id);
+                holdCount.decrement();
+                recordIssue(b, free, m.id);
+            }
+        }
+        return null;
+    }
+
+    private void recordIssue(LibrarySystem.Book b, int copy, String memberId) {
+        CirculationHistory h = history;
+        if (h != null) h.record(CirculationHistory.Kind.ISSUE, System.currentTimeMillis(), b.id, copy, memberId, 0);
+    }
+
+    /** Records the return of {@code loan}, with the fine it owed. */
+    private void recordReturn(LibrarySystem.Book b, int copy, LibrarySystem.Circulation loan) {
+        CirculationHistory h = history;
+        if (h != null)
+            h.record(CirculationHistory.Kind.RETURN, System.currentTimeMillis(), b.id, copy, loan.memberId, fine(loan));
+    }
+
+    /**
+     * The member at the front of the hold list, with {@code copy} reserved
+     * in their loans. Holds of members removed since, or who reached the
+     * loan limit since, are dropped; null if nobody is left. Caller holds
+     * the queue's monitor.
+     */
+    private LibrarySystem.Member nextHold(LibrarySystem.Book b, HoldQueue q, int copy) {
+        for (String memberId; (memberId = q.first()) != null; ) {
+            LibrarySystem.Member m = index.findMember(memberId);
+            if (m != null && memberLoans.add(m.id, b.id, copy, loanLimit)) return m;
+            dropHold(b, q, memberId);
+        }
+        return null;
+    }
+
+    /** Undoes a loan reservation whose issue failed, unless the copy is still that member's loan. */
+    private void unreserve(LibrarySystem.Book b, int copy, String memberId) {
+        if (!memberId.equals(b.circulation(copy).memberId)) memberLoans.remove(memberId, b.id, copy);
+    }
+
+    /** Logs and removes a hold that will not be filled; caller holds the queue's monitor. */
+    private void dropHold(LibrarySystem.Book b, HoldQueue q, String memberId) {
+        save(s -> s.holdCancelled(b.id, memberId));
+        q.remove(memberId);
+        holdCount.decrement();
+    }
+
+    /** Runs a catalog change on the service thread with no issue or return in flight. */
+    private void exclusive(Runnable change) {
+        checkpointGate.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            checkpointGate.writeLock().unlock();
+        }
+    }
+
+    /** The one copy of {@code b} on loan; refused if none or several are. */
+    private static int loanedCopy(LibrarySystem.Book b) {
+        int found = 0;
+        for (int copy = 1, copies = b.copies(); copy <= copies; copy++) {
+            if (!b.circulation(copy).issued) continue;
+            if (found != 0) throw new IllegalStateException("Several copies are on loan, say which one is returned!");
+            found = copy;
+        }
+        if (found == 0) throw new IllegalStateException("Book not issued!");
+        return found;
+    }
+
+    private LibrarySystem.Book requireBook(String bookId) {
+        LibrarySystem.Book b = index.findBook(bookId);
+        if (b == null) throw new IllegalArgumentException("No such book!");
+        return b;
+    }
+
+    /** The member, found however the ID is cased or padded; use its {@code id} from here on. */
+    private LibrarySystem.Member requireMember(String memberId) {
+        LibrarySystem.Member m = index.findMember(memberId);
+        if (m == null) throw new IllegalArgumentException("No such member!");
+        return m;
+    }
+
+    /** Logs a change and only then applies it, so a change that could not be saved never happens. */
+    private void persist(StoreAction log, Runnable apply) {
+        if (store == null) {
+            apply.run();
+            return;
+        }
+        write(store, log);
+        apply.run();
+        // Queued rather than run here: the change may be inside exclusive(), and a checkpoint
+        // must not write the snapshot with the gate held.
+        queueCheckpointIfDue();
+    }
+
+    /** Logs a circulation change if there is a store; off the service thread, unlike {@link #persist}. */
+    private void save(StoreAction log) {
+        LibraryStore s = store;
+        if (s != null) write(s, log);
+    }
+
+    private static void write(LibraryStore store, StoreAction log) {
+        try {
+            log.run(store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save change: " + e.getMessage(), e);
+        }
+    }
+
+    /** Reader thread: parses and checks records, queueing them to the service thread in batches. */
+    private void readImport(Path file, Import job) {
+        Semaphore ahead = new Semaphore(IMPORT_AHEAD);
+        try (CatalogReader in = CatalogReader.open(file)) {
+            List<String[]> batch = new ArrayList<>(IMPORT_BATCH);
+            while (job.failure == null && in.next()) {
+                job.read++;
+                String title = in.title() == null ? "" : in.title().trim();
+                String author = in.author() == null ? "" : in.author().trim();
+                String reason = title.isEmpty() ? "missing title"
+                        : author.isEmpty() ? "missing author"
+                        : title.length() > MAX_IMPORT_FIELD ? "title longer than " + MAX_IMPORT_FIELD + " characters"
+                        : author.length() > MAX_IMPORT_FIELD ? "author longer than " + MAX_IMPORT_FIELD + " characters"
+                        : null;
+                if (reason != null) {
+                    job.reject(in.line(), reason);
+                    continue;
+                }
+                batch.add(new String[] {title, author});
+                if (batch.size() == IMPORT_BATCH) {
+                    queueBatch(job, batch, ahead);
+                    batch = new ArrayList<>(IMPORT_BATCH);
+                }
+            }
+            if (!batch.isEmpty()) queueBatch(job, batch, ahead);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void queueBatch(Import job, List<String[]> batch, Semaphore ahead) {
+        ahead.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                if (job.failure == null) commitBatch(job, batch);
+            } catch (RuntimeException e) {
+                job.failure = e;
+            } finally {
+                ahead.release();
+            }
+        });
+    }
+
+    /**
+     * Service thread: drops rows already in the catalog or earlier in the
+     * import, logs the rest as one append, then indexes them.
+     */
+    private void commitBatch(Import job, List<String[]> rows) {
+        if (job.catalogued == null) {
+            job.catalogued = new Fingerprints(books.size() + rows.size());
+            for (LibrarySystem.Book b : books) job.catalogued.add(Fingerprints.of(b.title, b.author));
+            importing.add(job);
+        }
+        List<LibrarySystem.Book> added = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            if (!job.catalogued.add(Fingerprints.of(row[0], row[1])) && isDuplicate(row[0], row[1], added)) {
+                job.duplicates++;
+                continue;
+            }
+            added.add(new LibrarySystem.Book(bookIds.next(), row[0], row[1]));
+        }
+        if (store != null && !added.isEmpty()) write(store, s -> s.booksAdded(added));
+        added.forEach(this::indexBook);
+        job.imported += added.size();
+        if (job.progress != null) job.progress.accept(job.report(false));
+    }
+
+    /**
+     * Confirms a fingerprint hit. The set keeps the prints of books removed
+     * since it was built, so a miss in the catalog and the batch means a
+     * new book after all.
+     */
+    private boolean isDuplicate(String title, String author, List<LibrarySystem.Book> batch) {
+        if (index.hasBook(title, author)) return true;
+        for (LibrarySystem.Book b : batch)
+            if (b.title.equalsIgnoreCase(title) && b.author.equalsIgnoreCase(author)) return true;
+        return false;
+    }
+
+    /** Service thread, after the last batch: checkpoints if due, then reports or rethrows. */
+    private ImportReport finishImport(Import job) {
+        imports.decrementAndGet();
+        importing.remove(job);
+        if (checkpointDue()) checkpoint();
+        if (job.failure != null) {
+            String done = String.format("Import stopped after adding %,d books: ", job.imported);
+            if (job.failure instanceof UncheckedIOException) {
+                UncheckedIOException e = (UncheckedIOException) job.failure;
+                throw new UncheckedIOException(done + e.getMessage(), e.getCause());
+            }
+            if (job.failure instanceof IllegalArgumentException) throw job.failure;
+            throw new IllegalStateException(done + job.failure.getMessage(), job.failure);
+        }
+        return job.report(true);
+    }
+
+    private boolean checkpointDue() {
+        LibraryStore s = store;
+        return s != null && imports.get() == 0 && s.checkpointDue();
+    }
+
+    /**
+     * Service thread only. Holds the gate, which waits for in-flight issues
+     * and returns, only while the log rolls and the catalog's loans and holds
+     * are copied; the snapshot is written with circulation running again.
+     */
+    private void checkpoint() {
+        SnapshotFile.Cut cut;
+        checkpointGate.writeLock().lock();
+        try {
+            cut = store.beginCheckpoint(books, members, bookIds.peek(), memberIds.peek());
+        } catch (IOException e) {
+            System.out.println("Error writing library snapshot: " + e.getMessage());
+            return;
+        } finally {
+            checkpointGate.writeLock().unlock();
+        }
+        try {
+            store.finishCheckpoint(cut);
+        } catch (IOException e) {
+            System.out.println("Error writing library snapshot: " + e.getMessage());
+        }
+    }
+
+    /** Updates the issued counter, loans map and member loans for a copy moving from {@code was} to {@code next}. */
+    private void track(LibrarySystem.Book b, int copy, LibrarySystem.Circulation was, LibrarySystem.Circulation next) {
+        boolean wasOut = was.issued && !was.removed, nowOut = next.issued && !next.removed;
+        if (wasOut) {
+            loans.remove(new LoanKey(was.dueDay(), b.id, copy));
+            memberLoans.remove(was.memberId, b.id, copy);
+        }
+        if (nowOut) {
+            loans.put(new LoanKey(next.dueDay(), b.id, copy), new Loan(b, copy, next));
+            memberLoans.add(next.memberId, b.id, copy, Integer.MAX_VALUE);
+        }
+        if (wasOut != nowOut) issuedCount.add(nowOut ? 1 : -1);
+
+        int day = Dates.today();
+        if ((wasOut && was.dueDay() < day) || (nowOut && next.dueDay() < day)) overdueChanges.incrementAndGet();
+    }
+
+    /** Loans due before today; the loans map is in due order, so this is its head. */
+    private NavigableMap<LoanKey, Loan> overduePrefix() {
+        return loans.headMap(new LoanKey(Dates.today(), "", 0), false);
+    }
+
+    /**
+     * Overdue count and total fines. Walks only the overdue prefix, and only
+     * when the day has changed or an overdue loan came or went since the last
+     * walk; new loans are never overdue, so ordinary checkouts keep the
+     * cached answer.
+     */
+    private Overdue overdue() {
+        int day = Dates.today();
+        long changes = overdueChanges.get();
+        Overdue o = overdue.get();
+        if (o.day == day && o.changes == changes) return o;
+
+        long count = 0, fines = 0;
+        for (LoanKey k : overduePrefix().keySet()) {
+            count++;
+            fines += (day - k.dueDay) * FINE_PER_DAY;
+        }
+        o = new Overdue(day, changes, count, fines);
+        overdue.set(o);
+        return o;
+    }
+
+    private void indexBook(LibrarySystem.Book b) {
+        bookIds.observe(b.id);
+        books.add(b);
+        titleCount.increment();
+        bookCount.add(b.copies());
+        holdCount.add(b.holdsWaiting());
+        for (int copy = 1; copy <= b.copies(); copy++) track(b, copy, LibrarySystem.Circulation.AVAILABLE, b.circulation(copy));
+        index.addBook(b);
+        textIndex.addBook(b);
+    }
+
+    private void indexMember(LibrarySystem.Member m) {
+        memberIds.observe(m.id);
+        members.add(m);
+        memberCount.increment();
+        index.addMember(m);
+    }
+
+    private static <T> List<T> page(List<T> all, int offset, int limit) {
+        int from = Math.min(offset, all.size());
+        return all.subList(from, Math.min(all.size(), from + limit));
+    }
+
+    private static List<LibrarySystem.Book> copies(List<LibrarySystem.Book> source) {
+        List<LibrarySystem.Book> result = new ArrayList<>(source.size());
+        for (LibrarySystem.Book b : source) result.add(copy(b));
+        return result;
+    }
+
+    private static LibrarySystem.Book copy(LibrarySystem.Book b) {
+        LibrarySystem.Book c = new LibrarySystem.Book(b.id, b.title, b.author, b.copies());
+        for (int copy = 1; copy <= c.copies(); copy++) c.restore(copy, b.circulation(copy));
+        return c;
+    }
+
+    private static LibrarySystem.Member copy(LibrarySystem.Member m) {
+        return new LibrarySystem.Member(m.id, m.name, m.email);
+    }
+
+    private void preloadBooks() {
+        addSample(new LibrarySystem.Book("B1", "The Alchemist", "Paulo Coelho"));
+        addSample(new LibrarySystem.Book("B2", "“Wings of Fire", "Dr. A.P.J. Abdul Kalam"));
+        addSample(new LibrarySystem.Book("B3", "The Power of Your Subconscious Mind", "Joseph Murphy"));
+        addSample(new LibrarySystem.Book("B4", "Think Like a Monk", "Jay Shetty"));
+        addSample(new LibrarySystem.Book("B5", "Rich Dad Poor Dad", "Robert T. Kiyosaki"));
+    }
+
+    private void preloadMembers() {
+        addSample(new LibrarySystem.Member("M1", "Riya Sharma", "riya@gmail.com"));
+        addSample(new LibrarySystem.Member("M2", "Aman Verma", "aman@gmail.com"));
+        addSample(new LibrarySystem.Member("M3", "Neha Singh", "neha@gmail.com"));
+    }
+
+    private void addSample(LibrarySystem.Book b) {
+        persist(s -> s.bookAdded(b), () -> indexBook(b));
+    }
+
+    private void addSample(LibrarySystem.Member m) {
+        persist(s -> s.memberAdded(m), () -> indexMember(m));
+    }
+
+    /** Finishes queued operations, then flushes and closes the store. */
+    @Override
+    public void close() throws IOException {
+        importer.shutdownNow();
+        circulation.shutdown();
+        try {
+            circulation.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        historyQueries.shutdownNow();
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException e) {
+                System.out.println("Error closing circulation history: " + e.getMessage());
+            }
+        }
+        Future<?> last = executor.submit(() -> {
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        executor.shutdown();
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package javaproj;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable storage for the library catalog: an append-only write-ahead log of
+ * circulation events plus periodic snapshots.
+ *
+ * The log is split into numbered segments (wal-00000001.log, ...). Every
+ * record is framed as [length][crc32][payload] so a torn write at the end of
+ * the newest segment is detected and cut off on recovery. Older segments were
+ * forced before the log rolled past them, so a bad record in one of those is
+ * damage, not a torn write, and stops recovery instead. A checkpoint rolls the log
+ * to a fresh segment and takes a cut of the catalog while changes are held
+ * off, then, with changes flowing again, writes the snapshot to a temp file,
+ * renames it into place and deletes the segments the snapshot covers;
+ * startup loads the snapshot and replays only the segments after it.
+ *
+ * Appends are group-committed: callers encode into a shared buffer and the
+ * first one to reach the I/O lock writes and forces everything buffered so
+ * far, so concurrent callers share a single fsync. Events only ever assign
+ * state, which makes replaying one twice harmless.
+ */
+class LibraryStore implements Closeable {
+
+    enum FsyncPolicy {
+        /** Force the log before an append returns; concurrent appends share one force. */
+        EVERY_COMMIT,
+        /** Return once buffered; a background flusher writes and forces every interval. */
+        INTERVAL,
+        /** Write in the background but leave forcing to the operating system. */
+        NEVER
+    }
+
+    static final class Recovered {
+        final List<LibrarySystem.Book> books;
+        final List<LibrarySystem.Member> members;
+        /** Past every book and member number the store has seen, removed ones included. */
+        final long nextBookNumber, nextMemberNumber;
+
+        Recovered(List<LibrarySystem.Book> books, List<LibrarySystem.Member> members,
+                  long nextBookNumber, long nextMemberNumber) {
+            this.books = books;
+            this.members = members;
+            this.nextBookNumber = nextBookNumber;
+            this.nextMemberNumber = nextMemberNumber;
+        }
+    }
+
+    private static final byte ADD_BOOK = 1, REMOVE_BOOK = 2, ADD_MEMBER = 3, REMOVE_MEMBER = 4,
+            ISSUE = 5, RETURN = 6, COPIES = 7, HOLD = 8, HOLD_CANCELLED = 9, HOLD_FILLED = 10;
+    private static final int MAX_RECORD = 1 << 20;
+    private static final int FLUSH_THRESHOLD = 256 * 1024;
+
+    private final Path dir;
+    private final FsyncPolicy policy;
+    private final long checkpointBytes;
+    private final long checkpointNanos;
+    private final ScheduledExecutorService flusher;
+
+    private final Object bufferLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer draining = ByteBuffer.allocate(64 * 1024);
+    private long appendedSeq;
+    /** Log bytes appended since the last checkpoint, and when that was. */
+    private long sinceCheckpoint;
+    private long checkpointedAt = System.nanoTime();
+
+    private final Object ioLock = new Object();
+    private FileChannel log;
+    private long segment;
+    private long syncedSeq;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * A checkpoint falls due once {@code checkpointBytes} of log have been
+     * appended since the last, or once {@code checkpointMillis} have passed
+     * with anything appended at all; zero turns either trigger off.
+     */
+    LibraryStore(Path dir, FsyncPolicy policy, long intervalMillis, long checkpointBytes, long checkpointMillis)
+            throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        this.checkpointBytes = checkpointBytes;
+        this.checkpointNanos = TimeUnit.MILLISECONDS.toNanos(checkpointMillis);
+        Files.createDirectories(dir);
+        if (policy == FsyncPolicy.EVERY_COMMIT) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "library-wal-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::backgroundFlush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ---- recovery ----
+
+    /**
+     * Loads the latest snapshot and replays the log segments after it, then
+     * opens a new segment for appends. Returns null if there is nothing on disk.
+     */
+    Recovered recover() throws IOException {
+        Map<String, LibrarySystem.Book> books = new LinkedHashMap<>();
+        Map<String, LibrarySystem.Member> members = new LinkedHashMap<>();
+        IdAllocator bookIds = new IdAllocator('B'), memberIds = new IdAllocator('M');
+        long first = readSnapshot(books, members, bookIds, memberIds);
+        boolean found = first > 0;
+
+        long last = Math.max(first - 1, 0);
+        long[] segments = segments();
+        for (long seg : segments) {
+            if (seg < first) {
+                Files.deleteIfExists(segmentPath(seg));
+                continue;
+            }
+            replay(segmentPath(seg), seg == segments[segments.length - 1], books, members, bookIds, memberIds);
+            last = seg;
+            found = true;
+        }
+        openSegment(last + 1);
+        if (!found) return null;
+        return new Recovered(new ArrayList<>(books.values()), new ArrayList<>(members.values()),
+                bookIds.peek(), memberIds.peek());
+    }
+
+    /**
+     * Applies every record in one segment. Only the newest segment may end in
+     * a torn write, which is truncated away; a bad record anywhere else fails
+     * recovery rather than silently dropping the events after it.
+     */
+    private void replay(Path file, boolean newest, Map<String, LibrarySystem.Book> books,
+                        Map<String, LibrarySystem.Member> members,
+                        IdAllocator bookIds, IdAllocator memberIds) throws IOException {
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int len, sum;
+                try {
+                    len = in.readInt();
+                    sum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (len <= 0 || len > MAX_RECORD) break;
+                byte[] payload = new byte[len];
+                try {
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != sum) break;
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), books, members, bookIds, memberIds);
+                good += 8 + len;
+            }
+        }
+        if (good < Files.size(file)) {
+            if (!newest) throw new IOException("Log segment " + file.getFileName() + " is corrupt at byte " + good);
+            System.out.println("Discarding torn tail of " + file.getFileName() + " at byte " + good);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(good);
+                ch.force(true);
+            }
+        }
+    }
+
+    private static void apply(DataInputStream in, Map<String, LibrarySystem.Book> books,
+                              Map<String, LibrarySystem.Member> members,
+                              IdAllocator bookIds, IdAllocator memberIds) throws IOException {
+        byte type = in.readByte();
+        String id = in.readUTF();
+        switch (type) {
+            case ADD_BOOK:
+                books.put(id, new LibrarySystem.Book(id, in.readUTF(), in.readUTF(), in.readInt()));
+                bookIds.observe(id);
+                break;
+            case COPIES: {
+                LibrarySystem.Book b = books.get(id);
+                int copies = in.readInt();
+                if (b != null && copies > b.copies()) b.addCopies(copies - b.copies());
+                break;
+            }
+            case REMOVE_BOOK:
+                books.remove(id);
+                break;
+            case ADD_MEMBER:
+                members.put(id, new LibrarySystem.Member(id, in.readUTF(), in.readUTF()));
+                memberIds.observe(id);
+                break;
+            case REMOVE_MEMBER:
+                members.remove(id);
+                break;
+            case ISSUE: {
+                LibrarySystem.Book b = books.get(id);
+                int copy = in.readInt();
+                String memberId = in.readUTF();
+                String issuedTo = in.readUTF();
+                int day = in.readInt();
+                restore(b, copy, LibrarySystem.Circulation.issued(memberId, issuedTo, day));
+                break;
+            }
+            case RETURN:
+                restore(books.get(id), in.readInt(), LibrarySystem.Circulation.AVAILABLE);
+                break;
+            case HOLD: {
+                LibrarySystem.Book b = books.get(id);
+                String memberId = in.readUTF();
+                if (b != null) b.holdQueue().add(memberId);
+                break;
+            }
+            case HOLD_CANCELLED: {
+                LibrarySystem.Book b = books.get(id);
+                String memberId = in.readUTF();
+                if (b != null && b.holds() != null) b.holds().remove(memberId);
+                break;
+            }
+            case HOLD_FILLED: {
+                LibrarySystem.Book b = books.get(id);
+                int copy = in.readInt();
+                String memberId = in.readUTF();
+                String issuedTo = in.readUTF();
+                int day = in.readInt();
+                restore(b, copy, LibrarySystem.Circulation.issued(memberId, issuedTo, day));
+                if (b != null && b.holds() != null) b.holds().remove(memberId);
+                break;
+            }
+            default:
+                throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    private static void restore(LibrarySystem.Book b, int copy, LibrarySystem.Circulation state) {
+        if (b != null && copy >= 1 && copy <= b.copies()) b.restore(copy, state);
+    }
+
+    // ---- events ----
+
+    void bookAdded(LibrarySystem.Book b) throws IOException {
+        append(added(b));
+    }
+
+    /** Logs a batch of new books as one group commit: one buffer append and at most one force. */
+    void booksAdded(Collection<LibrarySystem.Book> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        CRC32 crc = new CRC32();
+        for (LibrarySystem.Book b : batch) {
+            byte[] record = added(b);
+            crc.reset();
+            crc.update(record);
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        }
+        appendFramed(bytes.toByteArray());
+    }
+
+    private static byte[] added(LibrarySystem.Book b) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ADD_BOOK);
+        out.writeUTF(b.id);
+        out.writeUTF(b.title);
+        out.writeUTF(b.author);
+        out.writeInt(b.copies());
+        return bytes.toByteArray();
+    }
+
+    /** Logs the new number of copies, not the number added, so replaying it twice is harmless. */
+    void copiesAdded(String bookId, int copies) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(COPIES);
+        out.writeUTF(bookId);
+        out.writeInt(copies);
+        append(bytes.toByteArray());
+    }
+
+    void bookRemoved(String bookId) throws IOException {
+        append(REMOVE_BOOK, bookId);
+    }
+
+    void memberAdded(LibrarySystem.Member m) throws IOException {
+        append(ADD_MEMBER, m.id, m.name, m.email);
+    }
+
+    void memberRemoved(String memberId) throws IOException {
+        append(REMOVE_MEMBER, memberId);
+    }
+
+    void bookIssued(String bookId, int copy, String memberId, String issuedTo, int issueDay) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ISSUE);
+        out.writeUTF(bookId);
+        out.writeInt(copy);
+        out.writeUTF(memberId);
+        out.writeUTF(issuedTo);
+        out.writeInt(issueDay);
+        append(bytes.toByteArray());
+    }
+
+    void bookReturned(String bookId, int copy) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RETURN);
+        out.writeUTF(bookId);
+        out.writeInt(copy);
+        append(bytes.toByteArray());
+    }
+
+    void holdPlaced(String bookId, String memberId) throws IOException {
+        append(HOLD, bookId, memberId);
+    }
+
+    void holdCancelled(String bookId, String memberId) throws IOException {
+        append(HOLD_CANCELLED, bookId, memberId);
+    }
+
+    /** A copy going straight from the shelf or a return to the member at the front of the hold list. */
+    void holdFilled(String bookId, int copy, String memberId, String issuedTo, int issueDay) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(HOLD_FILLED);
+        out.writeUTF(bookId);
+        out.writeInt(copy);
+        out.writeUTF(memberId);
+        out.writeUTF(issuedTo);
+        out.writeInt(issueDay);
+        append(bytes.toByteArray());
+    }
+
+    private void append(byte type, String... fields) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        for (String f : fields) out.writeUTF(f);
+        append(bytes.toByteArray());
+    }
+
+    private void append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer framed = ByteBuffer.allocate(payload.length + 8);
+        framed.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        appendFramed(framed.array());
+    }
+
+    /** Appends already framed records and commits them per the fsync policy. */
+    private void appendFramed(byte[] framed) throws IOException {
+        long seq;
+        boolean flushNow;
+        synchronized (bufferLock) {
+            if (closed) throw new IOException("Library store is closed");
+            if (pending.remaining() < framed.length) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + framed.length));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+            pending.put(framed);
+            seq = ++appendedSeq;
+            sinceCheckpoint += framed.length;
+            flushNow = pending.position() >= FLUSH_THRESHOLD;
+        }
+        if (policy == FsyncPolicy.EVERY_COMMIT) commit(seq, true);
+        else if (flushNow) commit(seq, false);
+    }
+
+    /** Writes everything buffered up to at least {@code seq}, forcing it to disk if asked. */
+    private void commit(long seq, boolean force) throws IOException {
+        synchronized (ioLock) {
+            if (failure != null) throw failure;
+            if (log == null || syncedSeq >= seq) return;
+            long upTo;
+            synchronized (bufferLock) {
+                ByteBuffer t = draining;
+                draining = pending;
+                pending = t;
+                upTo = appendedSeq;
+            }
+            try {
+                draining.flip();
+                while (draining.hasRemaining()) log.write(draining);
+                draining.clear();
+                if (force) {
+                    log.force(false);
+                    syncedSeq = upTo;
+                }
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    private void backgroundFlush() {
+        long seq;
+        synchronized (bufferLock) {
+            seq = appendedSeq;
+        }
+        try {
+            commit(seq, policy == FsyncPolicy.INTERVAL);
+        } catch (IOException e) {
+            System.out.println("Error writing library log: " + e.getMessage());
+        }
+    }
+
+    /** Writes and forces everything appended so far. */
+    void flush() throws IOException {
+        long seq;
+        synchronized (bufferLock) {
+            seq = appendedSeq;
+        }
+        commit(seq, true);
+    }
+
+    // ---- snapshots ----
+
+    boolean checkpointDue() {
+        synchronized (bufferLock) {
+            return (checkpointBytes > 0 && sinceCheckpoint >= checkpointBytes)
+                    || (checkpointNanos > 0 && sinceCheckpoint > 0 && System.nanoTime() - checkpointedAt >= checkpointNanos);
+        }
+    }
+
+    /**
+     * Snapshots the given state and drops the log segments it covers, for a
+     * caller that nothing else can change the state under.
+     */
+    void checkpoint(Collection<LibrarySystem.Book> books, Collection<LibrarySystem.Member> members,
+                    long nextBookNumber, long nextMemberNumber) throws IOException {
+        finishCheckpoint(beginCheckpoint(books, members, nextBookNumber, nextMemberNumber));
+    }
+
+    /**
+     * First half of a checkpoint, for while no change can be logged or
+     * applied: forces the log, rolls it to a fresh segment and takes a cut of
+     * the given state, which must reflect every event appended so far, with
+     * the next book and member numbers its ID allocators will hand out.
+     * Copies references only, so changes need to wait for a moment, not for
+     * the snapshot to be written.
+     */
+    SnapshotFile.Cut beginCheckpoint(Collection<LibrarySystem.Book> books, Collection<LibrarySystem.Member> members,
+                                     long nextBookNumber, long nextMemberNumber) throws IOException {
+        long first;
+        synchronized (ioLock) {
+            flush();
+            log.close();
+            openSegment(first = segment + 1);
+            synchronized (bufferLock) {
+                sinceCheckpoint = 0;
+                checkpointedAt = System.nanoTime();
+            }
+        }
+        return SnapshotFile.Cut.take(first, books, members, nextBookNumber, nextMemberNumber);
+    }
+
+    /**
+     * Second half, while changes carry on into the new segment: writes the
+     * cut as the snapshot, then deletes the segments it covers. Until the
+     * rename the previous snapshot and every segment since it still stand,
+     * so a crash part way loses nothing.
+     */
+    void finishCheckpoint(SnapshotFile.Cut cut) throws IOException {
+        Path tmp = dir.resolve("snapshot.tmp");
+        SnapshotFile.write(tmp, cut);
+        Files.move(tmp, dir.resolve("snapshot.dat"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long seg : segments())
+            if (seg < cut.firstSegment) Files.deleteIfExists(segmentPath(seg));
+    }
+
+    /** Returns the first log segment not covered by the snapshot, or 0 if there is none. */
+    private long readSnapshot(Map<String, LibrarySystem.Book> books, Map<String, LibrarySystem.Member> members,
+                              IdAllocator bookIds, IdAllocator memberIds) throws IOException {
+        Path file = dir.resolve("snapshot.dat");
+        if (!Files.exists(file)) return 0;
+        SnapshotFile snapshot = SnapshotFile.open(file);
+        LibrarySystem.Book[] byIndex = new LibrarySystem.Book[snapshot.bookCount()];
+        for (int i = 0; i < byIndex.length; i++) {
+            LibrarySystem.Book b = byIndex[i] = snapshot.book(i);
+            books.put(b.id, b);
+        }
+        for (int h = 0, n = snapshot.holdCount(); h < n; h++)
+            byIndex[snapshot.holdBook(h)].holdQueue().add(snapshot.holdMember(h));
+        for (int i = 0, n = snapshot.memberCount(); i < n; i++) {
+            LibrarySystem.Member m = snapshot.member(i);
+            members.put(m.id, m);
+        }
+        bookIds.advanceTo(snapshot.nextBookNumber());
+        memberIds.advanceTo(snapshot.nextMemberNumber());
+        return snapshot.firstSegment();
+    }
+
+    // ---- segments ----
+
+    private void openSegment(long n) throws IOException {
+        segment = n;
+        log = FileChannel.open(segmentPath(n), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long n) {
+        return dir.resolve(String.format("wal-%08d.log", n));
+    }
+
+    private long[] segments() throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "wal-*.log")) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                try {
+                    found.add(Long.parseLong(name.substring(4, name.length() - 4)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return found.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (bufferLock) {
+            if (closed) return;
+            closed = true;
+        }
+        if (flusher != null) flusher.shutdown();
+        synchronized (ioLock) {
+            if (log == null) return;
+            flush();
+            log.close();
+            log = null;
+        }
+    }
+}
@@ -0,0 +1,951 @@
+package javaproj;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableModel;
+public class LibrarySystem extends JFrame {
+
+    /** A title in the catalog and its copies, numbered from 1 (see {@link Holdings}). */
+    static class Book {
+        String id, title, author;
+        private volatile Holdings holdings;
+        private volatile HoldQueue holds;
+
+        Book(String id, String title, String author) {
+            this(id, title, author, 1);
+        }
+
+        Book(String id, String title, String author, int copies) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+            this.holdings = new Holdings(copies);
+        }
+
+        int copies() { return holdings.copies(); }
+        int available() { return holdings.available(); }
+        Circulation circulation(int copy) { return holdings.state(copy); }
+        boolean isRemoved() { return holdings.state(1).removed; }
+
+        /** Claims a free copy for issuing; returns its number, or 0 if all are out. */
+        int claimCopy() { return holdings.claim(); }
+
+        /** Atomically moves a copy from {@code expected} to {@code next}; false if someone got there first. */
+        boolean transition(int copy, Circulation expected, Circulation next) {
+            return holdings.transition(copy, expected, next);
+        }
+
+        /** Sets a copy's state outright, for a book nobody else can be changing. */
+        void restore(int copy, Circulation state) {
+            holdings.restore(copy, state);
+        }
+
+        /** Gives back a copy claimed by {@link #claimCopy} without changing its state. */
+        void releaseCopy(int copy) {
+            holdings.release(copy);
+        }
+
+        /** Adds available copies; no copy may be claimed or changing meanwhile. */
+        void addCopies(int more) {
+            holdings = holdings.grow(more);
+        }
+
+        /** The title's hold queue, or null if nobody has placed a hold on it yet. */
+        HoldQueue holds() { return holds; }
+
+        /** The title's hold queue, created by the first hold. */
+        HoldQueue holdQueue() {
+            HoldQueue q = holds;
+            if (q == null) {
+                synchronized (this) {
+                    q = holds;
+                    if (q == null) holds = q = new HoldQueue();
+                }
+            }
+            return q;
+        }
+
+        int holdsWaiting() {
+            HoldQueue q = holds;
+            return q == null ? 0 : q.waiting();
+        }
+    }
+
+    /**
+     * Immutable circulation state of one copy of a book. Issue and return
+     * swap a whole new state in with a compare-and-set, so two terminals
+     * racing for the same copy cannot both win and readers never see a
+     * half-issued copy. The version counts committed changes. A loan keeps
+     * the borrower's member ID, and their name as it was when issued for
+     * display; a loan made from a name alone has an empty ID.
+     *
+     * While a change is being written to the log the copy holds a busy copy
+     * of its previous state: readers still see the committed values, but no
+     * other issue, return or removal can start until the owner either
+     * commits the new state or puts the old one back.
+     */
+    static final class Circulation {
+        static final Circulation AVAILABLE = new Circulation(0, false, "", "", Dates.NO_DAY, false, false);
+
+        final long version;
+        final boolean issued;
+        final String memberId;
+        final String issuedTo;
+        /** Local epoch day the book was issued, or {@link Dates#NO_DAY}. */
+        final int issueDay;
+        final boolean busy;
+        final boolean removed;
+
+        private Circulation(long version, boolean issued, String memberId, String issuedTo, int issueDay,
+                            boolean busy, boolean removed) {
+            this.version = version;
+            this.issued = issued;
+            this.memberId = memberId;
+            this.issuedTo = issuedTo;
+            this.issueDay = issueDay;
+            this.busy = busy;
+            this.removed = removed;
+        }
+
+        static Circulation issued(String memberId, String issuedTo, int issueDay) {
+            return new Circulation(0, true, memberId, issuedTo, issueDay, false, false);
+        }
+
+        /** A loan to a borrower known only by name, with no member ID. */
+        static Circulation issued(String issuedTo, int issueDay) {
+            return issued("", issuedTo, issueDay);
+        }
+
+        /** Epoch day the loan is due back; fines start the day after. */
+        int dueDay() { return issueDay + LibraryService.LOAN_DAYS; }
+
+        Circulation busy() { return new Circulation(version, issued, memberId, issuedTo, issueDay, true, removed); }
+        Circulation issue(Member to, int day) { return new Circulation(version + 1, true, to.id, to.name, day, false, false); }
+        Circulation returned() { return new Circulation(version + 1, false, "", "", Dates.NO_DAY, false, false); }
+        Circulation remove() { return new Circulation(version + 1, issued, memberId, issuedTo, issueDay, false, true); }
+    }
+
+    static class Member {
+        String id, name, email;
+        Member(String id, String name, String email) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+        }
+    }
+
+    /**
+     * Table model that reads straight from the books list instead of copying
+     * every row into a DefaultTableModel, one row per title. Status, date and
+     * fine cells are computed when the table asks for them, over the title's
+     * loaned copies, so only visible rows pay for it, and mutations fire
+     * events for the touched row alone. The model can also show just a
+     * search result instead of the whole catalog.
+     */
+    static class BookTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {
+                "Book ID", "Title", "Author", "Status", "Issued To", "Issue Date", "Fine (₹)"
+        };
+        private final List<Book> books;
+        private List<Book> rows;
+
+        BookTableModel(List<Book> books) {
+            this.books = books;
+            this.rows = books;
+        }
+
+        @Override
+        public int getRowCount() { return rows.size(); }
+
+        @Override
+        public int getColumnCount() { return COLUMNS.length; }
+
+        @Override
+        public String getColumnName(int column) { return COLUMNS[column]; }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 6 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Book b = rows.get(row);
+            switch (column) {
+                case 0: return b.id;
+                case 1: return b.title;
+                case 2: return b.author;
+                case 3: return status(b);
+                case 4: return borrowers(b);
+                case 5: return firstIssueDate(b);
+                case 6: return fines(b);
+                default: return null;
+            }
+        }
+
+        private static String status(Book b) {
+            int available = b.available();
+            if (b.copies() == 1) return available == 1 ? "Available" : "Issued";
+            return available + " of " + b.copies() + " available";
+        }
+
+        /** Who has the copies on loan; the first few names, then a count. */
+        private static String borrowers(Book b) {
+            StringBuilder sb = new StringBuilder();
+            int shown = 0, more = 0;
+            for (int copy = 1; copy <= b.copies(); copy++) {
+                Circulation c = b.circulation(copy);
+                if (!c.issued) continue;
+                if (shown == 3) {
+                    more++;
+                    continue;
+                }
+                if (shown++ > 0) sb.append(", ");
+                sb.append(c.issuedTo);
+            }
+            if (more > 0) sb.append(" +").append(more);
+            return shown == 0 ? "-" : sb.toString();
+        }
+
+        private static String firstIssueDate(Book b) {
+            int first = Integer.MAX_VALUE;
+            for (int copy = 1; copy <= b.copies(); copy++) {
+                Circulation c = b.circulation(copy);
+                if (c.issued) first = Math.min(first, c.issueDay);
+            }
+            return first == Integer.MAX_VALUE ? "-" : Dates.format(first);
+        }
+
+        private static long fines(Book b) {
+            long total = 0;
+            for (int copy = 1; copy <= b.copies(); copy++) total += LibraryService.fine(b.circulation(copy));
+            return total;
+        }
+
+        Book bookAt(int row) { return rows.get(row); }
+        boolean isFiltered() { return rows != books; }
+
+        void showAll() {
+            rows = books;
+            fireTableDataChanged();
+        }
+
+        void showOnly(List<Book> result) {
+            rows = result;
+            fireTableDataChanged();
+        }
+
+        void load(List<Book> catalog) {
+            books.clear();
+            books.addAll(catalog);
+            showAll();
+        }
+
+        void bookAdded(Book b) {
+            books.add(b);
+            if (!isFiltered()) fireTableRowsInserted(books.size() - 1, books.size() - 1);
+        }
+
+        /** Replaces the shown copy of a book; {@code hint} is the row it was last seen at. */
+        void bookChanged(Book updated, int hint) {
+            if (isFiltered()) {
+                int at = indexOf(books, updated.id, -1);
+                if (at >= 0) books.set(at, updated);
+            }
+            int row = indexOf(rows, updated.id, hint);
+            if (row < 0) return;
+            rows.set(row, updated);
+            fireTableRowsUpdated(row, row);
+        }
+
+        void bookRemoved(String id, int hint) {
+            if (isFiltered()) {
+                int at = indexOf(books, id, -1);
+                if (at >= 0) books.remove(at);
+            }
+            int row = indexOf(rows, id, hint);
+            if (row < 0) return;
+            rows.remove(row);
+            fireTableRowsDeleted(row, row);
+        }
+
+        private static int indexOf(List<Book> list, String id, int hint) {
+            if (hint >= 0 && hint < list.size() && list.get(hint).id.equals(id)) return hint;
+            for (int i = 0; i < list.size(); i++)
+                if (list.get(i).id.equals(id)) return i;
+            return -1;
+        }
+    }
+
+    /**
+     * The catalog lives in {@link LibraryService}; the frame keeps copies of
+     * the rows it shows and only ever touches them on the event thread.
+     * Service results are handed back through {@link #EDT}.
+     */
+    static final Executor EDT = SwingUtilities::invokeLater;
+
+    final LibraryService service = new LibraryService();
+    final ArrayList<Book> books = new ArrayList<>();
+    JTable bookTable, memberTable;
+    BookTableModel bookModel;
+    DefaultTableModel memberModel;
+    JTextArea statsArea;
+    JLabel statusLabel;
+    JTextField issueField, returnField, searchField;
+    JLabel fineResult;
+
+    static final int STATS_PAGE = 200;
+    /** Most events the history dialog lists. */
+    static final int HISTORY_ROWS = 1000;
+
+    public LibrarySystem() {
+        setTitle("Library Management System");
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setSize(1000, 620);
+        setLocationRelativeTo(null);
+
+        setJMenuBar(createMenuBar());
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.add("Books", createBookPanel());
+        tabs.add("Members", createMemberPanel());
+        tabs.add("Fine Calculator", createFineCalcPanel());
+        tabs.add("Statistics", createStatsPanel());
+        add(tabs, BorderLayout.CENTER);
+
+        statusLabel = new JLabel("Welcome to Library Management System");
+        statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        loadCatalog();
+
+        JOptionPane.showMessageDialog(this,
+                "Welcome to the Library Management System!\nYou can add, issue, return, and calculate fines.",
+                "Library Project", JOptionPane.INFORMATION_MESSAGE);
+
+        setVisible(true);
+    }
+
+    private JMenuBar createMenuBar() {
+        JMenuBar bar = new JMenuBar();
+
+        JMenu actions = new JMenu("Actions");
+        JMenuItem issue = new JMenuItem("Issue Book");
+        JMenuItem ret = new JMenuItem("Return Book");
+        JMenuItem calc = new JMenuItem("Fine Calculator");
+        JMenuItem history = new JMenuItem("Circulation History...");
+        JMenuItem exit = new JMenuItem("Exit");
+
+        issue.addActionListener(e -> issueBook());
+        ret.addActionListener(e -> returnBook());
+        calc.addActionListener(e -> showFineTab());
+        history.addActionListener(e -> showHistory());
+        exit.addActionListener(e -> System.exit(0));
+
+        actions.add(issue);
+        actions.add(ret);
+        actions.add(calc);
+        actions.add(history);
+        actions.addSeparator();
+        actions.add(exit);
+
+        JMenu manage = new JMenu("Manage");
+        JMenuItem addBook = new JMenuItem("Add Book");
+        JMenuItem addMember = new JMenuItem("Add Member");
+        JMenuItem importItem = new JMenuItem("Import Catalog...");
+        JMenuItem export = new JMenuItem("Export Catalog...");
+
+        addBook.addActionListener(e -> addBook());
+        addMember.addActionListener(e -> addMember());
+        importItem.addActionListener(e -> importCatalog());
+        export.addActionListener(e -> exportCatalog());
+
+        manage.add(addBook);
+        manage.add(addMember);
+        manage.addSeparator();
+        manage.add(importItem);
+        manage.add(export);
+
+        bar.add(actions);
+        bar.add(manage);
+
+        return bar;
+    }
+
+    private JPanel createBookPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        bookModel = new BookTableModel(books);
+        bookTable = new JTable(bookModel);
+        panel.add(new JScrollPane(bookTable), BorderLayout.CENTER);
+
+        JPanel search = new JPanel(new BorderLayout(6, 0));
+        searchField = new JTextField();
+        searchField.setToolTipText("Words must all match; use OR for alternatives and * for prefixes");
+        JButton find = new JButton("Search");
+        JButton clear = new JButton("Clear");
+
+        searchField.addActionListener(e -> searchBooks());
+        find.addActionListener(e -> searchBooks());
+        clear.addActionListener(e -> {
+            searchField.setText("");
+            searchBooks();
+        });
+
+        JPanel searchButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 0));
+        searchButtons.add(find);
+        searchButtons.add(clear);
+        search.add(new JLabel("Search:"), BorderLayout.WEST);
+        search.add(searchField, BorderLayout.CENTER);
+        search.add(searchButtons, BorderLayout.EAST);
+        search.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        panel.add(search, BorderLayout.NORTH);
+
+        JPanel buttons = new JPanel();
+        JButton add = new JButton("Add Book");
+        JButton copies = new JButton("Add Copies");
+        JButton remove = new JButton("Remove Book");
+        JButton issue = new JButton("Issue");
+        JButton ret = new JButton("Return");
+        JButton refresh = new JButton("Refresh");
+
+        add.addActionListener(e -> addBook());
+        copies.addActionListener(e -> addCopies());
+        remove.addActionListener(e -> removeBook());
+        issue.addActionListener(e -> issueBook());
+        ret.addActionListener(e -> returnBook());
+        refresh.addActionListener(e -> refreshBooks());
+
+        buttons.add(add);
+        buttons.add(copies);
+        buttons.add(remove);
+        buttons.add(issue);
+        buttons.add(ret);
+        buttons.add(refresh);
+
+        panel.add(buttons, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createMemberPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        memberModel = new DefaultTableModel(new String[]{"Member ID", "Name", "Email"}, 0);
+        memberTable = new JTable(memberModel);
+        panel.add(new JScrollPane(memberTable), BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel();
+        JButton add = new JButton("Add Member");
+        JButton remove = new JButton("Remove");
+        JButton loans = new JButton("Loans");
+        JButton refresh = new JButton("Refresh");
+
+        add.addActionListener(e -> addMember());
+        remove.addActionListener(e -> removeMember());
+        loans.addActionListener(e -> showMemberLoans());
+        refresh.addActionListener(e -> refreshMembers());
+        memberTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) showMemberLoans();
+            }
+        });
+
+        buttons.add(add);
+        buttons.add(remove);
+        buttons.add(loans);
+        buttons.add(refresh);
+
+        panel.add(buttons, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createFineCalcPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(8, 8, 8, 8);
+        c.fill = GridBagConstraints.HORIZONTAL;
+
+        JLabel issueLbl = new JLabel("Issue Date (dd-MM-yyyy):");
+        JLabel returnLbl = new JLabel("Return Date (dd-MM-yyyy):");
+        issueField = new JTextField("01-01-2025");
+        returnField = new JTextField("10-01-2025");
+        JButton calcBtn = new JButton("Calculate Fine");
+        fineResult = new JLabel("Fine: ₹0");
+
+        calcBtn.addActionListener(e -> calculateManualFine());
+
+        c.gridx = 0; c.gridy = 0; panel.add(issueLbl, c);
+        c.gridx = 1; panel.add(issueField, c);
+        c.gridx = 0; c.gridy = 1; panel.add(returnLbl, c);
+        c.gridx = 1; panel.add(returnField, c);
+        c.gridx = 0; c.gridy = 2; c.gridwidth = 2; panel.add(calcBtn, c);
+        c.gridy = 3; panel.add(fineResult, c);
+
+        panel.setBorder(BorderFactory.createTitledBorder("Fine Calculator"));
+        return panel;
+    }
+
+    private JPanel createStatsPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        statsArea = new JTextArea();
+        statsArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        statsArea.setEditable(false);
+
+        JButton refresh = new JButton("Update Stats");
+        refresh.addActionListener(e -> {
+            updateStats();
+            showStatus("Stats updated");
+        });
+
+        // Stats come from live counters and one page of loans, so polling is cheap.
+        new javax.swing.Timer(1000, e -> {
+            if (statsArea.isShowing()) updateStats();
+        }).start();
+
+        panel.add(new JScrollPane(statsArea), BorderLayout.CENTER);
+        panel.add(refresh, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void addBook() {
+        String title = JOptionPane.showInputDialog("Enter Book Title:");
+        if (title == null || title.trim().isEmpty()) return;
+        String author = JOptionPane.showInputDialog("Enter Author Name:");
+        if (author == null || author.trim().isEmpty()) return;
+        Integer copies = askCopies("Number of copies:");
+        if (copies == null) return;
+
+        whenDone(service.addBook(title, author, copies), b -> {
+            bookModel.bookAdded(b);
+            showStatus("Added Book: " + b.title + (copies > 1 ? " (" + copies + " copies)" : ""));
+        });
+    }
+
+    private void addCopies() {
+        int row = bookTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Select a book first!");
+            return;
+        }
+        Book b = bookModel.bookAt(row);
+        Integer more = askCopies("Copies of \"" + b.title + "\" to add:");
+        if (more == null) return;
+        whenDone(service.addCopies(b.id, more), updated -> {
+            bookModel.bookChanged(updated, row);
+            showStatus(updated.title + " now has " + updated.copies() + " copies");
+        });
+    }
+
+    /** Asks for a number of copies; null if cancelled or not a positive number. */
+    private Integer askCopies(String prompt) {
+        String input = JOptionPane.showInputDialog(this, prompt, "1");
+        if (input == null) return null;
+        try {
+            int copies = Integer.parseInt(input.trim());
+            if (copies > 0) return copies;
+        } catch (NumberFormatException ignored) {
+        }
+        JOptionPane.showMessageDialog(this, "Enter a whole number of copies, 1 or more.");
+        return null;
+    }
+
+    private void issueBook() {
+        int row = bookTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Select a book first!");
+            return;
+        }
+
+        Book b = bookModel.bookAt(row);
+        if (b.available() == 0) {
+            placeHold(b, row);
+            return;
+        }
+
+        String memId = JOptionPane.showInputDialog("Enter Member ID:");
+        if (memId == null) return;
+        whenDone(service.issueBook(b.id, memId), receipt -> {
+            bookModel.bookChanged(receipt.book, row);
+            String copy = receipt.book.copies() > 1 ? "copy " + receipt.copy + " of " : "";
+            showStatus("Issued " + copy + "\"" + receipt.book.title + "\" to "
+                    + receipt.book.circulation(receipt.copy).issuedTo);
+        });
+    }
+
+    /** Offers a member a place on the hold list of a book with no copy free. */
+    private void placeHold(Book b, int row) {
+        int confirm = JOptionPane.showConfirmDialog(this,
+                (b.copies() == 1 ? "Book already issued!" : "No copy available!") + "\nPlace a hold on \"" + b.title + "\"?",
+                "Place Hold", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) return;
+        String memId = JOptionPane.showInputDialog("Enter Member ID:");
+        if (memId == null) return;
+        whenDone(service.placeHold(b.id, memId), position -> {
+            if (position == 0) {
+                showStatus("A copy of \"" + b.title + "\" came back and was issued to " + memId);
+                refreshBooks();
+            } else {
+                showStatus(memId + " is number " + position + " on the hold list for \"" + b.title + "\"");
+            }
+        });
+    }
+
+    private void returnBook() {
+        int row = bookTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Select a book first!");
+            return;
+        }
+
+        Book b = bookModel.bookAt(row);
+        List<Integer> out = new ArrayList<>();
+        List<String> choices = new ArrayList<>();
+        for (int copy = 1; copy <= b.copies(); copy++) {
+            Circulation c = b.circulation(copy);
+            if (!c.issued) continue;
+            out.add(copy);
+            choices.add("Copy " + copy + " - " + c.issuedTo + ", issued " + Dates.format(c.issueDay));
+        }
+        if (out.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Book not issued!");
+            return;
+        }
+        int copy = out.get(0);
+        if (out.size() > 1) {
+            Object choice = JOptionPane.showInputDialog(this, "Which copy is being returned?", "Return Book",
+                    JOptionPane.QUESTION_MESSAGE, null, choices.toArray(), choices.get(0));
+            if (choice == null) return;
+            copy = out.get(choices.indexOf(choice));
+        }
+
+        whenDone(service.returnBook(b.id, copy), receipt -> {
+            bookModel.bookChanged(receipt.book, row);
+            JOptionPane.showMessageDialog(this,
+                    "Book: " + receipt.book.title + (receipt.book.copies() > 1 ? " (copy " + receipt.copy + ")" : "")
+                            + "\nIssued to: " + receipt.issuedTo +
+                            "\nFine Due: ₹" + receipt.fine
+                            + (receipt.heldFor != null ? "\n\nOn hold - now issued to: " + receipt.heldFor : ""),
+                    "Return Summary", JOptionPane.INFORMATION_MESSAGE);
+            showStatus("Returned Book. Fine ₹" + receipt.fine);
+        });
+    }
+
+    private void removeBook() {
+        int row = bookTable.getSelectedRow();
+        if (row == -1) return;
+        Book b = bookModel.bookAt(row);
+        int confirm = JOptionPane.showConfirmDialog(this, "Remove \"" + b.title + "\"?");
+        if (confirm != JOptionPane.YES_OPTION) return;
+        whenDone(service.removeBook(b.id), removed -> bookModel.bookRemoved(removed.id, row));
+    }
+
+    private void addMember() {
+        String name = JOptionPane.showInputDialog("Enter Member Name:");
+        if (name == null || name.trim().isEmpty()) return;
+        String email = JOptionPane.showInputDialog("Enter Email:");
+        if (email == null || email.trim().isEmpty()) return;
+
+        whenDone(service.addMember(name, email), m -> {
+            memberModel.addRow(new Object[]{m.id, m.name, m.email});
+            showStatus("Added Member: " + m.name);
+        });
+    }
+
+    private void removeMember() {
+        int row = memberTable.getSelectedRow();
+        if (row == -1) return;
+        String id = (String) memberModel.getValueAt(row, 0);
+        int c = JOptionPane.showConfirmDialog(this, "Remove member " + memberModel.getValueAt(row, 1) + "?");
+        if (c != JOptionPane.YES_OPTION) return;
+        whenDone(service.removeMember(id), removed -> {
+            for (int i = 0; i < memberModel.getRowCount(); i++) {
+                if (id.equals(memberModel.getValueAt(i, 0))) {
+                    memberModel.removeRow(i);
+                    break;
+                }
+            }
+        });
+    }
+
+    /** Lists what the selected member has out, with today's fine on each. */
+    private void showMemberLoans() {
+        int row = memberTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Select a member first!");
+            return;
+        }
+        String id = (String) memberModel.getValueAt(row, 0);
+        String name = (String) memberModel.getValueAt(row, 1);
+        whenDone(service.memberLoans(id), loans -> {
+            if (loans.isEmpty()) {
+                JOptionPane.showMessageDialog(this, name + " has no books on loan.", "Loans", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            DefaultTableModel model = new DefaultTableModel(
+                    new String[]{"Book ID", "Title", "Copy", "Issued", "Due", "Fine (₹)"}, 0);
+            long total = 0;
+            for (LibraryService.Loan l : loans) {
+                long fine = LibraryService.fine(l.state);
+                total += fine;
+                model.addRow(new Object[]{l.bookId, l.title, l.copy, Dates.format(l.state.issueDay),
+                        Dates.format(l.state.dueDay()), fine});
+            }
+            JTable table = new JTable(model);
+            table.setPreferredScrollableViewportSize(new Dimension(560, Math.min(12, loans.size()) * table.getRowHeight()));
+            JPanel panel = new JPanel(new BorderLayout(0, 6));
+            panel.add(new JScrollPane(table), BorderLayout.CENTER);
+            panel.add(new JLabel(loans.size() + " book(s) on loan, fines owed today: ₹" + total), BorderLayout.SOUTH);
+            JOptionPane.showMessageDialog(this, panel, "Loans - " + name + " (" + id + ")", JOptionPane.PLAIN_MESSAGE);
+        });
+    }
+
+    /**
+     * Asks for a date range and optional book, member and kind of event,
+     * then lists the matching issues and returns. The book and member are
+     * filled in from the rows selected in their tables.
+     */
+    private void showHistory() {
+        int today = Dates.today();
+        JTextField from = new JTextField(Dates.format(today - 30), 10);
+        JTextField to = new JTextField(Dates.format(today), 10);
+        JComboBox<String> type = new JComboBox<>(new String[]{"Issues and returns", "Issues", "Returns"});
+        int bookRow = bookTable.getSelectedRow(), memberRow = memberTable.getSelectedRow();
+        JTextField book = new JTextField(bookRow == -1 ? "" : bookModel.bookAt(bookRow).id, 10);
+        JTextField member = new JTextField(memberRow == -1 ? "" : (String) memberModel.getValueAt(memberRow, 0), 10);
+        JPanel form = new JPanel(new GridLayout(5, 2, 6, 6));
+        form.add(new JLabel("From (dd-MM-yyyy):"));
+        form.add(from);
+        form.add(new JLabel("To (dd-MM-yyyy):"));
+        form.add(to);
+        form.add(new JLabel("Show:"));
+        form.add(type);
+        form.add(new JLabel("Book ID (blank for all):"));
+        form.add(book);
+        form.add(new JLabel("Member ID (blank for all):"));
+        form.add(member);
+        if (JOptionPane.showConfirmDialog(this, form, "Circulation History", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return;
+
+        int fromDay, toDay;
+        try {
+            fromDay = Dates.parse(from.getText().trim());
+            toDay = Dates.parse(to.getText().trim());
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Invalid date format! Use dd-MM-yyyy");
+            return;
+        }
+        CirculationHistory.Kind kind = type.getSelectedIndex() == 1 ? CirculationHistory.Kind.ISSUE
+                : type.getSelectedIndex() == 2 ? CirculationHistory.Kind.RETURN : null;
+        String bookId = book.getText().trim(), memberId = member.getText().trim();
+        showStatus("Searching circulation history...");
+        whenDone(service.circulationHistory(fromDay, toDay, kind, bookId.isEmpty() ? null : bookId,
+                memberId.isEmpty() ? null : memberId, HISTORY_ROWS), events -> {
+            showStatus(events.size() + (events.size() == HISTORY_ROWS ? "+" : "") + " event(s) found");
+            if (events.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No issues or returns match.", "Circulation History",
+                        JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            DefaultTableModel model = new DefaultTableModel(
+                    new String[]{"Date", "Time", "Event", "Book ID", "Copy", "Member ID", "Fine (₹)"}, 0);
+            for (CirculationHistory.Event e : events) {
+                LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(e.millis), ZoneId.systemDefault());
+                boolean issue = e.kind == CirculationHistory.Kind.ISSUE;
+                model.addRow(new Object[]{Dates.format(Dates.epochDay(e.millis)), at.toLocalTime().withNano(0),
+                        issue ? "Issue" : "Return", e.bookId, e.copy, e.memberId, issue ? "" : e.fine});
+            }
+            JTable table = new JTable(model);
+            table.setPreferredScrollableViewportSize(new Dimension(640, Math.min(16, events.size()) * table.getRowHeight()));
+            JPanel panel = new JPanel(new BorderLayout(0, 6));
+            panel.add(new JScrollPane(table), BorderLayout.CENTER);
+            if (events.size() == HISTORY_ROWS)
+                panel.add(new JLabel("Showing the first " + HISTORY_ROWS + " events; narrow the search to see the rest."),
+                        BorderLayout.SOUTH);
+            JOptionPane.showMessageDialog(this, panel, "Circulation History", JOptionPane.PLAIN_MESSAGE);
+        });
+    }
+
+    /** Imports a catalog file, showing progress in the status bar and the report when done. */
+    private void importCatalog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Catalog (.csv or .mrk, optionally .gz)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        showStatus("Importing " + file.getName() + "...");
+        whenDone(service.importBooks(file.toPath(),
+                progress -> EDT.execute(() -> showStatus(progress.toString()))), report -> {
+            showStatus(report.toString());
+            StringBuilder sb = new StringBuilder(report.toString());
+            if (!report.errors.isEmpty()) {
+                sb.append("\n\nRejected records");
+                if (report.rejected > report.errors.size()) sb.append(" (first ").append(report.errors.size()).append(")");
+                sb.append(":\n");
+                for (String error : report.errors) sb.append(error).append("\n");
+            }
+            JTextArea text = new JTextArea(sb.toString(), Math.min(20, 3 + report.errors.size()), 60);
+            text.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(text), "Import Catalog", JOptionPane.INFORMATION_MESSAGE);
+            refreshBooks();
+            updateStats();
+        });
+    }
+
+    private void exportCatalog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Catalog (.csv or .jsonl, add .gz to compress)");
+        chooser.setSelectedFile(new File("catalog.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        showStatus("Exporting catalog...");
+        whenDone(service.exportBooks(file.toPath()),
+                count -> showStatus("Exported " + count + " book(s) to " + file.getName()));
+    }
+
+    private void searchBooks() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            bookModel.showAll();
+            showStatus("Showing all books");
+            return;
+        }
+        whenDone(service.search(query), result -> {
+            bookModel.showOnly(result);
+            showStatus(result.size() + " book(s) match \"" + query + "\"");
+        });
+    }
+
+    /** Opens the service's store, then fills both tables from it. */
+    private void loadCatalog() {
+        showStatus("Loading catalog...");
+        whenDone(service.open(), warning -> {
+            if (warning != null)
+                JOptionPane.showMessageDialog(this, warning, "Storage Error", JOptionPane.ERROR_MESSAGE);
+            refreshBooks();
+            refreshMembers();
+            showStatus("Welcome to Library Management System");
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeService, "library-store-close"));
+    }
+
+    /**
+     * Runs {@code then} on the event thread once {@code op} succeeds, or shows
+     * why it failed.
+     */
+    private <T> void whenDone(CompletableFuture<T> op, Consumer<T> then) {
+        op.whenCompleteAsync((result, error) -> {
+            if (error == null) then.accept(result);
+            else showError(error);
+        }, EDT);
+    }
+
+    private void showError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UncheckedIOException)
+            JOptionPane.showMessageDialog(this, cause.getMessage(), "Storage Error", JOptionPane.ERROR_MESSAGE);
+        else if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException)
+            JOptionPane.showMessageDialog(this, cause.getMessage());
+        else
+            JOptionPane.showMessageDialog(this, "Error: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void closeService() {
+        try {
+            service.close();
+        } catch (IOException e) {
+            System.out.println("Error closing library data: " + e.getMessage());
+        }
+    }
+
+    private void refreshBooks() {
+        whenDone(service.books(), catalog -> {
+            bookModel.load(catalog);
+            searchField.setText("");
+        });
+    }
+
+    private void refreshMembers() {
+        whenDone(service.members(), members -> {
+            memberModel.setRowCount(0);
+            for (Member m : members)
+                memberModel.addRow(new Object[]{m.id, m.name, m.email});
+        });
+    }
+
+    private void showStatus(String msg) {
+        statusLabel.setText(msg);
+    }
+
+    private void updateStats() {
+        whenDone(service.stats(0, STATS_PAGE), stats -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("------ Library Statistics ------\n\n");
+            sb.append("Titles          : ").append(stats.titles).append("\n");
+            sb.append("Total Copies    : ").append(stats.totalBooks).append("\n");
+            sb.append("Copies Issued   : ").append(stats.issuedBooks).append("\n");
+            sb.append("Copies Available: ").append(stats.availableBooks).append("\n");
+            sb.append("Total Members   : ").append(stats.members).append("\n");
+            sb.append("Holds Waiting   : ").append(stats.holds).append("\n");
+            sb.append("Books Overdue   : ").append(stats.overdueBooks).append("\n");
+            sb.append("Fines Owed      : ₹").append(stats.outstandingFines).append("\n\n");
+
+            sb.append("Issued Books:\n");
+            for (LibraryService.Loan l : stats.issued) {
+                sb.append("• ").append(l.title);
+                if (l.copies > 1) sb.append(" (copy ").append(l.copy).append(")");
+                sb.append(" → ").append(l.state.issuedTo)
+                        .append(" | Date: ").append(Dates.format(l.state.issueDay))
+                        .append(" | Fine: ₹").append(LibraryService.fine(l.state)).append("\n");
+            }
+
+            if (stats.issuedBooks > stats.issued.size())
+                sb.append("... and ").append(stats.issuedBooks - stats.issued.size()).append(" more\n");
+            if (stats.issuedBooks == 0) sb.append("No books are currently issued.\n");
+
+            String text = sb.toString();
+            if (!text.equals(statsArea.getText())) statsArea.setText(text);
+        });
+    }
+
+    private void calculateManualFine() {
+        try {
+            int issueDay = Dates.parse(issueField.getText().trim());
+            int returnDay = Dates.parse(returnField.getText().trim());
+            long days = returnDay - issueDay;
+            long fine = LibraryService.fine(issueDay, returnDay);
+            fineResult.setText("Fine: ₹" + fine + "  (" + days + " days)");
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Invalid date format! Use dd-MM-yyyy");
+        }
+    }
+
+    private void showFineTab() {
+        JOptionPane.showMessageDialog(this,
+                "Switch to the 'Fine Calculator' tab to use the manual fine calculator.",
+                "Fine Calculator", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /** Pass --headless to serve the HTTP API (see LibraryHttpServer) instead of opening the window. */
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--headless")) {
+            LibraryHttpServer.serveHeadless();
+            return;
+        }
+        SwingUtilities.invokeLater(LibrarySystem::new);
+    }
+}
\ No newline at end of file
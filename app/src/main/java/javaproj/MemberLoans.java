@@ -0,0 +1,226 @@
+package javaproj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The copies each member has on loan, so "what does M2 have out?" and the
+ * loan limit at issue time are a hash probe instead of a scan of the
+ * catalog.
+ *
+ * Members are keyed by the number in their ID and loans are stored as
+ * longs holding the book number and copy (see {@link #loan}), in
+ * open-addressing tables of primitive arrays: a member's loans are a small
+ * array scanned linearly, which beats any set at the sizes a loan limit
+ * allows. The members are split over {@link #STRIPES} tables, each with its
+ * own lock, so issues and returns for different members rarely wait for
+ * each other.
+ *
+ * IDs the allocator would not have produced ("B007", "X-1", numbers too
+ * large to pack) are given numbers from an alias table above the range of
+ * real ones instead, so they are tracked and limited like any other; aliases
+ * are never dropped. A loan with no member ID, left by data from before
+ * loans carried one, is not tracked.
+ */
+final class MemberLoans {
+    private static final int STRIPES = 64;
+    private static final int COPY_BITS = 14;
+    /** Book numbers from here up are aliases; below it they are the number in "B42". */
+    private static final long BOOK_ALIASES = 1L << 48;
+    /** Member numbers from here up are aliases. */
+    private static final int MEMBER_ALIASES = 1 << 30;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Aliases bookAliases = new Aliases(), memberAliases = new Aliases();
+
+    MemberLoans() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /** A book number and copy packed into one long; copies must stay below 2^14. */
+    static long loan(long bookNumber, int copy) {
+        return bookNumber << COPY_BITS | copy;
+    }
+
+    static long bookNumber(long loan) { return loan >>> COPY_BITS; }
+
+    static int copy(long loan) { return (int) (loan & ((1 << COPY_BITS) - 1)); }
+
+    /**
+     * Records a loan unless the member already has {@code limit} others out;
+     * recording one that is already there succeeds and changes nothing.
+     */
+    boolean add(String memberId, String bookId, int copy, int limit) {
+        if (memberId.isEmpty()) return true;
+        int member = member(memberId, true);
+        long book = book(bookId, true);
+        Stripe s = stripes[member & (STRIPES - 1)];
+        synchronized (s) {
+            return s.add(member, loan(book, copy), limit);
+        }
+    }
+
+    void remove(String memberId, String bookId, int copy) {
+        int member = member(memberId, false);
+        long book = book(bookId, false);
+        if (member == 0 || book == 0) return;
+        Stripe s = stripes[member & (STRIPES - 1)];
+        synchronized (s) {
+            s.remove(member, loan(book, copy));
+        }
+    }
+
+    int count(String memberId) {
+        int member = member(memberId, false);
+        if (member == 0) return 0;
+        Stripe s = stripes[member & (STRIPES - 1)];
+        synchronized (s) {
+            int slot = s.find(member);
+            return slot < 0 ? 0 : s.counts[slot];
+        }
+    }
+
+    /** The member's loans as packed by {@link #loan}, in no particular order. */
+    long[] loans(String memberId) {
+        int member = member(memberId, false);
+        if (member == 0) return new long[0];
+        Stripe s = stripes[member & (STRIPES - 1)];
+        synchronized (s) {
+            int slot = s.find(member);
+            return slot < 0 ? new long[0] : Arrays.copyOf(s.loans[slot], s.counts[slot]);
+        }
+    }
+
+    /** The ID of the book in a loan from {@link #loans}. */
+    String bookId(long loan) {
+        long n = bookNumber(loan);
+        return n < BOOK_ALIASES ? "B" + n : bookAliases.id((int) (n - BOOK_ALIASES));
+    }
+
+    /** The member's number, or 0 if it has no alias yet and {@code create} is false. */
+    private int member(String memberId, boolean create) {
+        long n = canonical(memberId, 'M');
+        if (n > 0 && n < MEMBER_ALIASES) return (int) n;
+        int alias = memberAliases.code(memberId, create);
+        return alias < 0 ? 0 : MEMBER_ALIASES + alias;
+    }
+
+    private long book(String bookId, boolean create) {
+        long n = canonical(bookId, 'B');
+        if (n > 0 && n < BOOK_ALIASES) return n;
+        int alias = bookAliases.code(bookId, create);
+        return alias < 0 ? 0 : BOOK_ALIASES + alias;
+    }
+
+    /** The number in an ID the allocator could have handed out, so without leading zeros; else 0. */
+    private static long canonical(String id, char prefix) {
+        long n = IdAllocator.number(id, prefix);
+        return n > 0 && id.charAt(1) != '0' ? n : 0;
+    }
+
+    /** Numbers for IDs outside the allocator's form, in the order first seen. */
+    private static final class Aliases {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+
+        synchronized int code(String id, boolean create) {
+            Integer code = codes.get(id);
+            if (code != null) return code;
+            if (!create) return -1;
+            if (ids.size() == MEMBER_ALIASES - 1) throw new IllegalStateException("Too many unusual IDs on loan!");
+            codes.put(id, ids.size());
+            ids.add(id);
+            return ids.size() - 1;
+        }
+
+        synchronized String id(int code) {
+            return ids.get(code);
+        }
+    }
+
+    /**
+     * One open-addressing table, linear probing: member number (0 marks an
+     * empty slot) to that member's loans. Members whose loans all come back
+     * keep their slot, with its small array, for the next one.
+     */
+    private static final class Stripe {
+        int[] keys = new int[16];
+        long[][] loans = new long[16][];
+        int[] counts = new int[16];
+        int size;
+
+        int find(int member) {
+            int mask = keys.length - 1;
+            for (int i = hash(member) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == member) return i;
+                if (keys[i] == 0) return -1;
+            }
+        }
+
+        boolean add(int member, long loan, int limit) {
+            int slot = find(member);
+            if (slot < 0) {
+                if (limit < 1) return false;
+                if (2 * (size + 1) > keys.length) grow();
+                slot = insert(member);
+            }
+            long[] out = loans[slot];
+            int n = counts[slot];
+            for (int i = 0; i < n; i++) if (out[i] == loan) return true;
+            if (n >= limit) return false;
+            if (out == null) out = loans[slot] = new long[4];
+            else if (n == out.length) out = loans[slot] = Arrays.copyOf(out, n * 2);
+            out[n] = loan;
+            counts[slot] = n + 1;
+            return true;
+        }
+
+        void remove(int member, long loan) {
+            int slot = find(member);
+            if (slot < 0) return;
+            long[] out = loans[slot];
+            int n = counts[slot];
+            for (int i = 0; i < n; i++) {
+                if (out[i] == loan) {
+                    out[i] = out[n - 1];
+                    counts[slot] = n - 1;
+                    return;
+                }
+            }
+        }
+
+        private int insert(int member) {
+            int mask = keys.length - 1;
+            int i = hash(member) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = member;
+            size++;
+            return i;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[][] oldLoans = loans;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            loans = new long[keys.length][];
+            counts = new int[keys.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int slot = insert(oldKeys[i]);
+                loans[slot] = oldLoans[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        /** Member numbers are sequential and share their low bits within a stripe, so mix them first. */
+        private static int hash(int member) {
+            int h = member * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
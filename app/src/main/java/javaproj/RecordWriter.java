@@ -0,0 +1,292 @@
+package javaproj;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams flat records into a CSV or JSON Lines file, chosen by the file
+ * name: {@code .csv} or {@code .jsonl}, either optionally followed by
+ * {@code .gz} for gzip (at the fastest level, so compression keeps up with
+ * the disk). Fields are encoded as UTF-8 straight into one
+ * reusable byte buffer, which goes to the file channel (or the deflater)
+ * each time it fills, so memory use does not depend on how many records
+ * are written and no record is ever built as a String.
+ *
+ * Records are written in column order: one {@code text}, {@code number},
+ * {@code date} or {@code empty} call per column, then {@link #endRecord()}.
+ * The output goes to a temp file that {@link #finish()} renames over the
+ * target; closing an unfinished writer deletes it, so a failed export
+ * never replaces a good file with half of one.
+ */
+final class RecordWriter implements Closeable {
+    enum Format { CSV, JSONL }
+
+    static final int BUFFER_SIZE = 1 << 20;
+    /** Largest encoding of one char: a JSON \\uXXXX escape. */
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path target, tmp;
+    private final FileChannel channel;
+    private final GZIPOutputStream gzip;
+    private final Format format;
+    private final byte[][] prefixes;
+    private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private int column;
+    private long records;
+    private boolean finished;
+
+    private RecordWriter(Path target, Format format, boolean gzip, String[] columns) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.tmp = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+        this.format = format;
+        this.channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.gzip = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16) {
+                { def.setLevel(Deflater.BEST_SPEED); }
+            } : null;
+
+            prefixes = new byte[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                String prefix = format == Format.CSV ? (i == 0 ? "" : ",")
+                        : (i == 0 ? "{" : ",") + "\"" + columns[i] + "\":";
+                prefixes[i] = prefix.getBytes(StandardCharsets.US_ASCII);
+            }
+            if (format == Format.CSV) {
+                for (String c : columns) text(c);
+                endRecord();
+                records = 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(channel, tmp, e);
+            throw e;
+        }
+    }
+
+    /** Closes the channel and deletes the temp file of a writer that failed to start, keeping {@code e} as the error. */
+    private static void discard(FileChannel channel, Path tmp, Exception e) {
+        try {
+            channel.close();
+        } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+    }
+
+    /** Opens a writer for {@code target}; the format comes from its extension. */
+    static RecordWriter open(Path target, String... columns) throws IOException {
+        String name = target.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) name = name.substring(0, name.length() - 3);
+        Format format;
+        if (name.endsWith(".csv")) format = Format.CSV;
+        else if (name.endsWith(".jsonl")) format = Format.JSONL;
+        else throw new IllegalArgumentException("Export file must end in .csv or .jsonl, optionally followed by .gz");
+        return new RecordWriter(target, format, gzip, columns);
+    }
+
+    long records() { return records; }
+
+    RecordWriter text(String s) throws IOException {
+        if (s == null) return empty();
+        field();
+        if (format == Format.JSONL) {
+            put('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put('\\');
+                    put(c);
+                } else if (c < 0x20) {
+                    switch (c) {
+                        case '\n': put('\\'); put('n'); break;
+                        case '\r': put('\\'); put('r'); break;
+                        case '\t': put('\\'); put('t'); break;
+                        default:
+                            room(MAX_CHAR_BYTES);
+                            buf.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                                    .put(HEX[c >> 4]).put(HEX[c & 15]);
+                    }
+                } else {
+                    i = utf8(s, i);
+                }
+            }
+            put('"');
+        } else if (needsQuotes(s)) {
+            put('"');
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) == '"') put('"');
+                i = utf8(s, i);
+            }
+            put('"');
+        } else {
+            for (int i = 0; i < s.length(); i++) i = utf8(s, i);
+        }
+        return this;
+    }
+
+    RecordWriter number(long n) throws IOException {
+        field();
+        room(20);
+        if (n < 0) {
+            buf.put((byte) '-');
+            if (n == Long.MIN_VALUE) {
+                buf.put("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                return this;
+            }
+            n = -n;
+        }
+        int end = buf.position() + digits(n);
+        for (int at = end - 1; at >= buf.position(); at--, n /= 10) buf.put(at, (byte) ('0' + n % 10));
+        buf.position(end);
+        return this;
+    }
+
+    /** Whole amounts are written without a fraction; anything else as Double.toString has it. */
+    RecordWriter number(double d) throws IOException {
+        if (d == Math.rint(d) && Math.abs(d) < 1e15) return number((long) d);
+        field();
+        String s = Double.toString(d);
+        room(s.length());
+        for (int i = 0; i < s.length(); i++) buf.put((byte) s.charAt(i));
+        return this;
+    }
+
+    /** An ISO yyyy-MM-dd date, or an empty field for {@link Dates#NO_DAY}. */
+    RecordWriter date(int epochDay) throws IOException {
+        if (epochDay == Dates.NO_DAY) return empty();
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        field();
+        if (format == Format.JSONL) put('"');
+        room(10);
+        int y = d.getYear(), m = d.getMonthValue(), day = d.getDayOfMonth();
+        buf.put((byte) ('0' + y / 1000 % 10)).put((byte) ('0' + y / 100 % 10))
+                .put((byte) ('0' + y / 10 % 10)).put((byte) ('0' + y % 10)).put((byte) '-')
+                .put((byte) ('0' + m / 10)).put((byte) ('0' + m % 10)).put((byte) '-')
+                .put((byte) ('0' + day / 10)).put((byte) ('0' + day % 10));
+        if (format == Format.JSONL) put('"');
+        return this;
+    }
+
+    /** A column with no value: an empty CSV field or a JSON null. */
+    RecordWriter empty() throws IOException {
+        field();
+        if (format == Format.JSONL) {
+            room(4);
+            buf.put((byte) 'n').put((byte) 'u').put((byte) 'l').put((byte) 'l');
+        }
+        return this;
+    }
+
+    void endRecord() throws IOException {
+        if (column != prefixes.length) {
+            throw new IllegalStateException("Record has " + column + " fields, expected " + prefixes.length);
+        }
+        if (format == Format.JSONL) put('}');
+        put('\n');
+        column = 0;
+        records++;
+    }
+
+    /** Flushes everything, syncs the file and renames it over the target. */
+    void finish() throws IOException {
+        drain();
+        if (gzip != null) gzip.finish();
+        channel.force(true);
+        if (gzip != null) gzip.close();
+        channel.close();
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (finished) return;
+        try {
+            if (gzip != null) gzip.close();
+            channel.close();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void field() throws IOException {
+        if (column == prefixes.length) throw new IllegalStateException("Too many fields in record");
+        byte[] prefix = prefixes[column++];
+        room(prefix.length);
+        buf.put(prefix);
+    }
+
+    private static boolean needsQuotes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    /** Encodes the char at {@code i} (and its low surrogate, if any); returns the index of the last char used. */
+    private int utf8(String s, int i) throws IOException {
+        room(MAX_CHAR_BYTES);
+        char c = s.charAt(i);
+        if (c < 0x80) {
+            buf.put((byte) c);
+        } else if (c < 0x800) {
+            buf.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(++i));
+            buf.put((byte) (0xf0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3f))
+                    .put((byte) (0x80 | cp >> 6 & 0x3f)).put((byte) (0x80 | cp & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            buf.put((byte) '?');
+        } else {
+            buf.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+        }
+        return i;
+    }
+
+    private void put(char ascii) throws IOException {
+        if (!buf.hasRemaining()) drain();
+        buf.put((byte) ascii);
+    }
+
+    private void room(int bytes) throws IOException {
+        if (buf.remaining() < bytes) drain();
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        if (gzip != null) {
+            gzip.write(buf.array(), 0, buf.limit());
+        } else {
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static int digits(long n) {
+        int d = 1;
+        while (n >= 10) {
+            n /= 10;
+            d++;
+        }
+        return d;
+    }
+}
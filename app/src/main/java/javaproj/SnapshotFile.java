@@ -0,0 +1,317 @@
+package javaproj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary catalog snapshot that is read through a memory-mapped file.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   64 bytes  magic, version, first log segment, counts, section
+ *                      offsets, CRC32 of the body and CRC32 of the header
+ *   ids      24 bytes  next book number, next member number, number of
+ *                      holds, 4 bytes of padding
+ *   books    32 bytes each: id, title, author as (heap offset, length)
+ *                      pairs, number of copies, index of its first loan
+ *   loans    24 bytes each: copy, issue epoch day, issuedTo and member ID
+ *                      as heap references; a book's loans are contiguous,
+ *                      in order
+ *   holds    12 bytes each: index of the book, member ID as a heap
+ *                      reference; each book's holds in queue order
+ *   members  24 bytes each: id, name, email as (heap offset, length) pairs
+ *   heap     UTF-8 string bytes; short strings that repeat, such as
+ *            authors and member IDs, are stored once
+ * </pre>
+ * Records are fixed width, so book or member {@code i} can be decoded by
+ * itself straight from the mapping. Startup still decodes every record once,
+ * since the catalog indexes titles, authors and loans in memory, but it
+ * does so without parsing a stream or copying the file onto the heap. The
+ * loans section runs from the end of the books to the holds, so it needs
+ * no header fields of its own.
+ */
+final class SnapshotFile {
+    static final int MAGIC = 0x4C494253; // "LIBS"
+    static final int VERSION = 1;
+
+    private static final int HEADER = 64;
+    private static final int IDS = 24;
+    private static final int BOOK_RECORD = 32;
+    private static final int LOAN_RECORD = 24;
+    private static final int HOLD_RECORD = 12;
+    private static final int MEMBER_RECORD = 24;
+
+    private final MappedByteBuffer map;
+    private final long firstSegment;
+    private final int bookCount, memberCount, loanCount, holdCount;
+    private final int booksAt, loansAt, holdsAt, membersAt, heapAt;
+    private byte[] scratch = new byte[256];
+
+    private SnapshotFile(MappedByteBuffer map) throws IOException {
+        this.map = map;
+        if (map.capacity() < HEADER + IDS || map.getInt(0) != MAGIC) throw new IOException("Not a library snapshot");
+        int version = map.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+        CRC32 crc = new CRC32();
+        crc.update(map.duplicate().position(0).limit(60));
+        if ((int) crc.getValue() != map.getInt(60)) throw new IOException("Snapshot header is corrupt");
+
+        firstSegment = map.getLong(8);
+        bookCount = map.getInt(16);
+        memberCount = map.getInt(20);
+        booksAt = (int) map.getLong(24);
+        membersAt = (int) map.getLong(32);
+        heapAt = (int) map.getLong(40);
+        long heapLength = map.getLong(48);
+        holdCount = map.getInt(HEADER + 16);
+        loansAt = booksAt + bookCount * BOOK_RECORD;
+        holdsAt = (int) Math.max(membersAt - (long) holdCount * HOLD_RECORD, -1);
+        long loanBytes = (long) holdsAt - loansAt;
+        if (heapAt + heapLength != map.capacity()
+                || booksAt != HEADER + IDS || holdCount < 0
+                || loanBytes < 0 || loanBytes % LOAN_RECORD != 0
+                || heapAt != membersAt + (long) memberCount * MEMBER_RECORD)
+            throw new IOException("Snapshot is truncated or has a bad layout");
+        loanCount = (int) (loanBytes / LOAN_RECORD);
+
+        crc.reset();
+        crc.update(map.duplicate().position(HEADER));
+        if ((int) crc.getValue() != map.getInt(56)) throw new IOException("Snapshot checksum mismatch");
+    }
+
+    /** Maps and validates a snapshot written by {@link #write}. */
+    static SnapshotFile open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Snapshot larger than 2 GB: " + file);
+            return new SnapshotFile(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    long firstSegment() { return firstSegment; }
+    int bookCount() { return bookCount; }
+    int memberCount() { return memberCount; }
+    int holdCount() { return holdCount; }
+    /** Next book and member numbers to hand out. */
+    long nextBookNumber() { return map.getLong(HEADER); }
+    long nextMemberNumber() { return map.getLong(HEADER + 8); }
+
+    String bookId(int i) { return string(booksAt + i * BOOK_RECORD); }
+    String bookTitle(int i) { return string(booksAt + i * BOOK_RECORD + 8); }
+    String bookAuthor(int i) { return string(booksAt + i * BOOK_RECORD + 16); }
+    int bookCopies(int i) { return map.getInt(booksAt + i * BOOK_RECORD + 24); }
+
+    LibrarySystem.Book book(int i) {
+        LibrarySystem.Book b = new LibrarySystem.Book(bookId(i), bookTitle(i), bookAuthor(i), bookCopies(i));
+        int first = map.getInt(booksAt + i * BOOK_RECORD + 28);
+        int end = i + 1 < bookCount ? map.getInt(booksAt + (i + 1) * BOOK_RECORD + 28) : loanCount;
+        for (int l = first; l < end; l++) {
+            int at = loansAt + l * LOAN_RECORD;
+            int copy = map.getInt(at);
+            if (copy >= 1 && copy <= b.copies())
+                b.restore(copy, LibrarySystem.Circulation.issued(string(at + 16), string(at + 8), map.getInt(at + 4)));
+        }
+        return b;
+    }
+
+    /** Index of the book hold {@code h} is for, and the member waiting. */
+    int holdBook(int h) { return map.getInt(holdsAt + h * HOLD_RECORD); }
+    String holdMember(int h) { return string(holdsAt + h * HOLD_RECORD + 4); }
+
+    LibrarySystem.Member member(int i) {
+        int at = membersAt + i * MEMBER_RECORD;
+        return new LibrarySystem.Member(string(at), string(at + 8), string(at + 16));
+    }
+
+    private String string(int ref) {
+        int off = map.getInt(ref), len = map.getInt(ref + 4);
+        if (len == 0) return "";
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+        map.get(heapAt + off, scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The catalog as a checkpoint saves it, frozen at one moment. Loans and
+     * holds change on the circulation threads, so {@link #take} copies each
+     * issued copy's state reference and each hold list. Books, members and
+     * their fields only change on the service thread that writes the
+     * snapshot, so only the lists holding them are copied. Taking a cut costs
+     * a walk over the copies, not the encoding and write of the file.
+     */
+    static final class Cut {
+        final long firstSegment;
+        final List<LibrarySystem.Book> books;
+        final List<LibrarySystem.Member> members;
+        final long nextBookNumber, nextMemberNumber;
+        /** Index into the loans of each book's first loan. */
+        private final int[] firstLoan;
+        private int[] loanCopy = new int[1024];
+        private LibrarySystem.Circulation[] loanState = new LibrarySystem.Circulation[1024];
+        private int loans;
+        private int[] holdBook = new int[64];
+        private String[] holdMember = new String[64];
+        private int holds;
+
+        private Cut(long firstSegment, Collection<LibrarySystem.Book> books, Collection<LibrarySystem.Member> members,
+                    long nextBookNumber, long nextMemberNumber) {
+            this.firstSegment = firstSegment;
+            this.books = new ArrayList<>(books);
+            this.members = new ArrayList<>(members);
+            this.nextBookNumber = nextBookNumber;
+            this.nextMemberNumber = nextMemberNumber;
+            firstLoan = new int[this.books.size()];
+        }
+
+        /** Caller makes sure no issue, return or hold changes while this runs. */
+        static Cut take(long firstSegment, Collection<LibrarySystem.Book> books,
+                        Collection<LibrarySystem.Member> members, long nextBookNumber, long nextMemberNumber) {
+            Cut cut = new Cut(firstSegment, books, members, nextBookNumber, nextMemberNumber);
+            for (int i = 0; i < cut.books.size(); i++) {
+                LibrarySystem.Book b = cut.books.get(i);
+                cut.firstLoan[i] = cut.loans;
+                for (int copy = 1, copies = b.copies(); copy <= copies; copy++) {
+                    LibrarySystem.Circulation c = b.circulation(copy);
+                    if (c.issued) cut.addLoan(copy, c);
+                }
+                HoldQueue q = b.holds();
+                if (q != null) for (String memberId : q.members()) cut.addHold(i, memberId);
+            }
+            return cut;
+        }
+
+        private void addLoan(int copy, LibrarySystem.Circulation state) {
+            if (loans == loanCopy.length) {
+                loanCopy = Arrays.copyOf(loanCopy, loans * 2);
+                loanState = Arrays.copyOf(loanState, loans * 2);
+            }
+            loanCopy[loans] = copy;
+            loanState[loans++] = state;
+        }
+
+        private void addHold(int book, String memberId) {
+            if (holds == holdBook.length) {
+                holdBook = Arrays.copyOf(holdBook, holds * 2);
+                holdMember = Arrays.copyOf(holdMember, holds * 2);
+            }
+            holdBook[holds] = book;
+            holdMember[holds++] = memberId;
+        }
+    }
+
+    /** Writes a snapshot of the current state to {@code file}; nothing may change meanwhile. */
+    static void write(Path file, long firstSegment, Collection<LibrarySystem.Book> books,
+                      Collection<LibrarySystem.Member> members, long nextBookNumber, long nextMemberNumber)
+            throws IOException {
+        write(file, Cut.take(firstSegment, books, members, nextBookNumber, nextMemberNumber));
+    }
+
+    /** Writes a cut to {@code file} and forces it to disk. */
+    static void write(Path file, Cut cut) throws IOException {
+        List<LibrarySystem.Book> books = cut.books;
+        List<LibrarySystem.Member> members = cut.members;
+        Heap heap = new Heap();
+        ByteBuffer bookRecords = ByteBuffer.allocate(books.size() * BOOK_RECORD);
+        ByteBuffer loanRecords = ByteBuffer.allocate(cut.loans * LOAN_RECORD);
+        ByteBuffer holdRecords = ByteBuffer.allocate(cut.holds * HOLD_RECORD);
+        for (int i = 0; i < books.size(); i++) {
+            LibrarySystem.Book b = books.get(i);
+            heap.ref(bookRecords, b.id);
+            heap.ref(bookRecords, b.title);
+            heap.ref(bookRecords, b.author);
+            bookRecords.putInt(b.copies());
+            bookRecords.putInt(cut.firstLoan[i]);
+        }
+        for (int l = 0; l < cut.loans; l++) {
+            LibrarySystem.Circulation c = cut.loanState[l];
+            loanRecords.putInt(cut.loanCopy[l]).putInt(c.issueDay);
+            heap.ref(loanRecords, c.issuedTo);
+            heap.ref(loanRecords, c.memberId);
+        }
+        for (int h = 0; h < cut.holds; h++) {
+            holdRecords.putInt(cut.holdBook[h]);
+            heap.ref(holdRecords, cut.holdMember[h]);
+        }
+        ByteBuffer memberRecords = ByteBuffer.allocate(members.size() * MEMBER_RECORD);
+        for (LibrarySystem.Member m : members) {
+            heap.ref(memberRecords, m.id);
+            heap.ref(memberRecords, m.name);
+            heap.ref(memberRecords, m.email);
+        }
+        ByteBuffer heapBytes = ByteBuffer.wrap(heap.bytes(), 0, heap.size());
+        ByteBuffer ids = ByteBuffer.allocate(IDS).putLong(cut.nextBookNumber).putLong(cut.nextMemberNumber)
+                .putInt(cut.holds).putInt(0).flip();
+
+        long booksAt = HEADER + IDS;
+        long membersAt = booksAt + bookRecords.capacity() + loanRecords.position() + holdRecords.position();
+        long heapAt = membersAt + memberRecords.capacity();
+        if (heapAt + heap.size() > Integer.MAX_VALUE) throw new IOException("Snapshot would exceed 2 GB");
+
+        bookRecords.flip();
+        loanRecords.flip();
+        holdRecords.flip();
+        memberRecords.flip();
+        CRC32 crc = new CRC32();
+        crc.update(ids.duplicate());
+        crc.update(bookRecords.duplicate());
+        crc.update(loanRecords.duplicate());
+        crc.update(holdRecords.duplicate());
+        crc.update(memberRecords.duplicate());
+        crc.update(heapBytes.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(cut.firstSegment)
+                .putInt(books.size()).putInt(members.size())
+                .putLong(booksAt).putLong(membersAt).putLong(heapAt).putLong(heap.size())
+                .putInt((int) crc.getValue());
+        crc.reset();
+        crc.update(header.array(), 0, 60);
+        header.putInt((int) crc.getValue()).flip();
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer part : new ByteBuffer[]{header, ids, bookRecords, loanRecords, holdRecords, memberRecords, heapBytes})
+                while (part.hasRemaining()) ch.write(part);
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Growable UTF-8 string heap. Short strings are stored once each, up to a
+     * fixed number of them; long ones, mostly unique titles, are not worth a
+     * map entry and are appended every time.
+     */
+    private static final class Heap {
+        private static final int SHARED_LENGTH = 64;
+        private static final int MAX_SHARED = 1 << 18;
+
+        private final Map<String, Long> refs = new HashMap<>();
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        void ref(ByteBuffer record, String s) {
+            boolean shared = s.length() <= SHARED_LENGTH;
+            Long ref = shared ? refs.get(s) : null;
+            if (ref == null) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                if (size + utf8.length > bytes.length)
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + utf8.length));
+                System.arraycopy(utf8, 0, bytes, size, utf8.length);
+                ref = ((long) size << 32) | utf8.length;
+                size += utf8.length;
+                if (shared && refs.size() < MAX_SHARED) refs.put(s, ref);
+            }
+            record.putInt((int) (ref >>> 32)).putInt((int) (long) ref);
+        }
+
+        byte[] bytes() { return bytes; }
+        int size() { return size; }
+    }
+}
@@ -0,0 +1,226 @@
+package javaproj;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * In-memory inverted index over book titles and authors.
+ *
+ * Each catalogued book gets a document number; every token maps to a posting
+ * list of document numbers kept as a sorted int array. Document numbers only
+ * grow, so adding a book appends to the end of its lists and removal is a
+ * binary search plus an arraycopy. Removed books leave a hole in the document
+ * table; once holes make up half of it the live documents are renumbered in
+ * order, which keeps every posting list sorted.
+ *
+ * Queries are whitespace-separated terms that must all match (AND); the word
+ * OR between terms starts an alternative group, and a trailing * makes a term
+ * a prefix match, e.g. {@code wings fire OR alche*}.
+ */
+class TextIndex {
+
+    static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) return;
+            if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+
+        boolean remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) return false;
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(docs, size);
+        }
+    }
+
+    private static final int[] NONE = new int[0];
+    private static final int MIN_COMPACT = 1024;
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final ArrayList<LibrarySystem.Book> docs = new ArrayList<>();
+    private final Map<LibrarySystem.Book, Integer> docIds = new IdentityHashMap<>();
+    private int removed;
+
+    void addBook(LibrarySystem.Book b) {
+        if (docIds.containsKey(b)) return;
+        int doc = docs.size();
+        docs.add(b);
+        docIds.put(b, doc);
+        for (String t : tokenize(b.title + " " + b.author))
+            terms.computeIfAbsent(t, k -> new Postings()).add(doc);
+    }
+
+    void removeBook(LibrarySystem.Book b) {
+        Integer doc = docIds.remove(b);
+        if (doc == null) return;
+        docs.set(doc, null);
+        for (String t : tokenize(b.title + " " + b.author)) {
+            Postings p = terms.get(t);
+            if (p != null && p.remove(doc) && p.size == 0) terms.remove(t);
+        }
+        if (++removed >= MIN_COMPACT && removed * 2 >= docs.size()) compact();
+    }
+
+    /** Drops the holes left by removed books, renumbering the rest in their current order. */
+    private void compact() {
+        int[] renumbered = new int[docs.size()];
+        int live = 0;
+        for (int doc = 0; doc < docs.size(); doc++) {
+            LibrarySystem.Book b = docs.get(doc);
+            if (b == null) continue;
+            renumbered[doc] = live;
+            docs.set(live, b);
+            docIds.put(b, live++);
+        }
+        docs.subList(live, docs.size()).clear();
+        docs.trimToSize();
+        for (Postings p : terms.values())
+            for (int i = 0; i < p.size; i++) p.docs[i] = renumbered[p.docs[i]];
+        removed = 0;
+    }
+
+    List<LibrarySystem.Book> search(String query) {
+        int[] hits = NONE;
+        List<String> group = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                hits = union(hits, matchAll(group));
+                group.clear();
+            } else if (!word.isEmpty()) {
+                group.add(word);
+            }
+        }
+        hits = union(hits, matchAll(group));
+
+        List<LibrarySystem.Book> result = new ArrayList<>(hits.length);
+        for (int doc : hits) result.add(docs.get(doc));
+        return result;
+    }
+
+    private int[] matchAll(List<String> words) {
+        int[] acc = null;
+        for (String word : words) {
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < tokens.size(); i++) {
+                int[] docs = prefix && i == tokens.size() - 1 ? matchPrefix(tokens.get(i)) : matchTerm(tokens.get(i));
+                acc = acc == null ? docs : intersect(acc, docs);
+                if (acc.length == 0) return NONE;
+            }
+        }
+        return acc == null ? NONE : acc;
+    }
+
+    private int[] matchTerm(String token) {
+        Postings p = terms.get(token);
+        return p == null ? NONE : p.toArray();
+    }
+
+    /**
+     * Merges the posting lists of every term with this prefix in one pass,
+     * keeping a min-heap of lists ordered by their next document, so a short
+     * prefix matching thousands of terms costs a log factor, not a re-merge
+     * of everything so far per term.
+     */
+    private int[] matchPrefix(String prefix) {
+        Collection<Postings> matched = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (matched.isEmpty()) return NONE;
+        if (matched.size() == 1) return matched.iterator().next().toArray();
+
+        Postings[] lists = matched.toArray(new Postings[0]);
+        int[] next = new int[lists.length];
+        int[] heap = new int[lists.length];
+        int total = 0;
+        for (int i = 0; i < lists.length; i++) {
+            heap[i] = i;
+            total += lists[i].size;
+        }
+        int n = lists.length;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(heap, n, i, lists, next);
+
+        int[] out = new int[total];
+        int size = 0;
+        while (n > 0) {
+            int top = heap[0];
+            int doc = lists[top].docs[next[top]];
+            if (size == 0 || out[size - 1] != doc) out[size++] = doc;
+            if (++next[top] == lists[top].size) heap[0] = heap[--n];
+            if (n > 0) siftDown(heap, n, 0, lists, next);
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static void siftDown(int[] heap, int n, int i, Postings[] lists, int[] next) {
+        int list = heap[i], doc = head(list, lists, next);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && head(heap[child + 1], lists, next) < head(heap[child], lists, next)) child++;
+            if (head(heap[child], lists, next) >= doc) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = list;
+    }
+
+    private static int head(int list, Postings[] lists, int[] next) {
+        return lists[list].docs[next[list]];
+    }
+
+    static List<String> tokenize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                tokens.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0) tokens.add(sb.toString());
+        return tokens;
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) { int[] t = a; a = b; b = t; }
+        int[] out = new int[a.length];
+        int n = 0, lo = 0;
+        for (int doc : a) {
+            int step = 1, hi = lo;
+            while (hi < b.length && b[hi] < doc) { lo = hi + 1; hi += step; step <<= 1; }
+            int i = Arrays.binarySearch(b, lo, Math.min(hi + 1, b.length), doc);
+            if (i >= 0) { out[n++] = doc; lo = i + 1; }
+            else lo = -i - 1;
+            if (lo >= b.length) break;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) out[n++] = a[i++];
+            else if (a[i] > b[j]) out[n++] = b[j++];
+            else { out[n++] = a[i++]; j++; }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.length) out[n++] = b[j++];
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,96 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookTableModelTest {
+    private final List<LibrarySystem.Book> books = new ArrayList<>();
+    private final LibrarySystem.BookTableModel model = new LibrarySystem.BookTableModel(books);
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeEach
+    void listen() {
+        model.load(List.of(book("B1", "Emma"), book("B2", "Persuasion"), book("B3", "Sanditon")));
+        model.addTableModelListener(e -> events.add(describe(e)));
+    }
+
+    @Test
+    void firesOneRowEventPerChange() {
+        model.bookAdded(book("B4", "Lady Susan"));
+        assertEquals(List.of("insert 3-3"), events);
+        assertEquals("Lady Susan", model.getValueAt(3, 1));
+
+        LibrarySystem.Book issued = book("B2", "Persuasion");
+        issued.restore(1, LibrarySystem.Circulation.issued("M1", "Riya Sharma", Dates.today()));
+        model.bookChanged(issued, 1);
+        assertEquals("update 1-1", events.get(1));
+        assertEquals("Issued", model.getValueAt(1, 3));
+        assertEquals("Riya Sharma", model.getValueAt(1, 4));
+        assertSame(issued, books.get(1));
+
+        // A stale row hint still finds the book by ID.
+        model.bookRemoved("B1", 2);
+        assertEquals("delete 0-0", events.get(2));
+        assertEquals(List.of("B2", "B3", "B4"), ids(books));
+
+        model.bookRemoved("B9", 0);
+        model.bookChanged(book("B9", "Unknown"), 0);
+        assertEquals(3, events.size(), "nothing to do for a book the table does not show");
+        assertEquals(3, model.getRowCount());
+    }
+
+    @Test
+    void aFilteredViewOnlyHearsAboutItsOwnRows() {
+        model.showOnly(new ArrayList<>(List.of(books.get(2), books.get(0))));
+        assertEquals(List.of("data changed"), events);
+        assertTrue(model.isFiltered());
+        assertEquals(2, model.getRowCount());
+
+        model.bookAdded(book("B4", "Lady Susan"));
+        assertEquals(1, events.size(), "new books only appear once the filter is cleared");
+        assertEquals(4, books.size());
+
+        LibrarySystem.Book retitled = book("B1", "Emma (Annotated)");
+        model.bookChanged(retitled, 0);
+        assertEquals("update 1-1", events.get(1));
+        assertEquals("Emma (Annotated)", model.getValueAt(1, 1));
+        assertSame(retitled, books.get(0), "the full list is kept in step too");
+
+        model.bookChanged(book("B2", "Persuasion"), 0);
+        assertEquals(2, events.size());
+
+        model.bookRemoved("B3", 0);
+        assertEquals("delete 0-0", events.get(2));
+        assertEquals(List.of("B1", "B2", "B4"), ids(books));
+        model.bookRemoved("B2", 0);
+        assertEquals(3, events.size());
+        assertEquals(List.of("B1", "B4"), ids(books));
+
+        model.showAll();
+        assertEquals("data changed", events.get(3));
+        assertFalse(model.isFiltered());
+        assertEquals(2, model.getRowCount());
+    }
+
+    private static String describe(TableModelEvent e) {
+        if (e.getLastRow() == Integer.MAX_VALUE) return "data changed";
+        String type = e.getType() == TableModelEvent.INSERT ? "insert"
+                : e.getType() == TableModelEvent.DELETE ? "delete" : "update";
+        return type + " " + e.getFirstRow() + "-" + e.getLastRow();
+    }
+
+    private static List<String> ids(List<LibrarySystem.Book> books) {
+        List<String> ids = new ArrayList<>();
+        for (LibrarySystem.Book b : books) ids.add(b.id);
+        return ids;
+    }
+
+    private static LibrarySystem.Book book(String id, String title) {
+        return new LibrarySystem.Book(id, title, "Jane Austen");
+    }
+}
@@ -0,0 +1,90 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class CatalogIndexTest {
+    private static final String[] WORDS = {"Wings", "wind", "Winter", "Alchemist", "alpha", "Power", "poor",
+            "Rich", "monk", "Mind", "Think", "The"};
+
+    private final CatalogIndex index = new CatalogIndex();
+    private final List<LibrarySystem.Book> catalog = new ArrayList<>();
+
+    @Test
+    void findsBooksAndMembersByIdIgnoringCase() {
+        LibrarySystem.Book b = new LibrarySystem.Book("B7", "Emma", "Austen");
+        LibrarySystem.Member m = new LibrarySystem.Member("M3", "Neha", "");
+        index.addBook(b);
+        index.addMember(m);
+        assertSame(b, index.findBook(" b7 "));
+        assertSame(m, index.findMember("m3"));
+        assertNull(index.findMember(null));
+        assertTrue(index.hasBook("EMMA", "austen"));
+        assertFalse(index.hasBook("Emma", "Bronte"));
+
+        index.removeBook(b);
+        index.removeMember(m);
+        assertNull(index.findBook("B7"));
+        assertNull(index.findMember("M3"));
+        assertFalse(index.hasBook("Emma", "Austen"));
+    }
+
+    @Test
+    void prefixQueriesAgreeWithASortedScanThroughChurn() {
+        Random random = new Random(11);
+        for (int step = 0; step < 20_000; step++) {
+            if (catalog.isEmpty() || random.nextInt(5) < 3) {
+                LibrarySystem.Book b = new LibrarySystem.Book("B" + step, word(random) + " " + word(random), word(random));
+                catalog.add(b);
+                index.addBook(b);
+            } else {
+                index.removeBook(catalog.remove(random.nextInt(catalog.size())));
+            }
+            if (step % 1000 == 0) {
+                for (String prefix : new String[]{"w", "WIN", "al", "the m", "p", "zz", ""}) {
+                    check(prefix, b -> b.title, (p, o, l) -> index.booksByTitlePrefix(p, o, l));
+                    check(prefix, b -> b.author, (p, o, l) -> index.booksByAuthorPrefix(p, o, l));
+                }
+            }
+        }
+    }
+
+    private interface PrefixQuery {
+        List<LibrarySystem.Book> run(String prefix, int offset, int limit);
+    }
+
+    private void check(String prefix, Function<LibrarySystem.Book, String> field, PrefixQuery query) {
+        String p = prefix.toLowerCase(Locale.ROOT);
+        List<LibrarySystem.Book> expected = new ArrayList<>();
+        for (LibrarySystem.Book b : catalog)
+            if (field.apply(b).toLowerCase(Locale.ROOT).startsWith(p)) expected.add(b);
+        // Books with equal keys keep the order they were added in, as the catalog does.
+        expected.sort(Comparator.comparing(b -> field.apply(b).toLowerCase(Locale.ROOT)));
+
+        assertSameBooks(expected, query.run(prefix, 0, Integer.MAX_VALUE), prefix);
+        List<LibrarySystem.Book> paged = new ArrayList<>();
+        for (int offset = 0; ; offset += 37) {
+            List<LibrarySystem.Book> page = query.run(prefix, offset, 37);
+            assertTrue(page.size() <= 37);
+            paged.addAll(page);
+            if (page.size() < 37) break;
+        }
+        assertSameBooks(expected, paged, prefix + " in pages");
+    }
+
+    private static void assertSameBooks(List<LibrarySystem.Book> expected, List<LibrarySystem.Book> actual, String what) {
+        assertEquals(expected.size(), actual.size(), what);
+        for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), actual.get(i), what + " at " + i);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,106 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsTheTitleAndAuthorColumnsByHeader() throws IOException {
+        Path file = write("books.csv", "id, Author ,isbn,TITLE\r\n"
+                + "B1,Paulo Coelho,123,The Alchemist\r\n"
+                + "\r\n"
+                + "B2,\"Kiyosaki, Robert T.\",,Rich Dad Poor Dad\r\n"
+                + "B3,Short Row\r\n");
+        assertEquals(List.of("2: The Alchemist / Paulo Coelho", "4: Rich Dad Poor Dad / Kiyosaki, Robert T.",
+                "5: null / Short Row"), read(file));
+    }
+
+    @Test
+    void withoutAHeaderTakesTheFirstTwoColumns() throws IOException {
+        Path file = write("books.csv", "The Alchemist,Paulo Coelho,extra\nWings of Fire,Kalam\nLonely\n");
+        assertEquals(List.of("1: The Alchemist / Paulo Coelho", "2: Wings of Fire / Kalam", "3: Lonely / null"), read(file));
+        assertEquals(List.of(), read(write("empty.csv", "")));
+        assertEquals(List.of(), read(write("header-only.csv", "title,author\n")));
+    }
+
+    @Test
+    void skipsAByteOrderMarkBeforeTheHeader() throws IOException {
+        Path file = write("books.csv", "\uFEFFauthor,title\nJay Shetty,Think Like a Monk\n");
+        assertEquals(List.of("2: Think Like a Monk / Jay Shetty"), read(file));
+        Path noHeader = write("plain.csv", "\uFEFFEmma,Austen\n");
+        assertEquals(List.of("1: Emma / Austen"), read(noHeader));
+    }
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        Path file = write("books.csv", "title,author\n"
+                + "\"Poems,\nVolume \"\"One\"\"\",\"Dickinson\"\n"
+                + "\"\",\"\"\n"
+                + "Next,Writer\n");
+        assertEquals(List.of("2: Poems,\nVolume \"One\" / Dickinson", "4:  / ", "5: Next / Writer"), read(file));
+
+        Path broken = write("broken.csv", "title,author\nFine,Row\n\"Never closed,Writer\n");
+        IOException e = assertThrows(IOException.class, () -> read(broken));
+        assertEquals("Unterminated quoted field starting on line 3", e.getMessage());
+    }
+
+    @Test
+    void readsMarcTitlesAndAuthors() throws IOException {
+        Path file = write("books.mrk", "=LDR  00000nam  2200000 a 4500\n"
+                + "=245  10$aThe alchemist /$cPaulo Coelho.\n"
+                + "=100  1\\$aCoelho, Paulo.\n"
+                + "\n"
+                + "=245  10$aRich dad, poor dad :$bwhat the rich teach their kids about money.\n"
+                + "=100  1\\$aKiyosaki, Robert T.\n"
+                + "=700  1\\$aLechter, Sharon L.\n"
+                + "\n\n"
+                + "=110  2\\$aUnited Nations.$bGeneral Assembly.\n"
+                + "=245  00$aReport costs {dollar}5 ;\n"
+                + "\n"
+                + "=245  00$aCollected essays.\r\n"
+                + "=700  1\\$aSmith, J.\r\n"
+                + "\n"
+                + "=100  1\\$aNobody\n");
+        assertEquals(List.of("1: The alchemist / Coelho, Paulo",
+                "5: Rich dad, poor dad what the rich teach their kids about money / Kiyosaki, Robert T.",
+                "10: Report costs $5 / United Nations",
+                "13: Collected essays / Smith, J.",
+                "16: null / Nobody"), read(file));
+    }
+
+    @Test
+    void readsGzippedFilesAndRefusesOtherNames() throws IOException {
+        Path file = dir.resolve("books.CSV.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write("title,author\nEmma,Jane Austen\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("2: Emma / Jane Austen"), read(file));
+        assertThrows(IllegalArgumentException.class, () -> CatalogReader.open(write("books.txt", "")));
+    }
+
+    private Path write(String name, String text) throws IOException {
+        return Files.writeString(dir.resolve(name), text);
+    }
+
+    /** Each record as "line: title / author". */
+    private static List<String> read(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (CatalogReader in = CatalogReader.open(file)) {
+            while (in.next()) records.add(in.line() + ": " + in.title() + " / " + in.author());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,155 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CirculationHistoryTest {
+    private static final int DAYS = 30, PER_DAY = 2_000;
+
+    @TempDir
+    Path dir;
+
+    private final int today = Dates.today();
+    /** Every event recorded, in order, to check scans against. */
+    private final List<CirculationHistory.Event> recorded = new ArrayList<>();
+
+    @BeforeEach
+    void recordAMonth() throws IOException {
+        Random random = new Random(7);
+        CirculationHistory history = new CirculationHistory(dir);
+        for (int d = DAYS; d >= 0; d--) {
+            long start = startOf(today - d);
+            for (int i = 0; i < PER_DAY; i++) {
+                boolean ret = random.nextBoolean();
+                CirculationHistory.Event e = new CirculationHistory.Event(start + i * 1000L,
+                        ret ? CirculationHistory.Kind.RETURN : CirculationHistory.Kind.ISSUE,
+                        "B" + random.nextInt(30), random.nextInt(3) + 1, "M" + random.nextInt(100),
+                        ret ? random.nextInt(50) : 0);
+                recorded.add(e);
+                history.record(e.kind, e.millis, e.bookId, e.copy, e.memberId, e.fine);
+            }
+        }
+        history.close();
+        history.close();
+    }
+
+    @Test
+    void sealsPastDaysAndKeepsTodayInItsJournal() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+            assertEquals(DAYS + 1, names.size());
+            assertEquals(LocalDate.ofEpochDay(today) + ".journal", names.get(DAYS));
+            for (int i = 0; i < DAYS; i++) assertTrue(names.get(i).endsWith(".seg"), names.get(i));
+        }
+    }
+
+    @Test
+    void scansMatchTheEventsRecorded() throws IOException {
+        try (CirculationHistory history = new CirculationHistory(dir)) {
+            check(history, today - DAYS, today, null, null, null);
+            check(history, today - DAYS, today, null, "B12", null);
+            check(history, today - 20, today - 10, CirculationHistory.Kind.RETURN, null, null);
+            check(history, today - DAYS, today, CirculationHistory.Kind.ISSUE, "B7", "M7");
+            check(history, today, today, null, null, "M3");
+            check(history, today - 5, today - 5, null, null, null);
+            assertTrue(scan(history, today - DAYS, today, null, "B999", null).isEmpty());
+            assertTrue(scan(history, today - DAYS, today, null, null, "nobody").isEmpty());
+            assertTrue(scan(history, today, today - 1, null, null, null).isEmpty());
+        }
+    }
+
+    @Test
+    void stopsWhenTheSinkSaysSo() throws IOException {
+        try (CirculationHistory history = new CirculationHistory(dir)) {
+            List<CirculationHistory.Event> first = new ArrayList<>();
+            history.scan(today - DAYS, today, null, null, null, e -> first.add(e) && first.size() < 3);
+            assertEquals(3, first.size());
+            assertEvents(recorded.subList(0, 3), first);
+        }
+    }
+
+    @Test
+    void reopenedJournalCarriesOnAndLosesOnlyATornTail() throws IOException {
+        Path journal = dir.resolve(LocalDate.ofEpochDay(today) + ".journal");
+        long size = Files.size(journal);
+        Files.write(journal, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        CirculationHistory history = new CirculationHistory(dir);
+        assertEquals(size, Files.size(journal));
+        long at = recorded.get(recorded.size() - 1).millis + 1;
+        history.record(CirculationHistory.Kind.ISSUE, at, "B1", 1, "M1", 0);
+        history.close();
+        recorded.add(new CirculationHistory.Event(at, CirculationHistory.Kind.ISSUE, "B1", 1, "M1", 0));
+
+        try (CirculationHistory reopened = new CirculationHistory(dir)) {
+            check(reopened, today, today, null, null, null);
+        }
+    }
+
+    @Test
+    void journalOfAnEarlierDayIsSealedOnOpen() throws IOException {
+        // Today's journal, renamed to yesterday, stands in for a run that stopped before midnight.
+        Path journal = dir.resolve(LocalDate.ofEpochDay(today) + ".journal");
+        Path segment = dir.resolve(LocalDate.ofEpochDay(today - 1) + ".seg");
+        Files.delete(segment);
+        Files.move(journal, dir.resolve(LocalDate.ofEpochDay(today - 1) + ".journal"));
+        recorded.removeIf(e -> Dates.epochDay(e.millis) == today - 1);
+
+        try (CirculationHistory history = new CirculationHistory(dir)) {
+            assertTrue(Files.exists(segment));
+            assertFalse(Files.exists(dir.resolve(LocalDate.ofEpochDay(today - 1) + ".journal")));
+            assertEquals(PER_DAY, scan(history, today - 1, today - 1, null, null, null).size());
+            assertTrue(scan(history, today, today, null, null, null).isEmpty());
+        }
+    }
+
+    private void check(CirculationHistory history, int from, int to, CirculationHistory.Kind kind,
+                       String book, String member) throws IOException {
+        List<CirculationHistory.Event> expected = new ArrayList<>();
+        for (CirculationHistory.Event e : recorded) {
+            int day = Dates.epochDay(e.millis);
+            if (day >= from && day <= to && (kind == null || e.kind == kind)
+                    && (book == null || e.bookId.equals(book)) && (member == null || e.memberId.equals(member)))
+                expected.add(e);
+        }
+        assertFalse(expected.isEmpty());
+        assertEvents(expected, scan(history, from, to, kind, book, member));
+    }
+
+    private static List<CirculationHistory.Event> scan(CirculationHistory history, int from, int to,
+            CirculationHistory.Kind kind, String book, String member) throws IOException {
+        List<CirculationHistory.Event> found = new ArrayList<>();
+        history.scan(from, to, kind, book, member, found::add);
+        return found;
+    }
+
+    private static void assertEvents(List<CirculationHistory.Event> expected, List<CirculationHistory.Event> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CirculationHistory.Event x = expected.get(i), y = actual.get(i);
+            assertEquals(x.millis, y.millis, "event " + i);
+            assertEquals(x.kind, y.kind, "event " + i);
+            assertEquals(x.bookId, y.bookId, "event " + i);
+            assertEquals(x.copy, y.copy, "event " + i);
+            assertEquals(x.memberId, y.memberId, "event " + i);
+            assertEquals(x.fine, y.fine, "event " + i);
+        }
+    }
+
+    private static long startOf(int day) {
+        return LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
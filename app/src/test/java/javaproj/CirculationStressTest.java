@@ -0,0 +1,178 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Issues and returns the same few copies from 64 threads at once. */
+class CirculationStressTest {
+    private static final int THREADS = 64;
+
+    @TempDir
+    Path data;
+
+    @BeforeEach
+    void useTempStore() {
+        System.setProperty("library.data", data.toString());
+        System.setProperty("library.fsync", "never");
+        // Small enough that snapshots are taken, and log segments dropped, while the threads run.
+        System.setProperty("library.checkpoint.bytes", "16384");
+    }
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("library.data");
+        System.clearProperty("library.fsync");
+        System.clearProperty("library.checkpoint.bytes");
+    }
+
+    @Test
+    void copiesAreNeverHeldByTwoThreads() throws Exception {
+        LibrarySystem.Book book = new LibrarySystem.Book("B1", "Title", "Author", 70);
+        AtomicIntegerArray holder = new AtomicIntegerArray(book.copies() + 1);
+        AtomicInteger issued = new AtomicInteger(), returned = new AtomicInteger();
+        runThreads(t -> {
+            LibrarySystem.Member m = new LibrarySystem.Member("M" + (t + 1), "Member " + t, "");
+            for (int i = 0; i < 2_000; i++) {
+                int copy = book.claimCopy();
+                if (copy == 0) continue;
+                assertTrue(holder.compareAndSet(copy, 0, t + 1), "copy " + copy + " claimed twice");
+                LibrarySystem.Circulation was = book.circulation(copy);
+                assertFalse(was.issued);
+                assertTrue(book.transition(copy, was, was.issue(m, 100)));
+                issued.incrementAndGet();
+
+                LibrarySystem.Circulation out = book.circulation(copy);
+                assertEquals(m.id, out.memberId);
+                holder.set(copy, 0);
+                assertTrue(book.transition(copy, out, out.returned()));
+                returned.incrementAndGet();
+            }
+        });
+
+        assertTrue(issued.get() > THREADS, "threads never got a copy");
+        assertEquals(issued.get(), returned.get());
+        assertEquals(book.copies(), book.available());
+        for (int copy = 1; copy <= book.copies(); copy++) assertFalse(book.circulation(copy).issued);
+    }
+
+    @Test
+    void racingIssuesAndReturnsAgreeWithCountersAndLog() throws Exception {
+        LibraryService service = new LibraryService();
+        service.open().join();
+        List<String> bookIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) bookIds.add(service.addBook("Stress " + i, "Author", 3).join().id);
+        List<String> memberIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) memberIds.add(service.addMember("Member " + i, "m" + i + "@x").join().id);
+
+        Map<String, String> holders = new ConcurrentHashMap<>();
+        AtomicInteger issued = new AtomicInteger(), returned = new AtomicInteger();
+        runThreads(t -> {
+            Random random = new Random(t);
+            String member = memberIds.get(t);
+            for (int i = 0; i < 200; i++) {
+                String bookId = bookIds.get(random.nextInt(bookIds.size()));
+                LibraryService.IssueReceipt receipt;
+                try {
+                    receipt = service.issueBook(bookId, member).join();
+                } catch (CompletionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                    continue;
+                }
+                issued.incrementAndGet();
+                String key = bookId + "/" + receipt.copy;
+                assertNull(holders.putIfAbsent(key, member), key + " issued twice");
+                assertEquals(member, receipt.book.circulation(receipt.copy).memberId);
+                // Leave some loans out so the reloaded state is not all shelves.
+                if (i == 199 && t % 3 == 0) break;
+                holders.remove(key);
+                service.returnBook(bookId, receipt.copy).join();
+                returned.incrementAndGet();
+            }
+        });
+
+        assertTrue(returned.get() > THREADS, "threads never got a copy");
+        List<LibrarySystem.Book> before = service.books().join();
+        long issuedCopies = 0, totalCopies = 0;
+        for (LibrarySystem.Book b : before) {
+            totalCopies += b.copies();
+            for (int copy = 1; copy <= b.copies(); copy++) {
+                LibrarySystem.Circulation c = b.circulation(copy);
+                if (!c.issued) continue;
+                issuedCopies++;
+                assertEquals(holders.get(b.id + "/" + copy), c.memberId);
+            }
+        }
+        assertEquals(holders.size(), issuedCopies);
+        assertEquals(issued.get() - returned.get(), issuedCopies);
+        LibraryService.Stats stats = service.stats(0, 0).join();
+        assertEquals(issuedCopies, stats.issuedBooks);
+        assertEquals(totalCopies - issuedCopies, stats.availableBooks);
+        service.close();
+        assertTrue(Files.exists(data.resolve("snapshot.dat")), "checkpoints ran while the threads did");
+
+        LibraryService reloaded = new LibraryService();
+        assertNull(reloaded.open().join());
+        try {
+            List<LibrarySystem.Book> after = reloaded.books().join();
+            assertEquals(before.size(), after.size());
+            for (int i = 0; i < before.size(); i++) {
+                LibrarySystem.Book b = before.get(i), a = after.get(i);
+                assertEquals(b.id, a.id);
+                assertEquals(b.copies(), a.copies());
+                assertEquals(b.available(), a.available());
+                for (int copy = 1; copy <= b.copies(); copy++) {
+                    LibrarySystem.Circulation x = b.circulation(copy), y = a.circulation(copy);
+                    assertEquals(x.issued, y.issued, b.id + " copy " + copy);
+                    assertEquals(x.memberId, y.memberId, b.id + " copy " + copy);
+                    assertEquals(x.issueDay, y.issueDay, b.id + " copy " + copy);
+                }
+            }
+            assertEquals(issuedCopies, reloaded.stats(0, 0).join().issuedBooks);
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    /** Runs {@code worker} on {@link #THREADS} threads released together, rethrowing the first failure. */
+    private static void runThreads(Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+    }
+}
@@ -0,0 +1,139 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompanyTest {
+    private static final int THREADS = 8, IDS = 2000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void exactlyOneConcurrentAddPerIdSucceeds() throws Exception {
+        String data = dir.resolve("employees.dat").toString();
+        Company company = new Company(data);
+        AtomicIntegerArray added = new AtomicIntegerArray(IDS);
+        Map<String, Employee> winners = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                List<Integer> order = new ArrayList<>();
+                for (int i = 0; i < IDS; i++) order.add(i);
+                Collections.shuffle(order, new Random(thread));
+                try {
+                    start.await();
+                    for (int i : order) {
+                        Employee emp = new FullTimeEmployee("E" + i, "Thread " + (char) ('A' + thread), "Sales",
+                                i * 10 + thread);
+                        if (company.addEmployee(emp)) {
+                            added.incrementAndGet(i);
+                            winners.put(emp.getEmployeeId(), emp);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            worker.start();
+            threads.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : threads) worker.join();
+        assertEquals(List.of(), failures);
+
+        double total = 0;
+        for (int i = 0; i < IDS; i++) {
+            assertEquals(1, added.get(i), "E" + i);
+            assertSame(winners.get("E" + i), company.findEmployee("E" + i));
+            total += winners.get("E" + i).calculateSalary();
+        }
+        assertEquals(total, company.calculateTotalPayroll());
+        company.close();
+
+        Company reloaded = new Company(data);
+        try {
+            for (int i = 0; i < IDS; i++) {
+                assertEquals(winners.get("E" + i).calculateSalary(), reloaded.findEmployee("E" + i).calculateSalary());
+            }
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void closePersistsEveryQueuedChange() throws Exception {
+        String data = dir.resolve("employees.dat").toString();
+        Company company = new Company(data);
+        Map<String, String> expected = new HashMap<>();
+        Random random = new Random(9);
+        // Enough changes that the writer thread starts compactions along the way.
+        for (int step = 0; step < 20_000; step++) {
+            String id = "E" + random.nextInt(3000);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                Employee emp = new Manager(id, "Manager", "Ops", step, random.nextInt(100));
+                if (company.addEmployee(emp)) expected.put(id, EmployeeRecords.format(emp));
+            } else if (op < 9) {
+                if (company.removeEmployee(id)) expected.remove(id);
+            } else if (company.renameEmployee(id, "Renamed")) {
+                expected.put(id, EmployeeRecords.format(company.findEmployee(id)));
+            }
+        }
+        company.close();
+
+        assertEquals(0, Files.size(Path.of(data + ".log")));
+        assertFalse(Files.exists(Path.of(data + ".compacting")));
+        assertEquals(expected.size(), Files.readAllLines(Path.of(data)).size());
+        Company reloaded = new Company(data);
+        try {
+            for (int i = 0; i < 3000; i++) {
+                Employee emp = reloaded.findEmployee("E" + i);
+                assertEquals(expected.get("E" + i), emp == null ? null : EmployeeRecords.format(emp), "E" + i);
+            }
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void renamePublishesACopy() {
+        Company company = new Company(dir.resolve("employees.dat").toString());
+        try {
+            Employee asha = new PartTimeEmployee("E1", "Asha", "Sales", 300, 80);
+            assertTrue(company.addEmployee(asha));
+            assertEquals(List.of(asha), company.findEmployeesByName("ash"));
+
+            assertTrue(company.renameEmployee("E1", "Meera"));
+            assertEquals("Asha", asha.getName());
+            Employee meera = company.findEmployee("E1");
+            assertNotSame(asha, meera);
+            assertEquals("Meera", meera.getName());
+            assertEquals(24000, meera.calculateSalary());
+            assertEquals(List.of(meera), company.findEmployeesByName("MEE"));
+            assertEquals(List.of(), company.findEmployeesByName("ash"));
+
+            assertThrows(IllegalArgumentException.class, () -> company.renameEmployee("E1", "R2D2"));
+            assertSame(meera, company.findEmployee("E1"));
+            assertFalse(company.renameEmployee("E2", "Nobody"));
+        } finally {
+            company.close();
+        }
+    }
+}
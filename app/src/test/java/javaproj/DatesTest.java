@@ -0,0 +1,100 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DatesTest {
+    private static final int DAY = (int) LocalDate.of(2025, 3, 1).toEpochDay();
+
+    @AfterEach
+    void resetClock() {
+        Dates.clock = System::currentTimeMillis;
+    }
+
+    @Test
+    void finesStartTheDayAfterTheLoanPeriod() {
+        assertEquals(0, LibraryService.fine(DAY, DAY));
+        assertEquals(0, LibraryService.fine(DAY, DAY + LibraryService.LOAN_DAYS));
+        assertEquals(LibraryService.FINE_PER_DAY, LibraryService.fine(DAY, DAY + LibraryService.LOAN_DAYS + 1));
+        assertEquals(30 * LibraryService.FINE_PER_DAY, LibraryService.fine(DAY - 37, DAY));
+        assertEquals(0, LibraryService.fine(DAY, DAY - 100), "returned before it was issued");
+        // Epoch days far apart do not overflow.
+        assertEquals(((long) Integer.MAX_VALUE - Integer.MIN_VALUE - LibraryService.LOAN_DAYS) * LibraryService.FINE_PER_DAY,
+                LibraryService.fine(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+        assertEquals(0, LibraryService.fine(LibrarySystem.Circulation.issued("M1", "Riya", Dates.today())));
+        assertEquals(3 * LibraryService.FINE_PER_DAY,
+                LibraryService.fine(LibrarySystem.Circulation.issued("M1", "Riya", Dates.today() - 10)));
+    }
+
+    @Test
+    void formatsAndParsesDayMonthYear() {
+        assertEquals("01-01-1970", Dates.format(0));
+        assertEquals("31-12-1969", Dates.format(-1));
+        assertEquals("29-02-2024", Dates.format((int) LocalDate.of(2024, 2, 29).toEpochDay()));
+        assertEquals("05-01-0987", Dates.format((int) LocalDate.of(987, 1, 5).toEpochDay()));
+        assertEquals("01-03-2025", Dates.format(DAY));
+
+        assertEquals(DAY, Dates.parse("01-03-2025"));
+        assertEquals(-1, Dates.parse("31-12-1969"));
+        for (String bad : new String[]{"31-02-2025", "29-02-2023", "1-3-2025", "2025-03-01", "01-13-2025", "", "01-03-25"}) {
+            assertThrows(DateTimeParseException.class, () -> Dates.parse(bad), bad);
+        }
+        for (int day = DAY - 3000; day < DAY + 3000; day++) assertEquals(day, Dates.parse(Dates.format(day)));
+    }
+
+    @Test
+    void cachedStringsNeverMixUpDaysSharingASlot() throws Exception {
+        // Days 1024 apart share a cache slot; racing threads must still each see their own day.
+        int[] days = {DAY, DAY + 1024, DAY - 1024, DAY + 4096};
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int day = days[t];
+            String expected = Dates.FORMAT.format(LocalDate.ofEpochDay(day));
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 200_000; i++) assertEquals(expected, Dates.format(day));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void todayMovesOnAtMidnight() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = LocalDate.of(2025, 3, 1);
+        long midnight = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+        Dates.clock = () -> midnight - 1;
+        assertEquals(DAY, Dates.today());
+        assertEquals(DAY, Dates.epochDay(midnight - 1));
+        Dates.clock = () -> midnight;
+        assertEquals(DAY + 1, Dates.today());
+        assertEquals(DAY, Dates.epochDay(midnight - 1));
+        assertEquals(DAY + 1, Dates.epochDay(midnight));
+        Dates.clock = () -> midnight - 1;
+        assertEquals(DAY, Dates.today(), "a clock set back is followed too");
+        long later = date.plusDays(401).atTime(12, 0).atZone(zone).toInstant().toEpochMilli();
+        Dates.clock = () -> later;
+        assertEquals(DAY + 401, Dates.today());
+    }
+}
@@ -0,0 +1,154 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EmployeeLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysTheLogOverTheDataFile() throws IOException {
+        Path data = dir.resolve("employees.dat");
+        Files.write(data, List.of(
+                record(new FullTimeEmployee("E1", "Asha", "Sales", 50000)),
+                record(new PartTimeEmployee("E2", "Ravi", "Support", 300, 80)),
+                record(new Manager("E3", "Meera", "Sales", 90000, 10000))));
+        Files.write(Path.of(data + ".log"), List.of(
+                "+ " + record(new FullTimeEmployee("E1", "Asha Rao", "Finance", 55000)),
+                "- E2",
+                "+ " + record(new PartTimeEmployee("E4", "Kiran", "Support", 250, 40))));
+
+        Company company = new Company(data.toString());
+        try {
+            assertEquals("Asha Rao", company.findEmployee("E1").getName());
+            assertEquals(55000, company.findEmployee("E1").calculateSalary());
+            assertNull(company.findEmployee("E2"));
+            assertEquals(100000, company.findEmployee("E3").calculateSalary());
+            assertEquals(10000, company.findEmployee("E4").calculateSalary());
+            assertEquals(165000, company.calculateTotalPayroll());
+        } finally {
+            company.close();
+        }
+        assertEquals(0, Files.size(Path.of(data + ".log")));
+        assertEquals(3, Files.readAllLines(data).size());
+    }
+
+    @Test
+    void addThenRemoveReplaysToAbsent() throws IOException {
+        String data = dir.resolve("employees.dat").toString();
+        try (EmployeeLog log = new EmployeeLog(data)) {
+            log.open();
+            log.put(new FullTimeEmployee("E1", "Asha", "Sales", 50000));
+            log.put(new FullTimeEmployee("E2", "Ravi", "Sales", 40000));
+            log.remove("E1");
+            log.rotate();
+            log.remove("E2");
+            log.put(new FullTimeEmployee("E1", "Asha", "Finance", 60000));
+            log.remove("E1");
+            log.flush();
+        }
+
+        Map<String, String> replayed = replay(data);
+        assertTrue(replayed.isEmpty(), replayed.toString());
+        Company company = new Company(data);
+        try {
+            assertNull(company.findEmployee("E1"));
+            assertNull(company.findEmployee("E2"));
+            assertEquals(0, company.calculateTotalPayroll());
+        } finally {
+            company.close();
+        }
+    }
+
+    @Test
+    void recoversFromACrashBetweenRotateAndCompacted() throws IOException {
+        String data = dir.resolve("employees.dat").toString();
+        Files.write(Path.of(data), List.of(record(new FullTimeEmployee("E1", "Asha", "Sales", 50000))));
+        try (EmployeeLog log = new EmployeeLog(data)) {
+            log.open();
+            log.put(new FullTimeEmployee("E2", "Ravi", "Sales", 40000));
+            log.put(new FullTimeEmployee("E3", "Meera", "Support", 30000));
+            log.remove("E1");
+            log.rotate();
+            // The compactor would now write the data file and call compacted(); it never gets there.
+            log.put(new FullTimeEmployee("E3", "Meera", "Finance", 35000));
+            log.put(new FullTimeEmployee("E4", "Kiran", "Support", 20000));
+            log.flush();
+            assertTrue(log.interruptedCompaction());
+        }
+        Map<String, String> expected = replay(data);
+        assertEquals(Set.of("E2", "E3", "E4"), expected.keySet());
+
+        Company company = new Company(data);
+        try {
+            assertEquals(expected, contents(company, expected.keySet()));
+            assertNull(company.findEmployee("E1"));
+            assertEquals("Finance", company.findEmployee("E3").getDepartment());
+        } finally {
+            company.close();
+        }
+        assertFalse(Files.exists(Path.of(data + ".compacting")));
+
+        Company reloaded = new Company(data);
+        try {
+            assertEquals(expected, contents(reloaded, expected.keySet()));
+            assertNull(reloaded.findEmployee("E1"));
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void aCompactionLeftHalfDoneIsFinishedOnLoad() throws IOException {
+        String data = dir.resolve("employees.dat").toString();
+        try (EmployeeLog log = new EmployeeLog(data)) {
+            log.open();
+            log.put(new FullTimeEmployee("E1", "Asha", "Sales", 50000));
+            log.rotate();
+            log.flush();
+        }
+
+        Company company = new Company(data);
+        company.close();
+        assertFalse(Files.exists(Path.of(data + ".compacting")));
+        assertEquals(List.of(record(new FullTimeEmployee("E1", "Asha", "Sales", 50000))), Files.readAllLines(Path.of(data)));
+    }
+
+    /** What the base file and the logs hold, as ID to record line, applying changes in order. */
+    private static Map<String, String> replay(String data) throws IOException {
+        Map<String, String> employees = new HashMap<>();
+        Path base = Path.of(data);
+        if (Files.exists(base)) {
+            for (String line : Files.readAllLines(base)) {
+                Employee emp = EmployeeRecords.parse(line);
+                employees.put(emp.getEmployeeId(), line);
+            }
+        }
+        new EmployeeLog(data).replay((line, lineNo) -> employees.put(EmployeeRecords.parse(line, lineNo).getEmployeeId(),
+                line), employees::remove);
+        return employees;
+    }
+
+    private static Map<String, String> contents(Company company, Iterable<String> ids) {
+        Map<String, String> found = new HashMap<>();
+        for (String id : ids) {
+            Employee emp = company.findEmployee(id);
+            if (emp != null) found.put(id, record(emp));
+        }
+        return found;
+    }
+
+    private static String record(Employee emp) {
+        return EmployeeRecords.format(emp);
+    }
+}
@@ -0,0 +1,87 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EmployeeRecordsTest {
+    private static final String[] AWKWARD = {
+        "Rao, Asha", "Asha=Rao", "back\\slash", "trailing\\", "two\nlines", "cr\r\nlf", "a, b=c, d", ",=\\,", "Zoë — 東京"
+    };
+
+    @Test
+    void roundTripsNamesAndDepartmentsWithSeparatorsAndLineBreaks() {
+        for (String name : AWKWARD) {
+            for (String dept : AWKWARD) {
+                assertRoundTrip(new FullTimeEmployee("E1", name, dept, 50000));
+                assertRoundTrip(new PartTimeEmployee("E,2", name, dept, 312.5, 80.25));
+                assertRoundTrip(new Manager("E=3", name, dept, 90000, 12345.67));
+            }
+        }
+        String line = EmployeeRecords.format(new FullTimeEmployee("E1", "two\nlines", "Sales", 1));
+        assertFalse(line.contains("\n"), line);
+    }
+
+    @Test
+    void readsLegacyUnescapedLines() {
+        Employee emp = EmployeeRecords.parse(
+                "{type=manager, employee_id=E1, name=Rao, Asha, department=Sales=East, monthly_salary=50000.0, bonus=5000.0}");
+        assertTrue(emp instanceof Manager);
+        assertEquals("Rao, Asha", emp.getName());
+        assertEquals("Sales=East", emp.getDepartment());
+        assertEquals(55000, emp.calculateSalary());
+
+        Employee pt = EmployeeRecords.parse(
+                "  {type=parttimeemployee, employee_id=E2, name=Ravi, department=Support, hours_worked=80, hourly_rate=300}  ");
+        assertEquals(24000, pt.calculateSalary());
+    }
+
+    @Test
+    void numbersMatchDoubleParseDouble() {
+        for (String n : new String[]{"0", "-0.0", "50000.0", "1.5", "0.1", "123456789012345", "1234567890123456",
+                "0.12345678901234567890", "1.0E7", "1.23456789E7", "5e-3", "4.9E-324", "1.7976931348623157E308",
+                "0.000000000000000000001", "007.50", " 42.5 "}) {
+            assertNumber(n);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            double value = random.nextInt(4) == 0 ? random.nextDouble() * Math.pow(10, random.nextInt(20) - 5)
+                    : Math.round(random.nextDouble() * 1e8) / 100.0;
+            assertNumber(Double.toString(value));
+            assertNumber(String.format("%.6f", value));
+        }
+    }
+
+    @Test
+    void reportsTheLineOfAMalformedRecord() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EmployeeRecords.parse("{type=fulltimeemployee, employee_id=E1, name=Asha, department=Sales}", 17));
+        assertEquals("line 17: missing monthly_salary", e.getMessage());
+
+        e = assertThrows(IllegalArgumentException.class, () -> EmployeeRecords.parse(
+                "{type=fulltimeemployee, employee_id=E1, name=Asha, department=Sales, monthly_salary=lots}", 3));
+        assertEquals("line 3: bad number 'lots'", e.getMessage());
+
+        for (String bad : new String[]{"", "type=manager", "{type=intern, employee_id=E1, name=A, department=B}", "{novalue}"}) {
+            e = assertThrows(IllegalArgumentException.class, () -> EmployeeRecords.parse(bad, 42), bad);
+            assertTrue(e.getMessage().startsWith("line 42: "), e.getMessage());
+        }
+    }
+
+    private static void assertNumber(String n) {
+        String line = "x" + n + "y";
+        assertEquals(Double.parseDouble(n), EmployeeRecords.number(line, 1, line.length() - 1), n);
+    }
+
+    private static void assertRoundTrip(Employee emp) {
+        String line = EmployeeRecords.format(emp);
+        Employee back = EmployeeRecords.parse(line, 1);
+        assertEquals(emp.getClass(), back.getClass(), line);
+        assertEquals(emp.getEmployeeId(), back.getEmployeeId(), line);
+        assertEquals(emp.getName(), back.getName(), line);
+        assertEquals(emp.getDepartment(), back.getDepartment(), line);
+        assertEquals(emp.calculateSalary(), back.calculateSalary(), line);
+        assertEquals(line, EmployeeRecords.format(back));
+    }
+}
@@ -0,0 +1,78 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HoldQueueTest {
+
+    @Test
+    void servesInOrderAndCountsPlaces() {
+        HoldQueue q = new HoldQueue();
+        assertNull(q.first());
+        assertTrue(q.add("M1"));
+        assertTrue(q.add("M2"));
+        assertTrue(q.add("M3"));
+        assertFalse(q.add("M2"));
+        assertEquals(3, q.waiting());
+        assertEquals(2, q.position("M2"));
+        assertEquals(0, q.position("M9"));
+
+        assertTrue(q.remove("M2"));
+        assertFalse(q.remove("M2"));
+        assertEquals(2, q.position("M3"), "cancelled holds ahead do not count");
+        assertEquals("M1", q.first());
+        assertTrue(q.remove("M1"));
+        assertEquals("M3", q.first(), "the dead slot at the front is skipped");
+        assertEquals(1, q.position("M3"));
+        assertEquals(List.of("M3"), q.members());
+        assertTrue(q.remove("M3"));
+        assertEquals(0, q.waiting());
+        assertNull(q.first());
+        assertTrue(q.add("M2"), "a served member may hold again");
+        assertEquals(1, q.position("M2"));
+    }
+
+    @Test
+    void matchesAListUnderRandomChurn() {
+        HoldQueue q = new HoldQueue();
+        List<String> model = new ArrayList<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 200_000; step++) {
+            String member = "M" + random.nextInt(500);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                assertEquals(!model.contains(member), q.add(member));
+                if (!model.contains(member)) model.add(member);
+            } else if (op < 7 && !model.isEmpty()) {
+                assertEquals(model.get(0), q.first());
+                assertTrue(q.remove(model.remove(0)));
+            } else {
+                assertEquals(model.remove(member), q.remove(member));
+            }
+            assertEquals(model.size(), q.waiting());
+            if (step % 1000 == 0) {
+                assertEquals(model, q.members());
+                for (int i = 0; i < model.size(); i++) assertEquals(i + 1, q.position(model.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void compactsLongRunsOfCancelledHolds() {
+        HoldQueue q = new HoldQueue();
+        q.add("first");
+        for (int i = 0; i < 100_000; i++) q.add("M" + i);
+        q.add("last");
+        for (int i = 0; i < 100_000; i++) q.remove("M" + i);
+        assertEquals(2, q.waiting());
+        assertEquals(2, q.position("last"));
+        assertEquals(List.of("first", "last"), q.members());
+        q.remove("first");
+        assertEquals("last", q.first());
+        assertEquals(1, q.position("last"));
+    }
+}
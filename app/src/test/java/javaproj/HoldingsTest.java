@@ -0,0 +1,99 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class HoldingsTest {
+    private static final LibrarySystem.Member MEMBER = new LibrarySystem.Member("M1", "Riya", "");
+
+    @Test
+    void claimsLowestFreeCopyAcrossWords() {
+        Holdings h = new Holdings(130);
+        for (int copy = 1; copy <= 130; copy++) assertEquals(copy, h.claim());
+        assertEquals(0, h.claim());
+        assertEquals(0, h.available());
+
+        h.release(64);
+        h.release(65);
+        h.release(129);
+        assertEquals(3, h.available());
+        assertEquals(64, h.claim());
+        assertEquals(65, h.claim());
+        assertEquals(129, h.claim());
+        assertEquals(0, h.claim());
+    }
+
+    @Test
+    void bitFollowsPublishedState() {
+        Holdings h = new Holdings(3);
+        int copy = h.claim();
+        LibrarySystem.Circulation free = h.state(copy), busy = free.busy();
+        assertTrue(h.transition(copy, free, busy));
+        assertEquals(2, h.available(), "a busy copy stays claimed");
+        assertFalse(h.transition(copy, free, free.issue(MEMBER, 1)), "stale expected state");
+
+        LibrarySystem.Circulation out = free.issue(MEMBER, 1);
+        assertTrue(h.transition(copy, busy, out));
+        assertEquals(2, h.available());
+        h.release(copy);
+        assertEquals(2, h.available(), "releasing an issued copy keeps it taken");
+
+        assertTrue(h.transition(copy, out, out.returned()));
+        assertEquals(3, h.available());
+
+        h.restore(2, LibrarySystem.Circulation.AVAILABLE.remove());
+        assertEquals(2, h.available());
+        assertEquals(1, h.claim());
+        assertEquals(3, h.claim());
+        assertEquals(0, h.claim());
+    }
+
+    @Test
+    void growKeepsStatesAndAddsFreeCopies() {
+        Holdings h = new Holdings(63);
+        for (int i = 0; i < 63; i++) h.claim();
+        LibrarySystem.Circulation out = h.state(5).issue(MEMBER, 7);
+        assertTrue(h.transition(5, h.state(5), out));
+        for (int copy = 1; copy <= 63; copy++) if (copy != 5) h.release(copy);
+
+        Holdings bigger = h.grow(2);
+        assertEquals(65, bigger.copies());
+        assertEquals(64, bigger.available());
+        assertSame(out, bigger.state(5));
+        assertEquals(1, bigger.claim());
+    }
+
+    @Test
+    void concurrentClaimsGetDistinctCopies() throws Exception {
+        Holdings h = new Holdings(200);
+        int threads = 64;
+        ConcurrentHashMap<Integer, Boolean> claimed = new ConcurrentHashMap<>();
+        AtomicReference<String> duplicate = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> running = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int copy; (copy = h.claim()) != 0; )
+                    if (claimed.putIfAbsent(copy, true) != null) duplicate.set("copy " + copy);
+            });
+            thread.start();
+            running.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : running) thread.join();
+        assertNull(duplicate.get());
+        assertEquals(200, claimed.size());
+        assertEquals(0, h.available());
+    }
+}
@@ -0,0 +1,108 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LibraryHttpServerTest {
+    @TempDir
+    Path data;
+
+    private LibraryService service;
+    private LibraryHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void startOnLoopback() throws IOException {
+        System.setProperty("library.data", data.toString());
+        System.setProperty("library.fsync", "never");
+        service = new LibraryService();
+        assertNull(service.open().join());
+        server = new LibraryHttpServer(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.stop(0);
+        service.close();
+        System.clearProperty("library.data");
+        System.clearProperty("library.fsync");
+    }
+
+    @Test
+    void issuesSearchesCountsAndReturns() throws Exception {
+        HttpResponse<String> issued = send("POST", "/books/B1/issue?member=m1");
+        assertEquals(200, issued.statusCode(), issued.body());
+        assertTrue(issued.body().contains("\"copy\":1"), issued.body());
+        assertEquals(409, send("POST", "/books/B1/issue?member=M2").statusCode());
+        assertEquals(404, send("POST", "/books/B99/issue?member=M2").statusCode());
+
+        HttpResponse<String> found = send("GET", "/books?q=alchem*");
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().startsWith("[{\"id\":\"B1\""), found.body());
+        assertTrue(found.body().contains("\"memberId\":\"M1\""), found.body());
+        assertEquals("[]", send("GET", "/books?q=nothing+like+it").body());
+
+        HttpResponse<String> stats = send("GET", "/stats");
+        assertEquals(200, stats.statusCode());
+        assertTrue(stats.body().contains("\"issuedBooks\":1"), stats.body());
+        assertTrue(stats.body().contains("\"titles\":5"), stats.body());
+
+        HttpResponse<String> returned = send("POST", "/books/B1/return");
+        assertEquals(200, returned.statusCode(), returned.body());
+        assertTrue(returned.body().contains("\"issuedTo\":\"Riya Sharma\""), returned.body());
+        assertEquals(409, send("POST", "/books/B1/return").statusCode());
+        assertTrue(send("GET", "/stats").body().contains("\"issuedBooks\":0"));
+    }
+
+    @Test
+    void booksComeInPages() throws Exception {
+        String first = send("GET", "/books?limit=2").body();
+        assertTrue(first.contains("\"B1\"") && first.contains("\"B2\"") && !first.contains("\"B3\""), first);
+        String last = send("GET", "/books?offset=4&limit=10").body();
+        assertTrue(last.startsWith("[{\"id\":\"B5\"") && !last.contains("\"B4\""), last);
+        assertEquals("[]", send("GET", "/books?offset=50").body());
+        assertEquals(400, send("GET", "/books?limit=5000").statusCode());
+    }
+
+    @Test
+    void booksByTitleOrAuthorPrefix() throws Exception {
+        // Sample titles: The Alchemist, The Power of Your Subconscious Mind, Think Like a Monk, ...
+        String the = send("GET", "/books?title=the%20").body();
+        assertTrue(the.startsWith("[{\"id\":\"B1\"") && the.contains("\"B3\"") && !the.contains("\"B4\""), the);
+        String second = send("GET", "/books?title=th&offset=1&limit=1").body();
+        assertTrue(second.startsWith("[{\"id\":\"B3\"") && !second.contains("\"B4\""), second);
+        assertTrue(send("GET", "/books?author=JAY").body().startsWith("[{\"id\":\"B4\""));
+        assertEquals("[]", send("GET", "/books?author=nobody").body());
+        assertEquals(400, send("GET", "/books?title=a&author=b").statusCode());
+    }
+
+    @Test
+    void badQueriesAreRefused() throws Exception {
+        assertEquals(400, send("GET", "/stats?limit=abc").statusCode());
+        assertEquals(400, send("GET", "/overdue?offset=-1").statusCode());
+        assertEquals(400, send("GET", "/books?q=x&offset=many").statusCode());
+        assertEquals(400, send("POST", "/books/B1/issue").statusCode());
+        assertEquals(400, send("GET", "/history?from=yesterday").statusCode());
+        assertEquals(405, send("GET", "/books/B1/issue?member=M1").statusCode());
+        assertEquals(404, send("GET", "/nowhere").statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,258 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LibraryServiceTest {
+    @TempDir
+    Path data;
+
+    private LibraryService service;
+
+    @BeforeEach
+    void open() {
+        System.setProperty("library.data", data.toString());
+        System.setProperty("library.fsync", "never");
+        service = new LibraryService();
+        assertNull(service.open().join());
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        service.close();
+        System.clearProperty("library.data");
+        System.clearProperty("library.fsync");
+    }
+
+    @Test
+    void memberLoansAcceptTheIdAsTyped() {
+        service.issueBook("B1", "M2").join();
+        for (String id : new String[]{"M2", "m2", " M2 "}) {
+            List<LibraryService.Loan> loans = service.memberLoans(id).join();
+            assertEquals(1, loans.size(), id);
+            assertEquals("B1", loans.get(0).bookId);
+            assertEquals("M2", loans.get(0).state.memberId);
+        }
+        assertFailsWith(IllegalArgumentException.class, service.memberLoans("M99"));
+    }
+
+    @Test
+    void holdsAcceptTheMemberIdAsTyped() {
+        service.issueBook("B1", "M1").join();
+        assertEquals(1, service.placeHold("B1", "m2").join());
+        assertEquals(1, service.holdPosition("B1", "M2").join());
+        assertEquals(1, service.holdPosition("B1", " m2").join());
+        assertFailsWith(IllegalArgumentException.class, service.cancelHold("B1", "M99"));
+        service.cancelHold("B1", "m2 ").join();
+        assertEquals(0, service.holdPosition("B1", "M2").join());
+        assertEquals(0, service.holdsWaiting("B1").join());
+        assertFailsWith(IllegalStateException.class, service.cancelHold("B1", "M2"));
+    }
+
+    @Test
+    void returnHandsTheCopyToTheFirstHold() {
+        service.issueBook("B1", "M1").join();
+        service.placeHold("B1", "M2").join();
+        service.placeHold("B1", "M3").join();
+        assertFailsWith(IllegalStateException.class, service.issueBook("B1", "M3"));
+
+        LibraryService.ReturnReceipt receipt = service.returnBook("B1").join();
+        assertEquals("Aman Verma", receipt.heldFor);
+        assertEquals("M2", receipt.book.circulation(1).memberId);
+        assertEquals(1, service.holdPosition("B1", "M3").join());
+        assertEquals(1, service.stats(0, 0).join().holds);
+    }
+
+    @Test
+    void removedMemberNeverKeepsALoan() {
+        for (int i = 0; i < 200; i++) {
+            String member = service.addMember("Racer " + i, "r@x").join().id;
+            CompletableFuture<LibraryService.IssueReceipt> issue = service.issueBook("B1", member);
+            CompletableFuture<LibrarySystem.Member> remove = service.removeMember(member);
+            boolean issued = succeeded(issue), removed = succeeded(remove);
+            assertFalse(issued && removed, "member " + member + " removed with a book out");
+            if (issued) service.returnBook("B1").join();
+        }
+    }
+
+    @Test
+    void historyRecordsIssuesAndReturnsUpToTheLimit() throws Exception {
+        service.issueBook("B2", "m1").join();
+        service.returnBook("B2").join();
+        int today = Dates.today();
+        List<CirculationHistory.Event> events = List.of();
+        // Events reach the history on its own thread.
+        for (int i = 0; i < 100 && events.size() < 2; i++) {
+            Thread.sleep(20);
+            events = service.circulationHistory(today, today, null, "B2", null, 10).join();
+        }
+        assertEquals(2, events.size());
+        assertEquals(CirculationHistory.Kind.ISSUE, events.get(0).kind);
+        assertEquals(CirculationHistory.Kind.RETURN, events.get(1).kind);
+        assertEquals("M1", events.get(1).memberId);
+        assertEquals(1, service.circulationHistory(today, today, null, "B2", null, 1).join().size());
+        assertTrue(service.circulationHistory(today, today, null, "B2", null, 0).join().isEmpty());
+    }
+
+    @Test
+    void historyAcceptsTheIdsAsTyped() throws Exception {
+        service.issueBook("B3", "M2").join();
+        int today = Dates.today();
+        List<CirculationHistory.Event> events = List.of();
+        for (int i = 0; i < 100 && events.isEmpty(); i++) {
+            Thread.sleep(20);
+            events = service.circulationHistory(today, today, null, null, "m2", 10).join();
+        }
+        assertEquals(1, events.size());
+        assertEquals("B3", events.get(0).bookId);
+        assertEquals(1, service.circulationHistory(today, today, null, " b3 ", " M2", 10).join().size());
+        assertTrue(service.circulationHistory(today, today, null, "b3", "M1", 10).join().isEmpty());
+
+        // A removed book is no longer in the catalog to resolve against, so its ID is taken as given.
+        service.returnBook("B3").join();
+        service.removeBook("B3").join();
+        for (int i = 0; i < 100 && events.size() < 2; i++) {
+            Thread.sleep(20);
+            events = service.circulationHistory(today, today, null, "B3", null, 10).join();
+        }
+        assertEquals(2, events.size());
+        assertTrue(service.circulationHistory(today, today, null, "b3", null, 10).join().isEmpty());
+    }
+
+    @Test
+    void countersFollowIssueReturnRemoveAndImport() throws Exception {
+        assertCounters(5, 5, 0, 3, 0);
+        service.issueBook("B1", "M1").join();
+        service.placeHold("B1", "M2").join();
+        assertCounters(5, 5, 1, 3, 1);
+
+        LibrarySystem.Book emma = service.addBook("Emma", "Jane Austen", 3).join();
+        service.issueBook(emma.id, "M3").join();
+        service.addCopies("B2", 2).join();
+        assertCounters(6, 10, 2, 3, 1);
+        service.removeBook(emma.id).join();
+        assertCounters(5, 7, 1, 3, 1);
+
+        // The copy goes straight to the member on hold, so it stays issued.
+        assertEquals("Aman Verma", service.returnBook("B1").join().heldFor);
+        assertCounters(5, 7, 1, 3, 0);
+        service.returnBook("B1").join();
+        assertCounters(5, 7, 0, 3, 0);
+
+        String member = service.addMember("Kiran Rao", "kiran@example.com").join().id;
+        assertCounters(5, 7, 0, 4, 0);
+        service.removeMember(member).join();
+        assertCounters(5, 7, 0, 3, 0);
+
+        Path file = data.resolve("import.csv");
+        Files.writeString(file, "title,author\nEmma,Jane Austen\nPersuasion,Jane Austen\nThe Alchemist,Paulo Coelho\n");
+        LibraryService.ImportReport report = service.importBooks(file, null).join();
+        assertEquals(2, report.imported);
+        assertEquals(1, report.duplicates);
+        assertCounters(7, 9, 0, 3, 0);
+    }
+
+    @Test
+    void importSkipsDuplicatesWithinAndAcrossBatchesAndRejectsBadRows() throws Exception {
+        int rows = LibraryService.IMPORT_BATCH * 2 + 500;
+        StringBuilder csv = new StringBuilder("author,title\n");
+        for (int i = 0; i < rows; i++) csv.append("Writer ").append(i % 7).append(",Title ").append(i).append('\n');
+        // Again, differently cased: one from an earlier batch, one from the same batch.
+        csv.append("WRITER 3,title 3\n");
+        csv.append("writer 2,TITLE ").append(rows - 499).append('\n');
+        csv.append("Paulo Coelho,the alchemist\n");
+        csv.append("Nobody,\n");
+        csv.append(",No Author\n");
+        csv.append("Writer 1,Title ").append(rows).append('\n');
+        Path file = data.resolve("import.csv");
+        Files.writeString(file, csv);
+
+        List<Long> progress = new ArrayList<>();
+        LibraryService.ImportReport report = service.importBooks(file, r -> progress.add(r.imported)).join();
+        assertEquals(rows + 6, report.read);
+        assertEquals(rows + 1, report.imported);
+        assertEquals(3, report.duplicates);
+        assertEquals(2, report.rejected);
+        assertEquals(List.of("line " + (rows + 5) + ": missing title", "line " + (rows + 6) + ": missing author"),
+                report.errors);
+        assertEquals(List.of((long) LibraryService.IMPORT_BATCH, 2L * LibraryService.IMPORT_BATCH, (long) rows + 1),
+                progress);
+        assertEquals(5 + rows + 1, service.stats(0, 0).join().titles);
+        assertEquals(1, service.booksByPrefix("title 3", false, 0, 100).join().stream()
+                .filter(b -> b.title.equals("Title 3")).count());
+
+        LibraryService.ImportReport again = service.importBooks(file, null).join();
+        assertEquals(0, again.imported);
+        assertEquals(rows + 4, again.duplicates);
+    }
+
+    @Test
+    void aBookAddedDuringAnImportIsNotImportedAgain() throws Exception {
+        // The book is added after the first batch; the reader is at most a few batches ahead by then.
+        int rows = LibraryService.IMPORT_BATCH * (LibraryService.IMPORT_AHEAD + 2);
+        StringBuilder csv = new StringBuilder("title,author\n");
+        for (int i = 0; i < rows; i++) csv.append("Title ").append(i).append(",Writer\n");
+        csv.append("emma,JANE AUSTEN\n");
+        Path file = data.resolve("import.csv");
+        Files.writeString(file, csv);
+
+        List<CompletableFuture<LibrarySystem.Book>> added = new ArrayList<>();
+        LibraryService.ImportReport report = service.importBooks(file, r -> {
+            if (added.isEmpty()) added.add(service.addBook("Emma", "Jane Austen", 1));
+        }).join();
+        assertEquals("Emma", added.get(0).join().title);
+        assertEquals(rows, report.imported);
+        assertEquals(1, report.duplicates);
+        assertEquals(1, service.booksByPrefix("emma", false, 0, 10).join().size());
+    }
+
+    /** Checks the stats counters, and that they match a count over the catalog itself. */
+    private void assertCounters(long titles, long copies, long issued, long members, long holds) {
+        LibraryService.Stats stats = service.stats(0, 100).join();
+        assertEquals(titles, stats.titles, "titles");
+        assertEquals(copies, stats.totalBooks, "copies");
+        assertEquals(issued, stats.issuedBooks, "issued");
+        assertEquals(copies - issued, stats.availableBooks, "available");
+        assertEquals(members, stats.members, "members");
+        assertEquals(holds, stats.holds, "holds");
+        assertEquals(issued, stats.issued.size());
+
+        long counted = 0, out = 0, waiting = 0;
+        for (LibrarySystem.Book b : service.books().join()) {
+            counted += b.copies();
+            out += b.copies() - b.available();
+            waiting += service.holdsWaiting(b.id).join();
+        }
+        assertEquals(titles, service.books().join().size());
+        assertEquals(copies, counted);
+        assertEquals(issued, out);
+        assertEquals(holds, waiting);
+        assertEquals(members, service.members().join().size());
+    }
+
+    private static boolean succeeded(CompletableFuture<?> op) {
+        try {
+            op.join();
+            return true;
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException || e.getCause() instanceof IllegalArgumentException,
+                    String.valueOf(e.getCause()));
+            return false;
+        }
+    }
+
+    static void assertFailsWith(Class<? extends Throwable> type, CompletableFuture<?> op) {
+        CompletionException e = assertThrows(CompletionException.class, op::join);
+        assertInstanceOf(type, e.getCause());
+    }
+}
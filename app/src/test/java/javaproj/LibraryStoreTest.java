@@ -0,0 +1,172 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LibraryStoreTest {
+    private static final int DAY = 19_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRestoresEveryEvent() throws IOException {
+        try (LibraryStore store = open()) {
+            assertNull(store.recover(), "nothing on disk yet");
+            writeFirstRun(store);
+        }
+        try (LibraryStore store = open()) {
+            checkFirstRun(store.recover());
+        }
+    }
+
+    @Test
+    void snapshotAndLaterSegmentsReplayTogether() throws IOException {
+        try (LibraryStore store = open()) {
+            store.recover();
+            writeFirstRun(store);
+        }
+        try (LibraryStore store = open()) {
+            LibraryStore.Recovered r = store.recover();
+            store.checkpoint(r.books, r.members, r.nextBookNumber, r.nextMemberNumber);
+            store.bookReturned("B2", 1);
+            store.bookIssued("B2", 1, "M2", "Arjun", DAY + 1);
+        }
+        try (LibraryStore store = open()) {
+            LibraryStore.Recovered r = store.recover();
+            LibrarySystem.Circulation c = book(r, "B2").circulation(1);
+            assertTrue(c.issued);
+            assertEquals("M2", c.memberId);
+            assertEquals(DAY + 1, c.issueDay);
+            assertEquals(3, r.nextBookNumber);
+            assertEquals(3, r.nextMemberNumber);
+        }
+    }
+
+    @Test
+    void changesWhileTheSnapshotIsWrittenLandInTheNextSegment() throws IOException {
+        try (LibraryStore store = open()) {
+            store.recover();
+            writeFirstRun(store);
+        }
+        try (LibraryStore store = open()) {
+            LibraryStore.Recovered r = store.recover();
+            SnapshotFile.Cut cut = store.beginCheckpoint(r.books, r.members, r.nextBookNumber, r.nextMemberNumber);
+            // The cut holds the loan as it was; the live book moves on before the snapshot is written.
+            book(r, "B2").restore(1, LibrarySystem.Circulation.AVAILABLE);
+            store.bookReturned("B2", 1);
+            store.finishCheckpoint(cut);
+            assertFalse(Files.exists(dir.resolve("wal-00000001.log")));
+            assertFalse(Files.exists(dir.resolve("wal-00000002.log")));
+        }
+        try (LibraryStore store = open()) {
+            LibraryStore.Recovered r = store.recover();
+            assertFalse(book(r, "B2").circulation(1).issued);
+            assertTrue(book(r, "B1").circulation(2).issued);
+        }
+    }
+
+    @Test
+    void checkpointFallsDueOnLogBytes() throws IOException {
+        try (LibraryStore store = new LibraryStore(dir, LibraryStore.FsyncPolicy.EVERY_COMMIT, 0, 1000, 0)) {
+            store.recover();
+            assertFalse(store.checkpointDue());
+            for (int i = 0; !store.checkpointDue(); i++) {
+                assertTrue(i < 100, "due after about 1000 bytes");
+                store.memberAdded(new LibrarySystem.Member("M" + i, "Member " + i, ""));
+            }
+            store.checkpoint(List.of(), List.of(), 1, 100);
+            assertFalse(store.checkpointDue());
+        }
+    }
+
+    @Test
+    void tornTailOfTheNewestSegmentIsCutOff() throws IOException {
+        try (LibraryStore store = open()) {
+            store.recover();
+            writeFirstRun(store);
+        }
+        Path segment = dir.resolve("wal-00000001.log");
+        long size = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 30, 9, 9, 9, 9, 1, 2}, StandardOpenOption.APPEND);
+
+        try (LibraryStore store = open()) {
+            checkFirstRun(store.recover());
+            assertEquals(size, Files.size(segment));
+        }
+    }
+
+    @Test
+    void damageBeforeTheNewestSegmentFailsRecovery() throws IOException {
+        try (LibraryStore store = open()) {
+            store.recover();
+            writeFirstRun(store);
+        }
+        try (LibraryStore store = open()) {
+            store.recover();
+            store.bookReturned("B2", 1);
+        }
+        Path older = dir.resolve("wal-00000001.log");
+        long size = Files.size(older);
+        try (RandomAccessFile f = new RandomAccessFile(older.toFile(), "rw")) {
+            f.seek(size - 2);
+            f.write(f.read() ^ 0xFF);
+        }
+
+        try (LibraryStore store = open()) {
+            IOException e = assertThrows(IOException.class, store::recover);
+            assertTrue(e.getMessage().contains("wal-00000001.log"), e.getMessage());
+            assertTrue(e.getMessage().contains("at byte "), e.getMessage());
+        }
+        assertEquals(size, Files.size(older), "a damaged segment is left for inspection");
+    }
+
+    private LibraryStore open() throws IOException {
+        return new LibraryStore(dir, LibraryStore.FsyncPolicy.EVERY_COMMIT, 0, 0, 0);
+    }
+
+    private static void writeFirstRun(LibraryStore store) throws IOException {
+        store.memberAdded(new LibrarySystem.Member("M1", "Riya", "riya@example.com"));
+        store.memberAdded(new LibrarySystem.Member("M2", "Arjun", ""));
+        store.booksAdded(List.of(new LibrarySystem.Book("B1", "Dune", "Herbert", 2),
+                new LibrarySystem.Book("B2", "Emma", "Austen")));
+        store.copiesAdded("B1", 3);
+        store.bookIssued("B1", 2, "M1", "Riya", DAY);
+        store.bookIssued("B2", 1, "M1", "Riya", DAY);
+        store.holdPlaced("B2", "M2");
+        store.bookIssued("B1", 1, "M2", "Arjun", DAY);
+        store.bookReturned("B1", 1);
+    }
+
+    private static void checkFirstRun(LibraryStore.Recovered r) {
+        assertNotNull(r);
+        assertEquals(2, r.books.size());
+        assertEquals(2, r.members.size());
+        assertEquals("riya@example.com", r.members.get(0).email);
+
+        LibrarySystem.Book dune = book(r, "B1");
+        assertEquals("Dune", dune.title);
+        assertEquals(3, dune.copies());
+        assertFalse(dune.circulation(1).issued);
+        assertTrue(dune.circulation(2).issued);
+        assertEquals("M1", dune.circulation(2).memberId);
+        assertEquals(DAY, dune.circulation(2).issueDay);
+        assertEquals(2, dune.available());
+
+        LibrarySystem.Book emma = book(r, "B2");
+        assertEquals("M1", emma.circulation(1).memberId);
+        assertEquals(List.of("M2"), emma.holds().members());
+    }
+
+    private static LibrarySystem.Book book(LibraryStore.Recovered r, String id) {
+        return r.books.stream().filter(b -> b.id.equals(id)).findFirst().orElseThrow();
+    }
+}
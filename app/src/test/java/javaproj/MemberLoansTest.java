@@ -0,0 +1,95 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class MemberLoansTest {
+    private final MemberLoans loans = new MemberLoans();
+
+    @Test
+    void enforcesTheLimitAndIgnoresRepeats() {
+        assertTrue(loans.add("M1", "B1", 1, 2));
+        assertTrue(loans.add("M1", "B1", 1, 2));
+        assertTrue(loans.add("M1", "B2", 3, 2));
+        assertFalse(loans.add("M1", "B3", 1, 2));
+        assertEquals(2, loans.count("M1"));
+        assertEquals(0, loans.count("M2"));
+
+        loans.remove("M1", "B1", 1);
+        assertEquals(1, loans.count("M1"));
+        assertTrue(loans.add("M1", "B3", 1, 2));
+        assertEquals(List.of("B2/3", "B3/1"), ids(loans.loans("M1")));
+    }
+
+    @Test
+    void tracksIdsOutsideTheAllocatorsForm() {
+        // Leading zeros, other prefixes and numbers too large to pack all get aliases.
+        String[] members = {"M007", "member-1", "M99999999999", "m4"};
+        String[] books = {"B007", "ISBN-0-19", "B999999999999999999", "b4"};
+        for (int i = 0; i < members.length; i++) {
+            assertTrue(loans.add(members[i], books[i], 2, 1), members[i]);
+            assertFalse(loans.add(members[i], "B1", 1, 1), members[i] + " is over the limit");
+            assertEquals(1, loans.count(members[i]));
+            assertEquals(List.of(books[i] + "/2"), ids(loans.loans(members[i])));
+        }
+        // "M007" is not "M7".
+        assertEquals(0, loans.count("M7"));
+        loans.remove("M007", "B007", 2);
+        assertEquals(0, loans.count("M007"));
+        loans.remove("never-seen", "B1", 1);
+        assertEquals(0, loans.count("never-seen"));
+    }
+
+    @Test
+    void loansWithoutAMemberAreNotTracked() {
+        assertTrue(loans.add("", "B1", 1, 0));
+        assertEquals(0, loans.count(""));
+        assertEquals(0, loans.loans("").length);
+    }
+
+    @Test
+    void manyMembersShareStripes() {
+        for (int m = 1; m <= 10_000; m++) assertTrue(loans.add("M" + m, "B" + m, m % 7 + 1, 5));
+        for (int m = 1; m <= 10_000; m++) {
+            assertEquals(1, loans.count("M" + m));
+            assertEquals(List.of("B" + m + "/" + (m % 7 + 1)), ids(loans.loans("M" + m)));
+        }
+    }
+
+    @Test
+    void limitHoldsUnderConcurrentIssues() throws Exception {
+        int threads = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> running = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String book = "B" + (t + 1);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (loans.add("M1", book, 1, 5)) accepted.incrementAndGet();
+            });
+            thread.start();
+            running.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : running) thread.join();
+        assertEquals(5, accepted.get());
+        assertEquals(5, loans.count("M1"));
+    }
+
+    private List<String> ids(long[] packed) {
+        List<String> out = new ArrayList<>();
+        for (long loan : packed) out.add(loans.bookId(loan) + "/" + MemberLoans.copy(loan));
+        out.sort(null);
+        return out;
+    }
+}
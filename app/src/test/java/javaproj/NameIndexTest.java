@@ -0,0 +1,78 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class NameIndexTest {
+    private static final String[] PARTS = {"Asha", "ash", "Rao", "Meera", "Ravi", "Kiran", "İpek", "Zoë", "an", " "};
+    private static final String[] QUERIES = {"a", "AS", "ash", "asha", "rao", "a r", "ravi kiran", "ee", "zoë",
+            "i̇pek", "ipek", "zz", "", "asha asha"};
+
+    private final NameIndex index = new NameIndex();
+    /** ID to employee, in the order they were last indexed. */
+    private final Map<String, Employee> indexed = new LinkedHashMap<>();
+
+    @Test
+    void findsLikeAContainsScanThroughChurnAndRebuilds() {
+        Random random = new Random(19);
+        for (int round = 0; round < 4; round++) {
+            // Grow, rename some, then remove most of them so the index rebuilds itself.
+            for (int i = 0; i < 5000; i++) put(random, "E" + random.nextInt(6000));
+            check();
+            for (int i = 0; i < 1000; i++) put(random, "E" + random.nextInt(6000));
+            check();
+            List<String> ids = new ArrayList<>(indexed.keySet());
+            for (int i = 0; i < ids.size() * 4 / 5; i++) {
+                String id = ids.get(random.nextInt(ids.size()));
+                assertEquals(indexed.remove(id) != null, index.remove(id));
+            }
+            check();
+        }
+        assertFalse(index.remove("nobody"));
+    }
+
+    private void put(Random random, String id) {
+        StringBuilder name = new StringBuilder();
+        for (int n = 1 + random.nextInt(3); n > 0; n--) name.append(PARTS[random.nextInt(PARTS.length)]);
+        Employee emp = new FullTimeEmployee(id, name.toString(), "Sales", 1);
+        indexed.remove(id);
+        indexed.put(id, emp);
+        index.put(emp);
+    }
+
+    private void check() {
+        assertEquals(indexed.size(), index.size());
+        for (String query : QUERIES) {
+            List<Employee> expected = new ArrayList<>();
+            String q = query.toLowerCase(Locale.ROOT);
+            for (Employee emp : indexed.values()) {
+                if (emp.getName().toLowerCase(Locale.ROOT).contains(q)) expected.add(emp);
+            }
+            assertSameEmployees(expected, index.find(query, 0, Integer.MAX_VALUE), query);
+
+            List<Employee> paged = new ArrayList<>();
+            for (int offset = 0; ; offset += 50) {
+                List<Employee> page = index.find(query, offset, 50);
+                assertTrue(page.size() <= 50);
+                paged.addAll(page);
+                if (page.size() < 50) break;
+            }
+            assertSameEmployees(expected, paged, query + " in pages");
+            assertSameEmployees(expected.subList(Math.min(3, expected.size()), Math.min(10, expected.size())),
+                    index.find(query, 3, 7), query + " from 3");
+            assertEquals(List.of(), index.find(query, 0, 0));
+        }
+    }
+
+    private static void assertSameEmployees(List<Employee> expected, List<Employee> actual, String what) {
+        assertEquals(expected.size(), actual.size(), what);
+        for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), actual.get(i), what + " at " + i);
+    }
+}
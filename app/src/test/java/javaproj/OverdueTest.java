@@ -0,0 +1,99 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OverdueTest {
+    private static final LocalDate START = LocalDate.now();
+
+    @TempDir
+    Path data;
+
+    private LibraryService service;
+
+    @BeforeEach
+    void open() {
+        System.setProperty("library.data", data.toString());
+        System.setProperty("library.fsync", "never");
+        service = new LibraryService();
+        assertNull(service.open().join());
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        service.close();
+        Dates.clock = System::currentTimeMillis;
+        System.clearProperty("library.data");
+        System.clearProperty("library.fsync");
+    }
+
+    @Test
+    void listsTheMostOverdueFirstAndRecountsWhenTheDayChanges() {
+        issueOn(-20, "B3", "M1");
+        issueOn(-15, "B1", "M2");
+        issueOn(-10, "B5", "M3");
+        issueOn(-10, "B2", "M1");
+        issueOn(-2, "B4", "M2");
+
+        setDay(0);
+        // Due 13, 8, 3 and 3 days ago; B4 is due in 5 days.
+        assertEquals(List.of("B3", "B1", "B2", "B5"), ids(service.overdueBooks(0, 10).join()));
+        assertEquals(List.of("B1", "B2"), ids(service.overdueBooks(1, 2).join()));
+        assertEquals(List.of(), ids(service.overdueBooks(4, 10).join()));
+        assertOverdue(4, (13 + 8 + 3 + 3) * LibraryService.FINE_PER_DAY);
+
+        setDay(1);
+        assertOverdue(4, (14 + 9 + 4 + 4) * LibraryService.FINE_PER_DAY);
+        setDay(6);
+        assertEquals(List.of("B3", "B1", "B2", "B5", "B4"), ids(service.overdueBooks(0, 10).join()));
+        assertOverdue(5, (19 + 14 + 9 + 9 + 1) * LibraryService.FINE_PER_DAY);
+
+        // Returning an overdue loan invalidates today's cached total; a new loan is never overdue.
+        assertEquals(14 * LibraryService.FINE_PER_DAY, service.returnBook("B1").join().fine);
+        assertOverdue(4, (19 + 9 + 9 + 1) * LibraryService.FINE_PER_DAY);
+        service.issueBook("B1", "M3").join();
+        assertOverdue(4, (19 + 9 + 9 + 1) * LibraryService.FINE_PER_DAY);
+        service.removeBook("B5").join();
+        assertOverdue(3, (19 + 9 + 1) * LibraryService.FINE_PER_DAY);
+
+        setDay(8);
+        assertEquals(List.of("B3", "B2", "B4"), ids(service.overdueBooks(0, 10).join()));
+        assertOverdue(3, (21 + 11 + 3) * LibraryService.FINE_PER_DAY);
+    }
+
+    private void assertOverdue(long loans, long fines) {
+        LibraryService.Stats stats = service.stats(0, 0).join();
+        assertEquals(loans, stats.overdueBooks);
+        assertEquals(fines, stats.outstandingFines);
+        long owed = 0;
+        for (LibraryService.Loan l : service.overdueBooks(0, 100).join()) owed += LibraryService.fine(l.state);
+        assertEquals(fines, owed, "the total is what the loans themselves owe today");
+    }
+
+    private void issueOn(int day, String bookId, String memberId) {
+        setDay(day);
+        assertEquals(Dates.today(), service.issueBook(bookId, memberId).join().book.circulation(1).issueDay);
+    }
+
+    /** Moves the clock to noon, {@code offset} days from the day the test started. */
+    private static void setDay(int offset) {
+        long millis = START.plusDays(offset).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Dates.clock = () -> millis;
+        assertEquals(START.toEpochDay() + offset, Dates.today());
+    }
+
+    private static List<String> ids(List<LibraryService.Loan> loans) {
+        List<String> ids = new ArrayList<>();
+        for (LibraryService.Loan l : loans) ids.add(l.bookId);
+        return ids;
+    }
+}
@@ -0,0 +1,100 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelEmployeeLoaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkedLoadMatchesASequentialParse() throws IOException {
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        int line = 0;
+        while (text.length() < 5 << 20) {
+            line++;
+            int kind = random.nextInt(100);
+            if (kind == 0) text.append("");
+            else if (kind == 1) text.append("   \t");
+            else if (kind == 2) text.append("{type=fulltimeemployee, employee_id=X").append(line).append(", name=Bad}");
+            else if (kind == 3) text.append("not a record at line ").append(line);
+            else {
+                // Few enough IDs that most of them turn up again in later chunks.
+                String id = "E" + random.nextInt(20_000);
+                Employee emp = random.nextBoolean()
+                        ? new FullTimeEmployee(id, "Name, " + (char) ('A' + random.nextInt(26)), "Sales", line)
+                        : new PartTimeEmployee(id, "Part Timer", "Support", random.nextInt(500), line);
+                text.append(EmployeeRecords.format(emp));
+            }
+            text.append(random.nextInt(3) == 0 ? "\r\n" : "\n");
+        }
+        text.append(EmployeeRecords.format(new FullTimeEmployee("E1", "Last", "Line", 1)));
+        Path file = dir.resolve("employees.dat");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        assertTrue(Files.size(file) > 4 << 20);
+
+        Map<String, Employee> expected = new HashMap<>();
+        List<String> expectedErrors = new ArrayList<>();
+        long expectedRecords = 0;
+        String[] lines = text.toString().split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String l = lines[i].endsWith("\r") ? lines[i].substring(0, lines[i].length() - 1) : lines[i];
+            if (l.isBlank()) continue;
+            try {
+                Employee emp = EmployeeRecords.parse(l, i + 1);
+                expected.put(emp.getEmployeeId(), emp);
+                expectedRecords++;
+            } catch (IllegalArgumentException e) {
+                expectedErrors.add(e.getMessage());
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, Employee> loaded = new HashMap<>();
+            List<String> errors = new ArrayList<>();
+            ParallelEmployeeLoader.LoadReport report = new ParallelEmployeeLoader(pool).load(file, loaded, errors::add);
+
+            assertTrue(report.chunks > 1, report.toString());
+            assertEquals(expectedRecords, report.records);
+            assertEquals(expectedErrors.size(), report.errors);
+            assertEquals(Files.size(file), report.bytes);
+            assertEquals(expectedErrors, errors);
+            assertEquals(expected.keySet(), loaded.keySet());
+            for (Employee emp : expected.values()) {
+                Employee other = loaded.get(emp.getEmployeeId());
+                assertEquals(EmployeeRecords.format(emp), EmployeeRecords.format(other), "the later line wins");
+            }
+            assertEquals("Last", loaded.get("E1").getName());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void loadsSmallAndEmptyFiles() throws IOException {
+        Path file = dir.resolve("employees.dat");
+        Files.write(file, new byte[0]);
+        Map<String, Employee> loaded = new HashMap<>();
+        assertEquals(0, new ParallelEmployeeLoader().load(file, loaded, e -> fail(e)).records);
+
+        Files.writeString(file, EmployeeRecords.format(new FullTimeEmployee("E1", "Asha", "Sales", 10)) + "\r\n\r\nbroken\n");
+        List<String> errors = new ArrayList<>();
+        assertEquals(1, new ParallelEmployeeLoader().load(file, loaded, errors::add).records);
+        assertEquals(List.of("line 3: record must be enclosed in { }"), errors);
+        assertEquals(10, loaded.get("E1").calculateSalary());
+    }
+}
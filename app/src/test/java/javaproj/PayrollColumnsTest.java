@@ -0,0 +1,138 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class PayrollColumnsTest {
+    private static final String[] DEPARTMENTS = {"Sales", "Support", "Finance", "Ops", "Legal"};
+
+    private final PayrollColumns columns = new PayrollColumns(0);
+    private final Map<String, Employee> employees = new LinkedHashMap<>();
+
+    @Test
+    void agreesWithCalculateSalaryThroughChurn() {
+        Random random = new Random(17);
+        // Whole-number pay keeps every sum exact, whatever order it is added in.
+        for (int step = 0; step < 200_000; step++) {
+            String id = "E" + random.nextInt(150_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(employees.remove(id) != null, columns.remove(id));
+            } else {
+                Employee emp = employee(random, id);
+                employees.put(id, emp);
+                columns.put(emp);
+            }
+            if (step % 40_000 == 0) check();
+        }
+        assertTrue(employees.size() > 1 << 16, "more rows than one summary task takes: " + employees.size());
+        check();
+
+        for (String dept : DEPARTMENTS) {
+            employees.values().removeIf(emp -> {
+                if (!emp.getDepartment().equals(dept)) return false;
+                assertTrue(columns.remove(emp.getEmployeeId()));
+                return true;
+            });
+            check();
+        }
+        assertEquals(0, columns.size());
+    }
+
+    @Test
+    void summaryIsCachedUntilTheNextChange() {
+        Employee asha = new FullTimeEmployee("E1", "Asha", "Sales", 50000);
+        columns.put(asha);
+        columns.put(new Manager("E2", "Meera", "Sales", 90000, 10000));
+        PayrollColumns.Summary first = columns.summary();
+        assertSame(first, columns.summary());
+        assertEquals(150000, first.all.total);
+
+        columns.put(new PartTimeEmployee("E3", "Ravi", "Support", 300, 80));
+        PayrollColumns.Summary second = columns.summary();
+        assertNotSame(first, second);
+        assertEquals(174000, second.all.total);
+        assertEquals(150000, first.all.total, "a summary already handed out does not change");
+
+        columns.put(new FullTimeEmployee("E1", "Asha", "Sales", 60000));
+        PayrollColumns.Summary third = columns.summary();
+        assertNotSame(second, third);
+        assertEquals(184000, third.all.total);
+
+        assertFalse(columns.remove("E9"));
+        assertSame(third, columns.summary());
+        assertTrue(columns.remove("E2"));
+        PayrollColumns.Summary fourth = columns.summary();
+        assertNotSame(third, fourth);
+        assertEquals(84000, fourth.all.total);
+        assertEquals(List.of("FullTimeEmployee", "PartTimeEmployee"), names(fourth.byType));
+    }
+
+    private void check() {
+        double total = 0;
+        Map<String, Double> byDepartment = new TreeMap<>();
+        Map<String, double[]> departments = new TreeMap<>(), types = new TreeMap<>();
+        for (Employee emp : employees.values()) {
+            double salary = emp.calculateSalary();
+            total += salary;
+            byDepartment.merge(emp.getDepartment(), salary, Double::sum);
+            tally(departments, emp.getDepartment(), salary);
+            tally(types, emp.getClass().getSimpleName(), salary);
+        }
+
+        assertEquals(employees.size(), columns.size());
+        assertEquals(total, columns.totalPayroll());
+        assertEquals(byDepartment, columns.payrollByDepartment());
+        PayrollColumns.Summary summary = columns.summary();
+        assertEquals(employees.size(), summary.all.count);
+        assertEquals(total, summary.all.total);
+        assertEquals(new ArrayList<>(departments.keySet()), names(summary.byDepartment));
+        assertGroups(departments, summary.byDepartment);
+        assertGroups(types, summary.byType);
+    }
+
+    private static void tally(Map<String, double[]> groups, String name, double salary) {
+        double[] g = groups.computeIfAbsent(name, k -> new double[]{0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+        g[0]++;
+        g[1] += salary;
+        g[2] = Math.min(g[2], salary);
+        g[3] = Math.max(g[3], salary);
+    }
+
+    private static void assertGroups(Map<String, double[]> expected, List<PayrollColumns.Group> actual) {
+        // Types come in declaration order rather than by name, so compare them as a map.
+        Map<String, PayrollColumns.Group> byName = new TreeMap<>();
+        for (PayrollColumns.Group g : actual) byName.put(g.name, g);
+        assertEquals(expected.keySet(), byName.keySet());
+        for (Map.Entry<String, double[]> e : expected.entrySet()) {
+            PayrollColumns.Group g = byName.get(e.getKey());
+            double[] x = e.getValue();
+            assertEquals((long) x[0], g.count, g.name);
+            assertEquals(x[1], g.total, g.name);
+            assertEquals(x[2], g.min, g.name);
+            assertEquals(x[3], g.max, g.name);
+            assertEquals(x[1] / x[0], g.average(), g.name);
+        }
+    }
+
+    private static List<String> names(List<PayrollColumns.Group> groups) {
+        List<String> names = new ArrayList<>();
+        for (PayrollColumns.Group g : groups) names.add(g.name);
+        return names;
+    }
+
+    private static Employee employee(Random random, String id) {
+        String dept = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+        switch (random.nextInt(3)) {
+            case 0: return new FullTimeEmployee(id, "Full Timer", dept, random.nextInt(200_000));
+            case 1: return new PartTimeEmployee(id, "Part Timer", dept, random.nextInt(1000), random.nextInt(200));
+            default: return new Manager(id, "Manager", dept, random.nextInt(300_000), random.nextInt(50_000));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecordWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotesCsvFieldsThatNeedIt() throws IOException {
+        Path file = dir.resolve("out.csv");
+        try (RecordWriter out = RecordWriter.open(file, "id", "name, full", "note")) {
+            out.text("B1").text("Rao, Asha").text("said \"hi\"").endRecord();
+            out.text("B2").text("two\nlines").text("cr\rhere").endRecord();
+            out.text("\"").text("").empty().endRecord();
+            out.finish();
+            assertEquals(3, out.records());
+        }
+        assertEquals("id,\"name, full\",note\n"
+                + "B1,\"Rao, Asha\",\"said \"\"hi\"\"\"\n"
+                + "B2,\"two\nlines\",\"cr\rhere\"\n"
+                + "\"\"\"\",,\n", read(file));
+    }
+
+    @Test
+    void escapesJsonStringsAndControlCharacters() throws IOException {
+        Path file = dir.resolve("out.jsonl");
+        try (RecordWriter out = RecordWriter.open(file, "text", "none")) {
+            out.text("q\"b\\s/\n\r\t\b\f\u0000\u001f\u007f").empty().endRecord();
+            out.text(null).text("plain").endRecord();
+            out.finish();
+        }
+        assertEquals("{\"text\":\"q\\\"b\\\\s/\\n\\r\\t\\u0008\\u000c\\u0000\\u001f\u007f\",\"none\":null}\n"
+                + "{\"text\":null,\"none\":\"plain\"}\n", read(file));
+    }
+
+    @Test
+    void encodesSurrogatePairsAndReplacesLoneSurrogates() throws IOException {
+        Path file = dir.resolve("out.csv");
+        try (RecordWriter out = RecordWriter.open(file, "text")) {
+            out.text("é東😀").endRecord();
+            out.text("a\uD83Db").endRecord();
+            out.text("\uDE00c\uD83D").endRecord();
+            out.finish();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals("text\né東😀\na?b\n?c?\n", new String(bytes, StandardCharsets.UTF_8));
+        assertArrayEquals("text\né東😀\na?b\n?c?\n".getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    @Test
+    void writesNumbersAndDates() throws IOException {
+        Path file = dir.resolve("out.csv");
+        int day = (int) LocalDate.of(2024, 2, 29).toEpochDay();
+        try (RecordWriter out = RecordWriter.open(file, "n")) {
+            for (long n : new long[]{0, 7, -42, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1}) out.number(n).endRecord();
+            for (double d : new double[]{50000.0, -3.0, -0.0, 0.5, 1234.56, 1e15, 1e-7, 999999999999999.0}) {
+                out.number(d).endRecord();
+            }
+            out.date(day).endRecord();
+            out.date((int) LocalDate.of(987, 1, 5).toEpochDay()).endRecord();
+            out.date(Dates.NO_DAY).endRecord();
+            out.finish();
+        }
+        assertEquals("n\n0\n7\n-42\n9223372036854775807\n-9223372036854775808\n-9223372036854775807\n"
+                + "50000\n-3\n0\n0.5\n1234.56\n1.0E15\n1.0E-7\n999999999999999\n"
+                + "2024-02-29\n0987-01-05\n\n", read(file));
+    }
+
+    @Test
+    void fieldsStraddleTheBufferBoundary() throws IOException {
+        Path file = dir.resolve("out.jsonl");
+        StringBuilder expected = new StringBuilder();
+        String filler = "x".repeat(RecordWriter.BUFFER_SIZE - 20);
+        String awkward = "é\u0001😀\"東".repeat(10);
+        String huge = "ab😀".repeat(RecordWriter.BUFFER_SIZE);
+        try (RecordWriter out = RecordWriter.open(file, "a", "b")) {
+            // Shift the start of the awkward field one byte at a time across the boundary.
+            for (int shift = 0; shift < 30; shift++) {
+                out.text(filler.substring(shift)).text(awkward).endRecord();
+                expected.append("{\"a\":\"").append(filler, shift, filler.length()).append("\",\"b\":\"")
+                        .append(awkward.replace("\"", "\\\"").replace("\u0001", "\\u0001")).append("\"}\n");
+            }
+            out.text(huge).number(Long.MIN_VALUE).endRecord();
+            expected.append("{\"a\":\"").append(huge).append("\",\"b\":-9223372036854775808}\n");
+            out.finish();
+        }
+        assertEquals(expected.toString(), read(file));
+    }
+
+    @Test
+    void gzipFilesReadBack() throws IOException {
+        Path file = dir.resolve("out.csv.GZ");
+        StringBuilder expected = new StringBuilder("id,title\n");
+        try (RecordWriter out = RecordWriter.open(file, "id", "title")) {
+            for (int i = 0; i < 100_000; i++) {
+                out.number(i).text("Title, part " + i).endRecord();
+                expected.append(i).append(",\"Title, part ").append(i).append("\"\n");
+            }
+            out.finish();
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals(expected.toString(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(Files.size(file) < expected.length() / 2);
+    }
+
+    @Test
+    void closingWithoutFinishLeavesTheTargetAlone() throws IOException {
+        for (String name : new String[]{"out.csv", "out.jsonl.gz"}) {
+            Path file = dir.resolve(name);
+            Files.writeString(file, "old export");
+            try (RecordWriter out = RecordWriter.open(file, "id")) {
+                for (int i = 0; i < 300_000; i++) out.text("record " + i).endRecord();
+                assertTrue(Files.exists(dir.resolve(name + ".tmp")));
+            }
+            assertEquals("old export", Files.readString(file));
+            assertFalse(Files.exists(dir.resolve(name + ".tmp")), name);
+        }
+    }
+
+    @Test
+    void refusesBadNamesAndRecordShapes() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> RecordWriter.open(dir.resolve("out.txt"), "a"));
+        assertThrows(IllegalArgumentException.class, () -> RecordWriter.open(dir.resolve("out.gz"), "a"));
+        Path file = dir.resolve("out.csv");
+        try (RecordWriter out = RecordWriter.open(file, "a", "b")) {
+            out.text("x");
+            assertThrows(IllegalStateException.class, out::endRecord);
+            out.empty();
+            assertThrows(IllegalStateException.class, () -> out.text("too many"));
+        }
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(dir.resolve("out.csv.tmp")));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+    private static final int DAY = 19_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsBooksLoansHoldsAndMembers() throws IOException {
+        List<LibrarySystem.Book> books = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            LibrarySystem.Book b = new LibrarySystem.Book("B" + i, "Title " + i, "Author " + i % 7, i % 4 + 1);
+            if (i % 3 == 0) b.restore(1, LibrarySystem.Circulation.issued("M" + i % 11, "Name " + i % 11, DAY - i));
+            if (i % 5 == 0) b.holdQueue().add("M" + i % 13);
+            books.add(b);
+        }
+        books.add(new LibrarySystem.Book("B501", "Les Misérables — 東京", "", 2));
+        books.get(500).restore(2, LibrarySystem.Circulation.issued("M1", "Zoë", DAY));
+        books.get(500).holdQueue().add("M2");
+        books.get(500).holdQueue().add("M3");
+        List<LibrarySystem.Member> members = List.of(new LibrarySystem.Member("M1", "Zoë", "zoe@example.com"),
+                new LibrarySystem.Member("M2", "", ""));
+
+        Path file = dir.resolve("snapshot.dat");
+        SnapshotFile.write(file, 42, books, members, 900, 77);
+        SnapshotFile s = SnapshotFile.open(file);
+
+        assertEquals(42, s.firstSegment());
+        assertEquals(900, s.nextBookNumber());
+        assertEquals(77, s.nextMemberNumber());
+        assertEquals(books.size(), s.bookCount());
+        List<List<String>> holds = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) holds.add(new ArrayList<>());
+        for (int h = 0; h < s.holdCount(); h++) holds.get(s.holdBook(h)).add(s.holdMember(h));
+        for (int i = 0; i < books.size(); i++) {
+            LibrarySystem.Book expected = books.get(i), actual = s.book(i);
+            assertEquals(expected.id, actual.id);
+            assertEquals(expected.title, actual.title);
+            assertEquals(expected.author, actual.author);
+            assertEquals(expected.copies(), actual.copies());
+            for (int copy = 1; copy <= expected.copies(); copy++) {
+                LibrarySystem.Circulation x = expected.circulation(copy), y = actual.circulation(copy);
+                assertEquals(x.issued, y.issued, expected.id + "/" + copy);
+                assertEquals(x.memberId, y.memberId);
+                assertEquals(x.issuedTo, y.issuedTo);
+                assertEquals(x.issueDay, y.issueDay);
+            }
+            assertEquals(expected.holds() == null ? List.of() : expected.holds().members(), holds.get(i));
+        }
+        assertEquals(2, s.memberCount());
+        assertEquals("Zoë", s.member(0).name);
+        assertEquals("zoe@example.com", s.member(0).email);
+        assertEquals("", s.member(1).name);
+    }
+
+    @Test
+    void sharesShortStringsButNotLongOnes() throws IOException {
+        String author = "A. Writer", title = "x".repeat(1000);
+        List<LibrarySystem.Book> books = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) books.add(new LibrarySystem.Book("B" + i, title, author));
+        Path file = dir.resolve("snapshot.dat");
+        SnapshotFile.write(file, 1, books, List.of(), 101, 1);
+
+        long size = Files.size(file);
+        assertTrue(size > 100 * 1000, "each long title is stored: " + size);
+        assertTrue(size < 100 * 1000 + 100 * 64, "the author is stored once: " + size);
+        SnapshotFile s = SnapshotFile.open(file);
+        assertEquals(title, s.bookTitle(99));
+        assertEquals(author, s.bookAuthor(99));
+    }
+
+    @Test
+    void detectsCorruption() throws IOException {
+        Path file = dir.resolve("snapshot.dat");
+        SnapshotFile.write(file, 1, List.of(new LibrarySystem.Book("B1", "Emma", "Austen")), List.of(), 2, 1);
+        long size = Files.size(file);
+
+        try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+            f.seek(size - 1);
+            f.write('!');
+        }
+        assertEquals("Snapshot checksum mismatch", assertThrows(IOException.class, () -> SnapshotFile.open(file)).getMessage());
+
+        try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+            f.seek(16);
+            f.writeInt(5);
+        }
+        assertEquals("Snapshot header is corrupt", assertThrows(IOException.class, () -> SnapshotFile.open(file)).getMessage());
+
+        try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+            f.setLength(size - 10);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.open(file));
+    }
+}
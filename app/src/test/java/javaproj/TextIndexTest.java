@@ -0,0 +1,88 @@
+package javaproj;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TextIndexTest {
+    private static final String[] WORDS = {"wings", "fire", "wind", "winter", "wine", "alchemist", "alpha",
+            "power", "mind", "monk", "rich", "dad", "poor", "río", "winds"};
+
+    private final TextIndex index = new TextIndex();
+    private final List<LibrarySystem.Book> catalog = new ArrayList<>();
+
+    @Test
+    void matchesTermsPrefixesAndAlternatives() {
+        LibrarySystem.Book wings = add("Wings of Fire", "A.P.J. Abdul Kalam");
+        LibrarySystem.Book alchemist = add("The Alchemist", "Paulo Coelho");
+        LibrarySystem.Book winter = add("Winter's Tale", "Shakespeare");
+        LibrarySystem.Book rio = add("Río Bravo", "Leigh Brackett");
+
+        assertEquals(List.of(wings), index.search("wings fire"));
+        assertEquals(List.of(wings, winter), index.search("win*"));
+        assertEquals(List.of(wings, alchemist), index.search("fire OR alche*"));
+        assertEquals(List.of(rio), index.search("RIO"));
+        assertEquals(List.of(), index.search("wings alchemist"));
+        assertEquals(List.of(), index.search("zz*"));
+
+        index.removeBook(wings);
+        assertEquals(List.of(winter), index.search("win*"));
+    }
+
+    @Test
+    void agreesWithAScanThroughChurnAndCompaction() {
+        Random random = new Random(3);
+        for (int step = 0; step < 20_000; step++) {
+            if (catalog.isEmpty() || random.nextInt(5) < 3) {
+                add(word(random) + " " + word(random), word(random));
+            } else {
+                LibrarySystem.Book b = catalog.remove(random.nextInt(catalog.size()));
+                index.removeBook(b);
+            }
+            if (step % 500 == 0) {
+                for (String prefix : new String[]{"w", "win", "al", "p", "ri", "m"}) check(prefix + "*");
+                check("wind");
+                check("win* OR dad");
+                check("rich m*");
+            }
+        }
+    }
+
+    private void check(String query) {
+        List<LibrarySystem.Book> expected = new ArrayList<>();
+        for (LibrarySystem.Book b : catalog) if (matches(b, query)) expected.add(b);
+        List<LibrarySystem.Book> actual = index.search(query);
+        assertEquals(expected.size(), actual.size(), query);
+        // Results come in catalog order either way, since document numbers follow insertion.
+        for (int i = 0; i < expected.size(); i++) assertSame(expected.get(i), actual.get(i), query);
+    }
+
+    private static boolean matches(LibrarySystem.Book b, String query) {
+        List<String> tokens = TextIndex.tokenize(b.title + " " + b.author);
+        for (String group : query.split(" OR ")) {
+            boolean all = true;
+            for (String word : group.trim().split("\\s+")) {
+                boolean found = false;
+                for (String t : tokens)
+                    found |= word.endsWith("*") ? t.startsWith(word.substring(0, word.length() - 1)) : t.equals(word);
+                all &= found;
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    private LibrarySystem.Book add(String title, String author) {
+        LibrarySystem.Book b = new LibrarySystem.Book("B" + catalog.size(), title, author);
+        catalog.add(b);
+        index.addBook(b);
+        return b;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + (random.nextInt(4) == 0 ? random.nextInt(50) : "");
+    }
+}
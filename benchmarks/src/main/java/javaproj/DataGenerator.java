@@ -0,0 +1,95 @@
+package javaproj;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic catalogs, members and employees for the benchmarks. Everything is
+ * drawn from a fixed seed so two runs at the same size see the same data.
+ * Names are built from syllables because employee names may not contain
+ * digits; IDs keep the applications' own "B1", "M1", "E1" style.
+ */
+final class DataGenerator {
+    static final long SEED = 20240601L;
+    /** Share of generated books that are out on loan. */
+    static final double ISSUED_SHARE = 0.3;
+
+    private static final String[] SYLLABLES = {
+        "an", "bel", "cor", "da", "el", "fin", "gar", "hal", "in", "jo", "ka", "lin",
+        "mar", "nor", "os", "pra", "quin", "ra", "sha", "tor", "ul", "ven", "wil", "ya"
+    };
+    private static final String[] WORDS = {
+        "Java", "Patterns", "Systems", "Networks", "Data", "Design", "Algorithms", "Code",
+        "Clean", "Effective", "Modern", "Concurrency", "Practice", "Theory", "Compilers", "Distributed"
+    };
+    private static final String[] DEPARTMENTS = {
+        "Engineering", "Sales", "Marketing", "Finance", "Support", "Operations", "Legal", "Research"
+    };
+
+    private DataGenerator() {}
+
+    static List<LibrarySystem.Book> books(int count) {
+        Random random = new Random(SEED);
+        int today = Dates.today();
+        List<LibrarySystem.Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            LibrarySystem.Book b = new LibrarySystem.Book("B" + i, title(random), name(random));
+            if (random.nextDouble() < ISSUED_SHARE) {
+                b.restore(1, LibrarySystem.Circulation.issued(name(random), today - random.nextInt(30)));
+            }
+            books.add(b);
+        }
+        return books;
+    }
+
+    static List<LibrarySystem.Member> members(int count) {
+        Random random = new Random(SEED + 1);
+        List<LibrarySystem.Member> members = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String name = name(random);
+            members.add(new LibrarySystem.Member("M" + i, name, name.replace(' ', '.').toLowerCase() + "@mail.com"));
+        }
+        return members;
+    }
+
+    static Employee employee(Random random, int i) {
+        String id = "E" + i;
+        String name = name(random);
+        String department = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+        int kind = random.nextInt(10);
+        if (kind < 6) return new FullTimeEmployee(id, name, department, 30000 + random.nextInt(70000));
+        if (kind < 9) return new PartTimeEmployee(id, name, department, 200 + random.nextInt(800), 20 + random.nextInt(140));
+        return new Manager(id, name, department, 80000 + random.nextInt(70000), random.nextInt(20000));
+    }
+
+    /** Writes {@code count} employee records into {@code file} in the data file format. */
+    static void writeEmployees(Path file, int count) throws IOException {
+        Random random = new Random(SEED + 2);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 1; i <= count; i++) {
+                writer.write(EmployeeRecords.format(employee(random, i)));
+                writer.newLine();
+            }
+        }
+    }
+
+    static String name(Random random) {
+        return word(random) + " " + word(random);
+    }
+
+    private static String word(Random random) {
+        String first = SYLLABLES[random.nextInt(SYLLABLES.length)];
+        String rest = SYLLABLES[random.nextInt(SYLLABLES.length)];
+        return Character.toUpperCase(first.charAt(0)) + first.substring(1) + rest;
+    }
+
+    private static String title(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+    }
+}
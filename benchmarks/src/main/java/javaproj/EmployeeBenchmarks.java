@@ -0,0 +1,105 @@
+package javaproj;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading, searching and totalling a company of growing size. The data file
+ * is generated once per size into a temporary directory; loadData reads it
+ * with the same parallel loader the Company constructor uses.
+ *
+ * Run a subset of sizes with {@code -p size=1000,100000}; 10M employees
+ * need a few GB of heap ({@code -jvmArgsAppend -Xmx6g}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeBenchmarks {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Path dir;
+    private Path dataFile;
+    private Company company;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("employee-bench");
+        dataFile = dir.resolve("employees.dat");
+        DataGenerator.writeEmployees(dataFile, size);
+        Path companyFile = Files.copy(dataFile, dir.resolve("company.dat"));
+        company = new Company(companyFile.toString());
+
+        queries = new String[64];
+        Random names = new Random(DataGenerator.SEED + 3);
+        for (int i = 0; i < queries.length; i++) queries[i] = DataGenerator.name(names).split(" ")[0];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        company.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Employee> loadData() throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        new ParallelEmployeeLoader().load(dataFile, employees,
+                error -> { throw new IllegalStateException(error); });
+        return employees;
+    }
+
+    @Benchmark
+    public long exportEmployeesCsv() throws IOException {
+        return company.exportEmployees(dir.resolve("export.csv"));
+    }
+
+    @Benchmark
+    public List<Employee> findEmployeesByName() {
+        next = (next + 1) % queries.length;
+        return company.findEmployeesByName(queries[next]);
+    }
+
+    @Benchmark
+    public List<Employee> findEmployeesByNamePage() {
+        next = (next + 1) % queries.length;
+        return company.findEmployeesByName(queries[next], 0, 50);
+    }
+
+    @Benchmark
+    public double calculateTotalPayroll() {
+        return company.calculateTotalPayroll();
+    }
+
+    @Benchmark
+    public Map<String, Double> calculatePayrollByDepartment() {
+        return company.calculatePayrollByDepartment();
+    }
+}
@@ -0,0 +1,60 @@
+package javaproj;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fine calculation for one loan, as the table does for every visible row and
+ * the fine calculator does for typed-in dates. Cost does not depend on the
+ * catalog size, so there is no size parameter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FineBenchmarks {
+    private static final int LOANS = 1024;
+
+    private LibrarySystem.Circulation[] loans;
+    private String[] issueDates, returnDates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(DataGenerator.SEED);
+        int today = Dates.today();
+        loans = new LibrarySystem.Circulation[LOANS];
+        issueDates = new String[LOANS];
+        returnDates = new String[LOANS];
+        for (int i = 0; i < LOANS; i++) {
+            int issueDay = today - random.nextInt(30);
+            loans[i] = LibrarySystem.Circulation.issued("Member", issueDay);
+            issueDates[i] = Dates.format(issueDay);
+            returnDates[i] = Dates.format(issueDay + random.nextInt(30));
+        }
+    }
+
+    @Benchmark
+    public long fineForLoan() {
+        next = (next + 1) & (LOANS - 1);
+        return LibraryService.fine(loans[next]);
+    }
+
+    @Benchmark
+    public long fineForTypedDates() {
+        next = (next + 1) & (LOANS - 1);
+        return LibraryService.fine(Dates.parse(issueDates[next]), Dates.parse(returnDates[next]));
+    }
+}
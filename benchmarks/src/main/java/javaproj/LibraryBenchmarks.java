@@ -0,0 +1,84 @@
+package javaproj;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Member lookup and book table rendering over catalogs of growing size.
+ * The table benchmarks read every cell the way JTable does when it paints:
+ * one visible page, and the whole catalog as a stand-in for the old
+ * refreshBooks, which rebuilt every row on each change.
+ *
+ * Run a subset of sizes with {@code -p size=1000,100000}; the 10M catalog
+ * needs a few GB of heap ({@code -jvmArgsAppend -Xmx6g}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryBenchmarks {
+    /** Rows a default-sized window shows at once. */
+    static final int PAGE = 40;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private CatalogIndex index;
+    private String[] memberIds;
+    private LibrarySystem.BookTableModel model;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new CatalogIndex();
+        List<LibrarySystem.Member> members = DataGenerator.members(size);
+        members.forEach(index::addMember);
+        memberIds = new String[Math.min(size, 1 << 16)];
+        for (int i = 0; i < memberIds.length; i++) {
+            memberIds[i] = "M" + (1 + (int) ((long) i * size / memberIds.length));
+        }
+        model = new LibrarySystem.BookTableModel(DataGenerator.books(size));
+    }
+
+    @Benchmark
+    public LibrarySystem.Member findMember() {
+        next = (next + 1) % memberIds.length;
+        return index.findMember(memberIds[next]);
+    }
+
+    @Benchmark
+    public void renderPage(Blackhole bh) {
+        int first = (next = (next + PAGE) % size);
+        int last = Math.min(size, first + PAGE);
+        for (int row = first; row < last; row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                bh.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void renderAllRows(Blackhole bh) {
+        int rows = model.getRowCount(), columns = model.getColumnCount();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                bh.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package javaproj;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and formatting single employee records, the per-line work behind
+ * loading and saving the data file (formerly parseMapString and toMap).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBenchmarks {
+    private static final int RECORDS = 1024;
+
+    private Employee[] employees;
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(DataGenerator.SEED);
+        employees = new Employee[RECORDS];
+        lines = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            employees[i] = DataGenerator.employee(random, i + 1);
+            lines[i] = EmployeeRecords.format(employees[i]);
+        }
+    }
+
+    @Benchmark
+    public Employee parseRecord() {
+        next = (next + 1) & (RECORDS - 1);
+        return EmployeeRecords.parse(lines[next]);
+    }
+
+    @Benchmark
+    public String formatRecord() {
+        next = (next + 1) & (RECORDS - 1);
+        return EmployeeRecords.format(employees[next]);
+    }
+}